@@ -4,10 +4,20 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import io.github.kn.flow.AbstractPollingPublisher;
+import io.github.kn.flow.ItemPublisher;
+import io.github.kn.flow.SpillBuffer;
+import io.github.kn.flow.SpillCodec;
 import software.amazon.awssdk.services.sfn.SfnAsyncClient;
 import software.amazon.awssdk.services.sfn.model.GetActivityTaskRequest;
 import software.amazon.awssdk.services.sfn.model.GetActivityTaskResponse;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Optional;
 import java.util.concurrent.*;
 import java.util.function.Supplier;
@@ -30,6 +40,13 @@ public class SfnActivityTaskPublisher extends AbstractPollingPublisher<GetActivi
         super(runnableSupplier, pollExec, maxPollingThreads, publisher);
     }
 
+    SfnActivityTaskPublisher(final Supplier<Runnable> runnableSupplier, final Executor pollExec,
+                             final int maxPollingThreads,
+                             final Flow.Publisher<GetActivityTaskResponse> publisher, final PollingDemand demand,
+                             final boolean partitioned) {
+        super(runnableSupplier, pollExec, maxPollingThreads, publisher, demand, partitioned);
+    }
+
     public static BuilderImpl builder(final String arn) {
         return new SfnActivityTaskPublisher.BuilderImpl(arn);
     }
@@ -48,13 +65,15 @@ public class SfnActivityTaskPublisher extends AbstractPollingPublisher<GetActivi
         }
 
         public SfnActivityTaskPublisher build() {
-            SubmissionPublisher<GetActivityTaskResponse> publisher = getPublisher();
+            ItemPublisher<GetActivityTaskResponse> publisher = getItemPublisher();
+            PollingDemand demand = PollingDemand.create(getPollingExecutor());
             return new SfnActivityTaskPublisher(() -> new SfnPoller(sfnAsyncClient
                     .orElseGet(() -> SfnAsyncClient.builder()
                             .asyncConfiguration(getDefaultAsyncConfig())
                             .httpClientBuilder(getLongPollingHttpClientBuilder())
-                            .build()), arnStr, getMaxPollsPerThread(), publisher), Executors
-                    .newCachedThreadPool(), getMaxPollingThreads(), publisher);
+                            .build()), arnStr, getMinPollsPerThread(), getMaxPollsPerThread(), publisher,
+                    new LinkedBlockingQueue<>(), demand, newSpillBuffer(new TaskSpillCodec())), getPollingExecutor(),
+                    getMaxPollingThreads(), publisher, demand, isPartitioned());
         }
 
         @Override
@@ -75,7 +94,26 @@ public class SfnActivityTaskPublisher extends AbstractPollingPublisher<GetActivi
         SfnPoller(final SfnAsyncClient client, final String arn, final int maxPollsPerThread,
                   final SubmissionPublisher<GetActivityTaskResponse> pub, final BlockingQueue<GetActivityTaskResponse>
                           queue) {
-            super(maxPollsPerThread, queue, pub);
+            this(client, arn, maxPollsPerThread, ItemPublisher.of(pub), queue, PollingDemand.unbounded());
+        }
+
+        SfnPoller(final SfnAsyncClient client, final String arn, final int maxPollsPerThread,
+                  final ItemPublisher<GetActivityTaskResponse> pub, final BlockingQueue<GetActivityTaskResponse>
+                          queue, final PollingDemand demand) {
+            this(client, arn, maxPollsPerThread, maxPollsPerThread, pub, queue, demand);
+        }
+
+        SfnPoller(final SfnAsyncClient client, final String arn, final int minPollsPerThread,
+                  final int maxPollsPerThread, final ItemPublisher<GetActivityTaskResponse> pub,
+                  final BlockingQueue<GetActivityTaskResponse> queue, final PollingDemand demand) {
+            this(client, arn, minPollsPerThread, maxPollsPerThread, pub, queue, demand, Optional.empty());
+        }
+
+        SfnPoller(final SfnAsyncClient client, final String arn, final int minPollsPerThread,
+                  final int maxPollsPerThread, final ItemPublisher<GetActivityTaskResponse> pub,
+                  final BlockingQueue<GetActivityTaskResponse> queue, final PollingDemand demand,
+                  final Optional<SpillBuffer<GetActivityTaskResponse>> spill) {
+            super(minPollsPerThread, maxPollsPerThread, queue, pub, demand, spill);
             this.sfnAsyncClient = client;
             this.activityArn = arn;
         }
@@ -97,4 +135,40 @@ public class SfnActivityTaskPublisher extends AbstractPollingPublisher<GetActivi
                             .of(response) : Optional.empty());
         }
     }
+
+    /**
+     * A {@link SpillCodec} of activity tasks, retaining their task token and input.
+     */
+    static final class TaskSpillCodec implements SpillCodec<GetActivityTaskResponse> {
+
+        @Override
+        public byte[] encode(final GetActivityTaskResponse task) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                out.writeUTF(task.taskToken());
+                out.writeBoolean(task.input() != null);
+                if (task.input() != null) {
+                    byte[] input = task.input().getBytes(StandardCharsets.UTF_8);
+                    out.writeInt(input.length);
+                    out.write(input);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return bytes.toByteArray();
+        }
+
+        @Override
+        public GetActivityTaskResponse decode(final byte[] bytes) {
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+                GetActivityTaskResponse.Builder task = GetActivityTaskResponse.builder().taskToken(in.readUTF());
+                if (in.readBoolean()) {
+                    task.input(new String(in.readNBytes(in.readInt()), StandardCharsets.UTF_8));
+                }
+                return task.build();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
 }
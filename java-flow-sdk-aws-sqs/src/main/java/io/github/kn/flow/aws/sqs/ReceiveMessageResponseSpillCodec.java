@@ -0,0 +1,116 @@
+package io.github.kn.flow.aws.sqs;
+
+import io.github.kn.flow.SpillCodec;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.sqs.model.Message;
+import software.amazon.awssdk.services.sqs.model.MessageAttributeValue;
+import software.amazon.awssdk.services.sqs.model.ReceiveMessageResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link SpillCodec} of received SQS messages, retaining each message's id, receipt handle, body, system
+ * attributes and string or binary message attributes (with their checksums).
+ */
+final class ReceiveMessageResponseSpillCodec implements SpillCodec<ReceiveMessageResponse> {
+
+    @Override
+    public byte[] encode(final ReceiveMessageResponse response) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(response.messages().size());
+            for (Message message : response.messages()) {
+                writeString(out, message.messageId());
+                writeString(out, message.receiptHandle());
+                writeString(out, message.md5OfBody());
+                writeString(out, message.body());
+                writeString(out, message.md5OfMessageAttributes());
+                out.writeInt(message.attributesAsStrings().size());
+                for (Map.Entry<String, String> attribute : message.attributesAsStrings().entrySet()) {
+                    writeString(out, attribute.getKey());
+                    writeString(out, attribute.getValue());
+                }
+                out.writeInt(message.messageAttributes().size());
+                for (Map.Entry<String, MessageAttributeValue> attribute : message.messageAttributes().entrySet()) {
+                    writeString(out, attribute.getKey());
+                    writeString(out, attribute.getValue().dataType());
+                    writeString(out, attribute.getValue().stringValue());
+                    writeBytes(out, attribute.getValue().binaryValue() == null ? null : attribute.getValue()
+                            .binaryValue().asByteArray());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Override
+    public ReceiveMessageResponse decode(final byte[] bytes) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            int messageCount = in.readInt();
+            List<Message> messages = new ArrayList<>(messageCount);
+            for (int i = 0; i < messageCount; i++) {
+                Message.Builder message = Message.builder()
+                        .messageId(readString(in))
+                        .receiptHandle(readString(in))
+                        .md5OfBody(readString(in))
+                        .body(readString(in))
+                        .md5OfMessageAttributes(readString(in));
+                int attributeCount = in.readInt();
+                Map<String, String> attributes = new HashMap<>(attributeCount);
+                for (int j = 0; j < attributeCount; j++) {
+                    attributes.put(readString(in), readString(in));
+                }
+                int messageAttributeCount = in.readInt();
+                Map<String, MessageAttributeValue> messageAttributes = new HashMap<>(messageAttributeCount);
+                for (int j = 0; j < messageAttributeCount; j++) {
+                    String name = readString(in);
+                    MessageAttributeValue.Builder value = MessageAttributeValue.builder()
+                            .dataType(readString(in))
+                            .stringValue(readString(in));
+                    byte[] binary = readBytes(in);
+                    messageAttributes.put(name, (binary == null ? value : value
+                            .binaryValue(SdkBytes.fromByteArray(binary))).build());
+                }
+                messages.add(message.attributesWithStrings(attributes).messageAttributes(messageAttributes).build());
+            }
+            return ReceiveMessageResponse.builder().messages(messages).build();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeString(final DataOutputStream out, final String value) throws IOException {
+        writeBytes(out, value == null ? null : value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void writeBytes(final DataOutputStream out, final byte[] value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(value.length);
+            out.write(value);
+        }
+    }
+
+    private static String readString(final DataInputStream in) throws IOException {
+        byte[] value = readBytes(in);
+        return value == null ? null : new String(value, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] readBytes(final DataInputStream in) throws IOException {
+        int length = in.readInt();
+        return length < 0 ? null : in.readNBytes(length);
+    }
+}
@@ -4,14 +4,25 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import io.github.kn.flow.AbstractPollingPublisher;
+import io.github.kn.flow.ItemPublisher;
+import io.github.kn.flow.SpillBuffer;
 import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchRequest;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchRequestEntry;
 import software.amazon.awssdk.services.sqs.model.GetQueueUrlRequest;
+import software.amazon.awssdk.services.sqs.model.Message;
 import software.amazon.awssdk.services.sqs.model.ReceiveMessageRequest;
 import software.amazon.awssdk.services.sqs.model.ReceiveMessageResponse;
 
+import java.time.Duration;
+import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * An {@link java.util.concurrent.Flow.Publisher} of AWS-SQS ReceiveMessageResponses.
@@ -19,6 +30,10 @@ import java.util.function.Supplier;
  * This implementation continuously polls AWS-SQS for messages on a configured {@link Executor}.
  * Each polled item {@link ReceiveMessageResponse} is then published to the registered subscribers for further
  * processing.
+ * <br>
+ * Given a spill buffer, the visibility timeout of the messages held in it is periodically extended, so they are not
+ * redelivered while waiting to be published. Their receipt handles are indexed on heap by the spill buffer, and at
+ * most {@link SQSPoller#MAX_OUTSTANDING_EXTENSIONS} extension calls per poller are outstanding at a time.
  */
 public class SQSMessagePollingPublisher extends AbstractPollingPublisher<ReceiveMessageResponse> {
     private static final Logger LOG = LogManager.getLogger("SQSMessagePollingPublisher");
@@ -29,6 +44,13 @@ public class SQSMessagePollingPublisher extends AbstractPollingPublisher<Receive
         super(runnableSupplier, pollExec, maxPollingThreads, publisher);
     }
 
+    SQSMessagePollingPublisher(final Supplier<Runnable> runnableSupplier, final Executor pollExec,
+                               final int maxPollingThreads,
+                               final Flow.Publisher<ReceiveMessageResponse> publisher, final PollingDemand demand,
+                               final boolean partitioned) {
+        super(runnableSupplier, pollExec, maxPollingThreads, publisher, demand, partitioned);
+    }
+
 
     public static SQSMessagePollingPublisher.BuilderImpl builder(final String name) {
         return new SQSMessagePollingPublisher.BuilderImpl(name);
@@ -39,6 +61,8 @@ public class SQSMessagePollingPublisher extends AbstractPollingPublisher<Receive
         private final String qName;
         private Optional<SqsAsyncClient> sqsAsyncClient = Optional.empty();
         private volatile int pollBatchSize = 10;
+        private volatile int waitTimeSeconds = SQSPoller.DEFAULT_WAIT_TIME_SECONDS;
+        private volatile Duration spilledVisibilityTimeout = SQSPoller.DEFAULT_SPILLED_VISIBILITY_TIMEOUT;
 
         private BuilderImpl(final String name) {
             this.qName = name;
@@ -49,6 +73,26 @@ public class SQSMessagePollingPublisher extends AbstractPollingPublisher<Receive
             return this;
         }
 
+        /**
+         * @param seconds long polling wait time of {@code ReceiveMessage} calls, at most 20 as per AWS-SQS limits.
+         * @return this builder
+         */
+        public BuilderImpl setWaitTimeSeconds(final int seconds) {
+            this.waitTimeSeconds = seconds;
+            return this;
+        }
+
+        /**
+         * @param timeout visibility timeout the messages held in the spill buffer are kept extended to, every third
+         *                of it. Should not exceed the queue's visibility timeout.
+         * @return this builder
+         * @see #setSpillBuffer(java.nio.file.Path, int)
+         */
+        public BuilderImpl setSpilledVisibilityTimeout(final Duration timeout) {
+            this.spilledVisibilityTimeout = timeout;
+            return this;
+        }
+
         @Override
         public BuilderImpl getThis() {
             return this;
@@ -60,20 +104,31 @@ public class SQSMessagePollingPublisher extends AbstractPollingPublisher<Receive
         }
 
         public SQSMessagePollingPublisher build() {
-            SubmissionPublisher<ReceiveMessageResponse> publisher = getPublisher();
+            ItemPublisher<ReceiveMessageResponse> publisher = getItemPublisher();
+            PollingDemand demand = PollingDemand.create(getPollingExecutor());
             return new SQSMessagePollingPublisher(() -> new SQSPoller(sqsAsyncClient
                     .orElseGet(() -> SqsAsyncClient.builder()
                             .asyncConfiguration(getDefaultAsyncConfig())
                             .httpClientBuilder(getLongPollingHttpClientBuilder())
-                            .build()), qName, getMaxPollsPerThread(), pollBatchSize, publisher), Executors
-                    .newCachedThreadPool(), getMaxPollingThreads(), publisher);
+                            .build()), qName, getMinPollsPerThread(), getMaxPollsPerThread(), pollBatchSize,
+                    waitTimeSeconds, publisher, new LinkedBlockingQueue<>(), demand,
+                    newSpillBuffer(new ReceiveMessageResponseSpillCodec(), Optional.of(SQSPoller::receiptHandles)),
+                    spilledVisibilityTimeout),
+                    getPollingExecutor(), getMaxPollingThreads(), publisher, demand, isPartitioned());
         }
     }
 
     static final class SQSPoller extends PollingRunnable<ReceiveMessageResponse> {
+        static final int DEFAULT_WAIT_TIME_SECONDS = 20;
+        static final Duration DEFAULT_SPILLED_VISIBILITY_TIMEOUT = Duration.ofSeconds(30);
+        static final int MAX_OUTSTANDING_EXTENSIONS = 4;
+        private static final int MAX_BATCH_ENTRIES = 10;
         private final String qName;
         private final SqsAsyncClient sqsAsyncClient;
         private final Integer pollBatchSize;
+        private final int waitTimeSeconds;
+        private final Duration spilledVisibilityTimeout;
+        private final AtomicBoolean extending = new AtomicBoolean();
         private volatile String queueURL;
 
         SQSPoller(final SqsAsyncClient client, final String name, final int maxPollsPerThread, final int batchSize,
@@ -84,9 +139,34 @@ public class SQSMessagePollingPublisher extends AbstractPollingPublisher<Receive
         SQSPoller(final SqsAsyncClient client, final String name, final int maxPollsPerThread, final int batchSize,
                   final SubmissionPublisher<ReceiveMessageResponse> pub, final BlockingQueue<ReceiveMessageResponse>
                           queue) {
-            super(maxPollsPerThread, queue, pub);
+            this(client, name, maxPollsPerThread, batchSize, ItemPublisher.of(pub), queue, PollingDemand.unbounded());
+        }
+
+        SQSPoller(final SqsAsyncClient client, final String name, final int maxPollsPerThread, final int batchSize,
+                  final ItemPublisher<ReceiveMessageResponse> pub, final BlockingQueue<ReceiveMessageResponse>
+                          queue, final PollingDemand demand) {
+            this(client, name, maxPollsPerThread, maxPollsPerThread, batchSize, DEFAULT_WAIT_TIME_SECONDS, pub, queue,
+                    demand);
+        }
+
+        SQSPoller(final SqsAsyncClient client, final String name, final int minPollsPerThread,
+                  final int maxPollsPerThread, final int batchSize, final int waitSeconds,
+                  final ItemPublisher<ReceiveMessageResponse> pub, final BlockingQueue<ReceiveMessageResponse>
+                          queue, final PollingDemand demand) {
+            this(client, name, minPollsPerThread, maxPollsPerThread, batchSize, waitSeconds, pub, queue, demand,
+                    Optional.empty(), DEFAULT_SPILLED_VISIBILITY_TIMEOUT);
+        }
+
+        SQSPoller(final SqsAsyncClient client, final String name, final int minPollsPerThread,
+                  final int maxPollsPerThread, final int batchSize, final int waitSeconds,
+                  final ItemPublisher<ReceiveMessageResponse> pub, final BlockingQueue<ReceiveMessageResponse>
+                          queue, final PollingDemand demand, final Optional<SpillBuffer<ReceiveMessageResponse>> spill,
+                  final Duration spilledVisibility) {
+            super(minPollsPerThread, maxPollsPerThread, queue, pub, demand, spill);
             this.sqsAsyncClient = client;
             this.pollBatchSize = batchSize;
+            this.waitTimeSeconds = waitSeconds;
+            this.spilledVisibilityTimeout = spilledVisibility;
             this.qName = name;
         }
 
@@ -100,6 +180,93 @@ public class SQSMessagePollingPublisher extends AbstractPollingPublisher<Receive
             } catch (InterruptedException | ExecutionException e) {
                 throw new RuntimeException(e);
             }
+            getSpillBuffer().ifPresent(spill -> scheduleVisibilityExtension());
+        }
+
+        private void scheduleVisibilityExtension() {
+            if (!isStopped()) {
+                CompletableFuture.delayedExecutor(spilledVisibilityTimeout.toMillis() / 3, TimeUnit.MILLISECONDS)
+                        .execute(() -> {
+                            extendSpilledVisibility();
+                            scheduleVisibilityExtension();
+                        });
+            }
+        }
+
+        /**
+         * @return receipt handles of the messages of the passed response, indexed by the spill buffer.
+         */
+        static List<String> receiptHandles(final ReceiveMessageResponse response) {
+            return response.messages().stream().map(Message::receiptHandle).collect(Collectors.toList());
+        }
+
+        /**
+         * Extends the visibility timeout of the messages currently held in the spill buffer, in batches of
+         * {@link #MAX_BATCH_ENTRIES} with up to {@link #MAX_OUTSTANDING_EXTENSIONS} calls outstanding. Skipped while the
+         * previous extension is still outstanding.
+         */
+        void extendSpilledVisibility() {
+            if (!extending.compareAndSet(false, true)) {
+                LOG.debug("Previous extension of spilled messages visibility outstanding, skipping");
+                return;
+            }
+            List<String> receiptHandles = getSpillBuffer().map(SpillBuffer::getIndexedKeys).orElse(List.of());
+            if (receiptHandles.isEmpty()) {
+                extending.set(false);
+                return;
+            }
+            LOG.debug("Extending visibility of {} spilled messages", receiptHandles.size());
+            int batches = (receiptHandles.size() + MAX_BATCH_ENTRIES - 1) / MAX_BATCH_ENTRIES;
+            int workers = Math.min(batches, MAX_OUTSTANDING_EXTENSIONS);
+            AtomicInteger nextBatch = new AtomicInteger();
+            AtomicInteger activeWorkers = new AtomicInteger(workers);
+            for (int i = 0; i < workers; i++) {
+                extendBatches(receiptHandles, nextBatch, activeWorkers);
+            }
+        }
+
+        /**
+         * Issues the next batch of extensions once the previous one completes, looping over those completing
+         * synchronously rather than recursing.
+         */
+        private void extendBatches(final List<String> receiptHandles, final AtomicInteger nextBatch,
+                                   final AtomicInteger activeWorkers) {
+            int from;
+            while ((from = nextBatch.getAndIncrement() * MAX_BATCH_ENTRIES) < receiptHandles.size()) {
+                CompletableFuture<?> extension = extendBatch(receiptHandles, from);
+                if (!extension.isDone()) {
+                    extension.whenComplete((r, t) -> extendBatches(receiptHandles, nextBatch, activeWorkers));
+                    return;
+                }
+            }
+            if (activeWorkers.decrementAndGet() == 0) {
+                extending.set(false);
+            }
+        }
+
+        private CompletableFuture<?> extendBatch(final List<String> receiptHandles, final int from) {
+            List<ChangeMessageVisibilityBatchRequestEntry> entries = IntStream
+                    .range(from, Math.min(from + MAX_BATCH_ENTRIES, receiptHandles.size()))
+                    .mapToObj(i -> ChangeMessageVisibilityBatchRequestEntry.builder()
+                            .id(String.valueOf(i))
+                            .receiptHandle(receiptHandles.get(i))
+                            .visibilityTimeout((int) spilledVisibilityTimeout.toSeconds())
+                            .build())
+                    .collect(Collectors.toList());
+            try {
+                return sqsAsyncClient.changeMessageVisibilityBatch(ChangeMessageVisibilityBatchRequest.builder()
+                        .queueUrl(queueURL).entries(entries).build())
+                        .whenComplete((r, t) -> {
+                            if (t != null) {
+                                LOG.warn("Failed extending visibility of spilled messages", t);
+                            } else if (r.hasFailed() && !r.failed().isEmpty()) {
+                                LOG.warn("Failed extending visibility of spilled messages {}", r.failed());
+                            }
+                        });
+            } catch (RuntimeException e) {
+                LOG.warn("Failed extending visibility of spilled messages", e);
+                return CompletableFuture.completedFuture(null);
+            }
         }
 
 
@@ -107,11 +274,16 @@ public class SQSMessagePollingPublisher extends AbstractPollingPublisher<Receive
         protected CompletionStage<Optional<ReceiveMessageResponse>> pollImpl() {
             LOG.trace("Polling queue {}", queueURL);
             return sqsAsyncClient
-                    .receiveMessage(ReceiveMessageRequest.builder().waitTimeSeconds(20)
+                    .receiveMessage(ReceiveMessageRequest.builder().waitTimeSeconds(waitTimeSeconds)
                             .maxNumberOfMessages(pollBatchSize)
                             .queueUrl(queueURL).build())
                     .thenApply(response -> response.messages() != null && response.messages().size() > 0 ? Optional
                             .of(response) : Optional.empty());
         }
+
+        @Override
+        protected double fillRatio(final ReceiveMessageResponse polled) {
+            return (double) polled.messages().size() / pollBatchSize;
+        }
     }
 }
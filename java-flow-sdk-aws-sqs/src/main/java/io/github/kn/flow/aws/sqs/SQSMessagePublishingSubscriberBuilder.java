@@ -8,17 +8,17 @@ import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
-import java.util.Collection;
-import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
 
 import io.github.kn.flow.ByteBufferToTextLineCompletionSubscriberAdapter;
 import io.github.kn.flow.CompletionStageItemProcessor;
 import io.github.kn.flow.CompletionSubscriber;
 import io.github.kn.flow.CompletionSubscriberImpl;
+import io.github.kn.flow.ConcurrencyLimit;
 
 /**
  * Builder of {@link CompletionSubscriber} which does the following :-
@@ -26,7 +26,8 @@ import io.github.kn.flow.CompletionSubscriberImpl;
  * <ol>
  * <li> Parse the incoming bytes ({@link List} of {@link ByteBuffer}) as text lines (as per
  * {@link java.net.http.HttpResponse.BodySubscribers#ofLines(Charset)}).
- * <li> Sends each line as an individual SQS messages.
+ * <li> Sends each line as an individual SQS message, batching concurrently processed lines into
+ * {@code SendMessageBatch} calls.
  * </ol>
  *
  * @see ByteBufferToTextLineCompletionSubscriberAdapter
@@ -35,15 +36,30 @@ import io.github.kn.flow.CompletionSubscriberImpl;
 public class SQSMessagePublishingSubscriberBuilder {
 
     public static final String DEFAULT_QUEUE_NAME = "textline-publisher";
+    public static final int DEFAULT_BATCH_SIZE = 10;
+    /**
+     * Maximum number of messages of a {@code SendMessageBatch} call, as per AWS-SQS limits.
+     */
+    public static final int MAX_BATCH_SIZE = 10;
+    public static final Duration DEFAULT_BATCH_LINGER = Duration.ofMillis(10);
+    /**
+     * Maximum total payload of a {@code SendMessageBatch} call, as per AWS-SQS limits.
+     */
+    public static final int MAX_BATCH_BYTES = 256 * 1024;
 
     private volatile Optional<HttpClient> javaClient = Optional.empty();
     private volatile String qName = DEFAULT_QUEUE_NAME;
     private volatile Executor executor = ForkJoinPool.commonPool();
     private int maxConcurrency = CompletionSubscriberImpl.MAX_PROCESSING_CONCURRENCY;
     private int backPressureChunkSize = CompletionSubscriberImpl.BACK_PRESSURE_CHUNK_SIZE;
+    private volatile Optional<ConcurrencyLimit> concurrencyLimit = Optional.empty();
     private volatile String messageSeparator = null;
     private volatile Charset charset = StandardCharsets.UTF_8;
     private volatile SqsAsyncClientBuilder sqsAsyncClientBuilder = SqsAsyncClient.builder();
+    private volatile int batchSize = DEFAULT_BATCH_SIZE;
+    private volatile Duration batchLinger = DEFAULT_BATCH_LINGER;
+    private volatile boolean chunkedLines = false;
+    private volatile int decodeParallelism = 1;
 
 
     public SQSMessagePublishingSubscriberBuilder maxConcurrency(int maxConcurrency) {
@@ -51,6 +67,16 @@ public class SQSMessagePublishingSubscriberBuilder {
         return this;
     }
 
+    /**
+     * @param limit decides the maximum number of concurrently outstanding {@code SendMessageBatch} calls at runtime,
+     *              overriding {@link #maxConcurrency(int)}.
+     * @return this builder
+     */
+    public SQSMessagePublishingSubscriberBuilder concurrencyLimit(final ConcurrencyLimit limit) {
+        this.concurrencyLimit = Optional.of(limit);
+        return this;
+    }
+
     public SQSMessagePublishingSubscriberBuilder backPressureChunkSize(int backPressureChunkSize) {
         this.backPressureChunkSize = backPressureChunkSize;
         return this;
@@ -81,27 +107,124 @@ public class SQSMessagePublishingSubscriberBuilder {
         return this;
     }
 
+    /**
+     * @param size maximum number of lines sent in a single {@code SendMessageBatch} call, from 1 to
+     *             {@link #MAX_BATCH_SIZE}.
+     * @return this builder
+     * @throws IllegalArgumentException if the size is out of range
+     */
+    public SQSMessagePublishingSubscriberBuilder batchSize(final int size) {
+        if (size < 1 || size > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("batchSize must be from 1 to " + MAX_BATCH_SIZE + " :" + size);
+        }
+        this.batchSize = size;
+        return this;
+    }
+
+    /**
+     * @param linger maximum duration a line waits for more lines to fill its {@code SendMessageBatch} call.
+     * @return this builder
+     */
+    public SQSMessagePublishingSubscriberBuilder batchLinger(final Duration linger) {
+        this.batchLinger = linger;
+        return this;
+    }
+
     public SQSMessagePublishingSubscriberBuilder sqsClientBuilder(final SqsAsyncClientBuilder builder) {
         this.sqsAsyncClientBuilder = builder;
         return this;
     }
 
+    /**
+     * @param chunked true to frame the lines into chunks of up to batchSize lines (and {@link #MAX_BATCH_BYTES}),
+     *                each chunk sent as one {@code SendMessageBatch} call, instead of batching concurrently processed
+     *                lines; requires a UTF-8 or single byte charset, and ignores the batch linger. Chunks are framed on
+     *                the receiving thread, so can not be combined with a decode parallelism above 1.
+     * @return this builder
+     */
+    public SQSMessagePublishingSubscriberBuilder chunkedLines(final boolean chunked) {
+        this.chunkedLines = chunked;
+        return this;
+    }
+
+    /**
+     * @param parallelism number of received byte chunks framed and decoded into lines concurrently, on the executor;
+     *                    1 (the default) decodes on the receiving thread. Requires a UTF-8 or single byte charset, and
+     *                    is not supported with chunked lines.
+     * @return this builder
+     */
+    public SQSMessagePublishingSubscriberBuilder decodeParallelism(final int parallelism) {
+        this.decodeParallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * @return the subscriber of bytes publishing their lines as SQS messages
+     * @throws IllegalArgumentException if chunked lines are combined with a decode parallelism above 1
+     */
     public CompletionSubscriber<List<ByteBuffer>> build() {
-        return ByteBufferToTextLineCompletionSubscriberAdapter
-                .adapt(CompletionSubscriberImpl
-                        .wrap(CompletionStageItemProcessor.<String>completedProcessor()
-                                .apply(Collections::singleton)
-                                .apply(Collection::stream)
-                                .compose(new SQSPublishingItemProcessor(sqsAsyncClientBuilder, qName, executor,
-                                        javaClient.orElseGet(() -> HttpClient.newBuilder()
-                                                .version(HttpClient.Version.HTTP_1_1)
-                                                .followRedirects(HttpClient.Redirect.NORMAL)
-                                                .connectTimeout(Duration.ofSeconds(200l))
-                                                .executor(executor)
-                                                .build())))
-                                .apply(r -> r.findFirst()
-                                        .filter(SQSPublishingItemProcessor.ResponseEntry::isSuccess)
-                                        .orElseThrow(IllegalArgumentException::new)
-                                ).apply(r -> null), maxConcurrency, backPressureChunkSize), charset, messageSeparator);
+        if (chunkedLines && decodeParallelism > 1) {
+            throw new IllegalArgumentException("decodeParallelism :" + decodeParallelism
+                    + " not supported with chunkedLines");
+        }
+        CompletionStageItemProcessor<List<String>, List<SQSPublishingItemProcessor.ResponseEntry>> batchProcessor =
+                CompletionStageItemProcessor.<List<String>>completedProcessor()
+                        .apply(List::stream)
+                        .compose(new SQSPublishingItemProcessor(sqsAsyncClientBuilder, qName, executor,
+                                javaClient.orElseGet(() -> HttpClient.newBuilder()
+                                        .version(HttpClient.Version.HTTP_1_1)
+                                        .followRedirects(HttpClient.Redirect.NORMAL)
+                                        .connectTimeout(Duration.ofSeconds(200l))
+                                        .executor(executor)
+                                        .build())))
+                        .apply(r -> r.collect(Collectors.toList()));
+        ConcurrencyLimit limit = concurrencyLimit.orElseGet(() -> ConcurrencyLimit.fixed(maxConcurrency));
+        if (chunkedLines) {
+            return ByteBufferToTextLineCompletionSubscriberAdapter
+                    .adaptChunked(CompletionSubscriberImpl
+                            .wrap(batchProcessor
+                                    .apply(r -> Optional.of(r)
+                                            .filter(e -> e.stream()
+                                                    .allMatch(SQSPublishingItemProcessor.ResponseEntry::isSuccess))
+                                            .orElseThrow(IllegalArgumentException::new)
+                                    ).apply(r -> null), limit, backPressureChunkSize),
+                            charset, messageSeparator, batchSize, MAX_BATCH_BYTES);
+        }
+        CompletionSubscriber<String> lineSubscriber = CompletionSubscriberImpl
+                .wrap(batchingLines(batchProcessor)
+                        .apply(r -> Optional.ofNullable(r)
+                                .filter(SQSPublishingItemProcessor.ResponseEntry::isSuccess)
+                                .orElseThrow(IllegalArgumentException::new)
+                        ).apply(r -> null), limit, backPressureChunkSize);
+        if (decodeParallelism > 1) {
+            return ByteBufferToTextLineCompletionSubscriberAdapter
+                    .adaptParallel(lineSubscriber, charset, messageSeparator, executor, decodeParallelism);
+        }
+        return ByteBufferToTextLineCompletionSubscriberAdapter.adapt(lineSubscriber, charset, messageSeparator);
+    }
+
+    /**
+     * @return processor of lines batching them into calls of the passed batch processor, of up to batchSize lines and
+     * {@link #MAX_BATCH_BYTES} bytes.
+     */
+    CompletionStageItemProcessor<String, SQSPublishingItemProcessor.ResponseEntry> batchingLines(
+            final CompletionStageItemProcessor<List<String>, List<SQSPublishingItemProcessor.ResponseEntry>>
+                    batchProcessor) {
+        return CompletionStageItemProcessor.batching(batchSize, MAX_BATCH_BYTES,
+                SQSMessagePublishingSubscriberBuilder::messageBytes, batchLinger, batchProcessor);
+    }
+
+    /**
+     * @return number of bytes of the passed line encoded in UTF-8, as sent to AWS-SQS.
+     */
+    static int messageBytes(final String line) {
+        int bytes = line.length();
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c >= 0x80) {
+                bytes += c < 0x800 || Character.isSurrogate(c) ? 1 : 2;
+            }
+        }
+        return bytes;
     }
 }
@@ -102,7 +102,9 @@ public class SQSPublishingItemProcessor implements CompletionStageItemProcessor<
         response.successful().stream()
                 .map(e -> Map.entry(e.id(), (ResponseEntry) new SuccessResponse(e))).forEach(responseList::add);
         LOG.debug("SendMessageBatchResponse for queue :{} is :{}", queueName, responseList);
-        return responseList.stream().sorted(Comparator.comparing(Map.Entry::getKey)).map(Map.Entry::getValue);
+        // entry ids are the indexes of the items, in the order of which the results are mapped back to the items
+        return responseList.stream().sorted(Comparator.comparingInt(e -> Integer.parseInt(e.getKey())))
+                .map(Map.Entry::getValue);
     }
 
     @Override
@@ -3,7 +3,9 @@ package io.github.kn.flow.aws.sqs;
 import software.amazon.awssdk.services.sqs.SqsAsyncClient;
 import software.amazon.awssdk.services.sqs.model.*;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
@@ -28,6 +30,11 @@ public class MockSQSAsyncClient implements SqsAsyncClient {
     private SendMessageBatchRequest sendMessageBatchArg;
     private CompletableFuture<ReceiveMessageResponse> receiveMessageResponse;
     private ReceiveMessageRequest receiveMessageRequestArg;
+    private ChangeMessageVisibilityBatchRequest changeMessageVisibilityBatchArg;
+    private final List<ChangeMessageVisibilityBatchRequest> changeMessageVisibilityBatchArgs = new ArrayList<>();
+    private final List<CompletableFuture<ChangeMessageVisibilityBatchResponse>> changeMessageVisibilityBatchResponses =
+            new ArrayList<>();
+    private boolean deferChangeMessageVisibilityBatch;
 
     public MockSQSAsyncClient setBatchCallException(Exception batchCallException) {
         this.batchCallException = Optional.of(batchCallException);
@@ -43,6 +50,23 @@ public class MockSQSAsyncClient implements SqsAsyncClient {
         return receiveMessageRequestArg;
     }
 
+    public ChangeMessageVisibilityBatchRequest getChangeMessageVisibilityBatchArg() {
+        return changeMessageVisibilityBatchArg;
+    }
+
+    public List<ChangeMessageVisibilityBatchRequest> getChangeMessageVisibilityBatchArgs() {
+        return changeMessageVisibilityBatchArgs;
+    }
+
+    public List<CompletableFuture<ChangeMessageVisibilityBatchResponse>> getChangeMessageVisibilityBatchResponses() {
+        return changeMessageVisibilityBatchResponses;
+    }
+
+    public MockSQSAsyncClient setDeferChangeMessageVisibilityBatch(boolean defer) {
+        this.deferChangeMessageVisibilityBatch = defer;
+        return this;
+    }
+
     public SendMessageBatchRequest getSendMessageBatchArg() {
         return sendMessageBatchArg;
     }
@@ -154,4 +178,16 @@ public class MockSQSAsyncClient implements SqsAsyncClient {
                                 .collect(Collectors.toList()))
                         .build()));
     }
-}
\ No newline at end of file
+
+    @Override
+    public CompletableFuture<ChangeMessageVisibilityBatchResponse> changeMessageVisibilityBatch(
+            ChangeMessageVisibilityBatchRequest changeMessageVisibilityBatchRequest) {
+        this.changeMessageVisibilityBatchArg = changeMessageVisibilityBatchRequest;
+        this.changeMessageVisibilityBatchArgs.add(changeMessageVisibilityBatchRequest);
+        CompletableFuture<ChangeMessageVisibilityBatchResponse> response = deferChangeMessageVisibilityBatch
+                ? new CompletableFuture<>()
+                : CompletableFuture.completedFuture(ChangeMessageVisibilityBatchResponse.builder().build());
+        this.changeMessageVisibilityBatchResponses.add(response);
+        return response;
+    }
+}
@@ -1,18 +1,32 @@
 package io.github.kn.flow.aws.sqs;
 
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import io.github.kn.flow.AbstractPollingPublisher;
+import io.github.kn.flow.ItemPublisher;
+import io.github.kn.flow.SpillBuffer;
 import io.github.kn.flow.util.MockCompletionSubscriber;
 import io.github.kn.flow.util.MockRunnable;
 import io.github.kn.flow.util.MockSubmissionPublisher;
 import io.github.kn.flow.util.MockSubscription;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchResponse;
 import software.amazon.awssdk.services.sqs.model.GetQueueUrlResponse;
 import software.amazon.awssdk.services.sqs.model.Message;
+import software.amazon.awssdk.services.sqs.model.MessageAttributeValue;
 import software.amazon.awssdk.services.sqs.model.ReceiveMessageResponse;
 
 /**
@@ -112,6 +126,145 @@ class SQSMessagePollingPublisherTest {
         Assertions.assertEquals(2, mockSubscriber.getItemsList().size());
     }
 
+    @Test
+    void pollerChainsNextPollOffCompletion() {
+        CompletableFuture<ReceiveMessageResponse> outstanding = new CompletableFuture<>();
+        mockSQSAsyncClient.setReceiveMessageResponse(outstanding);
+        poller.run();
+        Assertions.assertEquals(0, mockSubscriber.getItemsList().size());
+        mockSQSAsyncClient.setReceiveMessageResponse(CompletableFuture.completedFuture(receivedMessages));
+        outstanding.complete(receivedMessages);
+        Assertions.assertEquals(1, mockSubscriber.getItemsList().size());
+        Assertions.assertTrue(poller.isStopped());
+    }
+
+    @Test
+    void pollerBacksOffOnPollFailure() {
+        mockSQSAsyncClient.setReceiveMessageResponse(CompletableFuture.failedFuture(new RuntimeException()));
+        poller.run();
+        Assertions.assertEquals(0, mockSubscriber.getItemsList().size());
+        Assertions.assertFalse(poller.isStopped());
+        poller.stop();
+        Assertions.assertTrue(poller.isStopped());
+    }
+
+    @Test
+    void pollerPollsOnlyForRequestedItems() {
+        AbstractPollingPublisher.PollingDemand demand = AbstractPollingPublisher.PollingDemand.create(r -> r.run());
+        new SQSMessagePollingPublisher.SQSPoller(mockSQSAsyncClient, "testArn", 1, 1,
+                ItemPublisher.of(mockPublisherDelegate), new LinkedBlockingQueue<>(), demand).run();
+        Assertions.assertNull(mockSQSAsyncClient.getReceiveMessageRequestArg());
+        demand.add(1);
+        Assertions.assertNotNull(mockSQSAsyncClient.getReceiveMessageRequestArg());
+        Assertions.assertEquals(1, mockSubscriber.getItemsList().size());
+        Assertions.assertEquals(0, demand.getAvailable());
+    }
+
+    @Test
+    void parkedPollerResumedOnPollingExecutor() {
+        Queue<Runnable> pollingTasks = new ArrayDeque<>();
+        AbstractPollingPublisher.PollingDemand demand = AbstractPollingPublisher.PollingDemand
+                .create(pollingTasks::add);
+        new SQSMessagePollingPublisher.SQSPoller(mockSQSAsyncClient, "testArn", 1, 1,
+                ItemPublisher.of(mockPublisherDelegate), new LinkedBlockingQueue<>(), demand).run();
+        demand.add(1);
+        Assertions.assertNull(mockSQSAsyncClient.getReceiveMessageRequestArg());
+        Assertions.assertEquals(1, pollingTasks.size());
+        pollingTasks.poll().run();
+        Assertions.assertNotNull(mockSQSAsyncClient.getReceiveMessageRequestArg());
+        Assertions.assertEquals(1, mockSubscriber.getItemsList().size());
+    }
+
+    @Test
+    void pollerGrowsConcurrentPollsOnFullPolls() {
+        mockPublisherDelegate.setMaxRunCount(3);
+        SQSMessagePollingPublisher.SQSPoller adaptivePoller = new SQSMessagePollingPublisher.SQSPoller(
+                mockSQSAsyncClient, "testArn", 1, 2, 1, 1, ItemPublisher.of(mockPublisherDelegate),
+                new LinkedBlockingQueue<>(), AbstractPollingPublisher.PollingDemand.unbounded());
+        adaptivePoller.run();
+        Assertions.assertEquals(2, adaptivePoller.getTargetConcurrentPolls());
+        Assertions.assertEquals(3, mockSubscriber.getItemsList().size());
+        Assertions.assertEquals(1, mockSQSAsyncClient.getReceiveMessageRequestArg().waitTimeSeconds());
+    }
+
+    @Test
+    void pollerExtendsVisibilityOfSpilledMessages() throws Exception {
+        try (SpillBuffer<ReceiveMessageResponse> spill = indexedSpillBuffer(0)) {
+            SQSMessagePollingPublisher.SQSPoller spillingPoller = new SQSMessagePollingPublisher.SQSPoller(
+                    mockSQSAsyncClient, "testArn", 1, 1, 1, 1, ItemPublisher.of(mockPublisherDelegate),
+                    new LinkedBlockingQueue<>(), AbstractPollingPublisher.PollingDemand.unbounded(), Optional.of(spill),
+                    Duration.ofSeconds(60));
+            spill.add(receivedMessages);
+            spillingPoller.extendSpilledVisibility();
+            Assertions.assertEquals("1", mockSQSAsyncClient.getChangeMessageVisibilityBatchArg().entries().get(0)
+                    .receiptHandle());
+            Assertions.assertEquals(60, mockSQSAsyncClient.getChangeMessageVisibilityBatchArg().entries().get(0)
+                    .visibilityTimeout());
+        }
+    }
+
+    @Test
+    void pollerBoundsOutstandingVisibilityExtensions() throws Exception {
+        mockSQSAsyncClient.setDeferChangeMessageVisibilityBatch(true);
+        try (SpillBuffer<ReceiveMessageResponse> spill = indexedSpillBuffer(0)) {
+            SQSMessagePollingPublisher.SQSPoller spillingPoller = new SQSMessagePollingPublisher.SQSPoller(
+                    mockSQSAsyncClient, "testArn", 1, 1, 1, 1, ItemPublisher.of(mockPublisherDelegate),
+                    new LinkedBlockingQueue<>(), AbstractPollingPublisher.PollingDemand.unbounded(), Optional.of(spill),
+                    Duration.ofSeconds(60));
+            IntStream.range(0, 100).forEach(i -> spill.add(ReceiveMessageResponse.builder()
+                    .messages(Message.builder().receiptHandle("handle" + i).body("testMessage").build()).build()));
+            spillingPoller.extendSpilledVisibility();
+            Assertions.assertEquals(SQSMessagePollingPublisher.SQSPoller.MAX_OUTSTANDING_EXTENSIONS,
+                    mockSQSAsyncClient.getChangeMessageVisibilityBatchArgs().size());
+            spillingPoller.extendSpilledVisibility();
+            Assertions.assertEquals(SQSMessagePollingPublisher.SQSPoller.MAX_OUTSTANDING_EXTENSIONS,
+                    mockSQSAsyncClient.getChangeMessageVisibilityBatchArgs().size());
+            for (int i = 0; i < mockSQSAsyncClient.getChangeMessageVisibilityBatchResponses().size(); i++) {
+                mockSQSAsyncClient.getChangeMessageVisibilityBatchResponses().get(i)
+                        .complete(ChangeMessageVisibilityBatchResponse.builder().build());
+            }
+            Assertions.assertEquals(10, mockSQSAsyncClient.getChangeMessageVisibilityBatchArgs().size());
+            Assertions.assertEquals(IntStream.range(0, 100).mapToObj(i -> "handle" + i).collect(Collectors.toSet()),
+                    mockSQSAsyncClient.getChangeMessageVisibilityBatchArgs().stream()
+                            .flatMap(r -> r.entries().stream())
+                            .map(ChangeMessageVisibilityBatchRequestEntry::receiptHandle)
+                            .collect(Collectors.toSet()));
+        }
+    }
+
+    @Test
+    void pollerPollsAheadOfDemandUpToSpillCapacity() throws Exception {
+        mockPublisherDelegate.setMaxRunCount(100);
+        AbstractPollingPublisher.PollingDemand demand = AbstractPollingPublisher.PollingDemand.create(r -> r.run());
+        try (SpillBuffer<ReceiveMessageResponse> spill = indexedSpillBuffer(3)) {
+            SQSMessagePollingPublisher.SQSPoller spillingPoller = new SQSMessagePollingPublisher.SQSPoller(
+                    mockSQSAsyncClient, "testArn", 1, 1, 1, 1, ItemPublisher.of(mockPublisherDelegate),
+                    new LinkedBlockingQueue<>(), demand, Optional.of(spill), Duration.ofSeconds(60));
+            spillingPoller.run();
+            Assertions.assertEquals(3, spill.size());
+            Assertions.assertEquals(0, mockSubscriber.getItemsList().size());
+            demand.add(2);
+            Assertions.assertEquals(2, mockSubscriber.getItemsList().size());
+            Assertions.assertEquals(3, spill.size());
+            spillingPoller.stop();
+        }
+    }
+
+    private static SpillBuffer<ReceiveMessageResponse> indexedSpillBuffer(final long capacity) throws Exception {
+        return new SpillBuffer<>(Files.createTempDirectory("spill"), 1, SpillBuffer.DEFAULT_SEGMENT_SIZE, capacity,
+                new ReceiveMessageResponseSpillCodec(), Optional.of(SQSMessagePollingPublisher.SQSPoller::receiptHandles));
+    }
+
+    @Test
+    void spillCodecRoundTrip() {
+        ReceiveMessageResponse response = ReceiveMessageResponse.builder().messages(Message.builder()
+                .messageId("id").receiptHandle("1").body("testMessage").attributesWithStrings(Map.of("SentTimestamp",
+                        "1")).messageAttributes(Map.of("attr", MessageAttributeValue.builder().dataType("String")
+                        .stringValue("value").build())).build()).build();
+        ReceiveMessageResponseSpillCodec codec = new ReceiveMessageResponseSpillCodec();
+        Assertions.assertEquals(response.messages(), codec.decode(codec.encode(response)).messages());
+    }
+
     @Test
     void withNullTask() {
         LinkedBlockingQueue<ReceiveMessageResponse> submittedTasks = new LinkedBlockingQueue<>();
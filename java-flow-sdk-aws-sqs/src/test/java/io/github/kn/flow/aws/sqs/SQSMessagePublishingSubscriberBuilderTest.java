@@ -1,10 +1,18 @@
 package io.github.kn.flow.aws.sqs;
 
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import io.github.kn.flow.CompletionStageItemProcessor;
 import io.github.kn.flow.util.MockHttpClient;
 import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
 import software.amazon.awssdk.core.client.builder.SdkDefaultClientBuilder;
@@ -26,6 +34,65 @@ class SQSMessagePublishingSubscriberBuilderTest {
                 .executor((r) -> r.run()).build());
     }
 
+    @Test
+    public void testBuildChunked() {
+        Assertions.assertNotNull(new SQSMessagePublishingSubscriberBuilder()
+                .sqsClientBuilder(new MockSqsAsyncClientBuilder()).client(new MockHttpClient()).chunkedLines(true)
+                .batchSize(5).queueName("testQueueName").build());
+    }
+
+    @Test
+    public void testLargeLinesBatchedWithinMaxBatchBytes() throws Exception {
+        List<List<String>> batches = new CopyOnWriteArrayList<>();
+        CompletionStageItemProcessor<String, SQSPublishingItemProcessor.ResponseEntry> processor =
+                new SQSMessagePublishingSubscriberBuilder().batchLinger(Duration.ofMillis(1))
+                        .batchingLines(batch -> {
+                            batches.add(batch);
+                            return CompletableFuture.completedStage(batch.stream()
+                                    .map(line -> (SQSPublishingItemProcessor.ResponseEntry) () -> "ok")
+                                    .collect(Collectors.toList()));
+                        });
+        String line = "x".repeat(30 * 1024);
+        List<CompletableFuture<SQSPublishingItemProcessor.ResponseEntry>> results = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            results.add(processor.onNext(line).toCompletableFuture());
+        }
+        CompletableFuture.allOf(results.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+        Assertions.assertEquals(10, batches.stream().mapToInt(List::size).sum());
+        Assertions.assertEquals(2, batches.size());
+        batches.forEach(batch -> Assertions.assertTrue(batch.stream()
+                .mapToInt(SQSMessagePublishingSubscriberBuilder::messageBytes).sum()
+                <= SQSMessagePublishingSubscriberBuilder.MAX_BATCH_BYTES));
+    }
+
+    @Test
+    public void testMessageBytesOfUtf8() {
+        Assertions.assertEquals("a\u00e9\u20ac\ud83d\ude00".getBytes(StandardCharsets.UTF_8).length,
+                SQSMessagePublishingSubscriberBuilder.messageBytes("a\u00e9\u20ac\ud83d\ude00"));
+    }
+
+    @Test
+    public void testChunkedParallelDecodingRejected() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new SQSMessagePublishingSubscriberBuilder()
+                .sqsClientBuilder(new MockSqsAsyncClientBuilder()).client(new MockHttpClient()).chunkedLines(true)
+                .decodeParallelism(4).queueName("testQueueName").build());
+    }
+
+    @Test
+    public void testBatchSizeOutOfRange() {
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new SQSMessagePublishingSubscriberBuilder().batchSize(0));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new SQSMessagePublishingSubscriberBuilder()
+                .batchSize(SQSMessagePublishingSubscriberBuilder.MAX_BATCH_SIZE + 1));
+    }
+
+    @Test
+    public void testBuildParallelDecoding() {
+        Assertions.assertNotNull(new SQSMessagePublishingSubscriberBuilder()
+                .sqsClientBuilder(new MockSqsAsyncClientBuilder()).client(new MockHttpClient()).decodeParallelism(4)
+                .queueName("testQueueName").build());
+    }
+
     @Test
     public void testBuildWithDefaults() {
         Assertions.assertNotNull(new SQSMessagePublishingSubscriberBuilder()
@@ -136,4 +136,15 @@ class SQSPublishingItemProcessorTest {
                         "(Id=2), SendMessageBatchResultEntry(Id=3)]", invokeOnNext(List
                         .of("","", "", "")).toCompletableFuture().get().collect(Collectors.toList()).toString());
     }
-}
\ No newline at end of file
+
+    @Test
+    void responsesInOrderOfNumericIds() throws Exception {
+        mockClientDelegate.addBatchResponseError(BatchResultErrorEntry.builder().id("2").build());
+        List<SQSPublishingItemProcessor.ResponseEntry> response = invokeOnNext(List
+                .of("", "", "", "", "", "", "", "", "", "", "")).toCompletableFuture().get()
+                .collect(Collectors.toList());
+        Assertions.assertEquals(11, response.size());
+        Assertions.assertFalse(response.get(2).isSuccess());
+        Assertions.assertEquals("SendMessageBatchResultEntry(Id=10)", response.get(10).message());
+    }
+}
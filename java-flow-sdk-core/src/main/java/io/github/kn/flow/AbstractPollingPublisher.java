@@ -6,10 +6,17 @@ import software.amazon.awssdk.core.client.config.ClientAsyncConfiguration;
 import software.amazon.awssdk.core.client.config.SdkAdvancedAsyncClientOption;
 import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
 
+import java.nio.file.Path;
 import java.time.Duration;
+import java.util.Collection;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Queue;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.IntStream;
 
@@ -17,7 +24,13 @@ import java.util.stream.IntStream;
  * A bunch of abstract classes to allow polling for elements of type T from respective source
  * repositories. The polled items are published using Java native {@link Flow} API framework.
  *
- * <p> Leverages Flow API back-pressure to moderate polling calls to source repository.
+ * <p> By default every subscription starts its own pollers, all publishing every polled item to every subscriber.
+ * In partitioned mode the pollers are started once, and the subscribers split the polled items among themselves
+ * like a consumer group, see {@link WorkSharingPublisher}.
+ *
+ * <p> Leverages Flow API back-pressure to moderate polling calls to source repository: the items requested by
+ * subscribers are tracked as {@link PollingDemand}, and pollers only issue polls covering the outstanding demand
+ * (given a {@link SpillBuffer}, ahead of it up to the buffer's capacity).
  * Allows for configuring basic polling parameters like number of polling threads,
  * maximum buffer capacity to buffer items before they are consumed.
  *
@@ -25,38 +38,305 @@ import java.util.stream.IntStream;
  * @see java.util.concurrent.Flow.Publisher
  * @see java.util.concurrent.Flow.Subscriber
  */
-public abstract class AbstractPollingPublisher<T> implements Flow.Publisher<T> {
+public abstract class AbstractPollingPublisher<T> implements Flow.Publisher<T>, AutoCloseable {
     private static final Logger LOG = LogManager.getLogger("AbstractPollingPublisher");
     private final Executor pollingExecutor;
     private final int maximumPollingThreads;
     private final Supplier<Runnable> taskRunnableSupplier;
     private final Flow.Publisher<T> publisherDelegate;
+    private final PollingDemand pollingDemand;
+    private final boolean partitioned;
+    private final AtomicBoolean pollersStarted = new AtomicBoolean(false);
+    private final Queue<Runnable> pollers = new ConcurrentLinkedQueue<>();
 
     protected AbstractPollingPublisher(final Supplier<Runnable> runnableSupplier,
                                        final Executor pollExec,
                                        final int maxPollingThreads,
                                        final Flow.Publisher<T> publisher) {
+        this(runnableSupplier, pollExec, maxPollingThreads, publisher, PollingDemand.unbounded());
+    }
+
+    /**
+     * @param demand demand of the subscribers, shared with the pollers supplied by runnableSupplier.
+     */
+    protected AbstractPollingPublisher(final Supplier<Runnable> runnableSupplier,
+                                       final Executor pollExec,
+                                       final int maxPollingThreads,
+                                       final Flow.Publisher<T> publisher,
+                                       final PollingDemand demand) {
+        this(runnableSupplier, pollExec, maxPollingThreads, publisher, demand, false);
+    }
+
+    /**
+     * @param demand          demand of the subscribers, shared with the pollers supplied by runnableSupplier.
+     * @param partitionedMode true if the pollers are started by the first subscription only, the publisher splitting
+     *                        the polled items among the subscribers.
+     */
+    protected AbstractPollingPublisher(final Supplier<Runnable> runnableSupplier,
+                                       final Executor pollExec,
+                                       final int maxPollingThreads,
+                                       final Flow.Publisher<T> publisher,
+                                       final PollingDemand demand,
+                                       final boolean partitionedMode) {
+        this.partitioned = partitionedMode;
         this.taskRunnableSupplier = runnableSupplier;
         this.maximumPollingThreads = maxPollingThreads;
         this.pollingExecutor = pollExec;
         this.publisherDelegate = publisher;
+        this.pollingDemand = demand;
     }
 
 
     @Override
     public void subscribe(final Flow.Subscriber<? super T> subscriber) {
-        publisherDelegate.subscribe(subscriber);
-        IntStream.range(0, maximumPollingThreads)
-                .forEach(i -> pollingExecutor
-                        .execute(this.taskRunnableSupplier.get()));
+        publisherDelegate.subscribe(new DemandTrackingSubscriber<>(subscriber, pollingDemand));
+        if (!partitioned || pollersStarted.compareAndSet(false, true)) {
+            IntStream.range(0, maximumPollingThreads).forEach(i -> {
+                Runnable poller = this.taskRunnableSupplier.get();
+                pollers.add(poller);
+                pollingExecutor.execute(poller);
+            });
+        }
         LOG.info(" {} subscribed successfully {}", subscriber);
     }
 
+    /**
+     * Stops the {@link PollingRunnable} pollers started so far, closing their spill buffers.
+     */
+    @Override
+    public void close() {
+        Runnable poller;
+        while ((poller = pollers.poll()) != null) {
+            if (poller instanceof PollingRunnable) {
+                ((PollingRunnable<?>) poller).stop();
+            }
+        }
+    }
+
+
+    /**
+     * Forwards to the wrapped subscriber, adding the items it requests to the polling demand, and subtracting those it
+     * is yet to receive once it cancels (or fails), so that nothing is polled on behalf of a gone subscriber.
+     */
+    private static final class DemandTrackingSubscriber<T> implements Flow.Subscriber<T> {
+        private final Flow.Subscriber<? super T> subscriber;
+        private final PollingDemand demand;
+        private final AtomicLong outstanding = new AtomicLong();
+
+        private DemandTrackingSubscriber(final Flow.Subscriber<? super T> delegate, final PollingDemand pollingDemand) {
+            this.subscriber = delegate;
+            this.demand = pollingDemand;
+        }
+
+        @Override
+        public void onSubscribe(final Flow.Subscription subscription) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(final long n) {
+                    if (n > 0) {
+                        outstanding.accumulateAndGet(n, (a, b) -> a + b < 0 ? Long.MAX_VALUE : a + b);
+                    }
+                    subscription.request(n);
+                    demand.add(n);
+                }
+
+                @Override
+                public void cancel() {
+                    subscription.cancel();
+                    demand.subtract(outstanding.getAndSet(0));
+                }
+            });
+        }
+
+        @Override
+        public void onNext(final T item) {
+            outstanding.getAndUpdate(n -> n == Long.MAX_VALUE || n == 0 ? n : n - 1);
+            subscriber.onNext(item);
+        }
+
+        @Override
+        public void onError(final Throwable throwable) {
+            demand.subtract(outstanding.getAndSet(0));
+            subscriber.onError(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            subscriber.onComplete();
+        }
+
+        @Override
+        public String toString() {
+            return subscriber.toString();
+        }
+    }
+
+    /**
+     * The number of items requested by subscribers which are yet to be covered by issued polls.
+     * <br>
+     * Every poll reserves one unit of demand before it is issued, returning it if the poll yields no item. Pollers
+     * finding no demand park until subscribers request more items, so nothing is polled (and left to expire in
+     * memory, e.g. SQS message visibility timeouts) ahead of demand. Parked pollers are resumed on the polling
+     * executor, rather than on the subscriber's thread requesting the items.
+     * <br>
+     * Pollers buffering their items in a {@link SpillBuffer} may poll ahead of demand, so the items they publish are
+     * bounded by the requested items too: every published item takes a unit of the requested items not yet published,
+     * the pollers being notified (on the polling executor) of every request.
+     */
+    public static final class PollingDemand {
+        private final boolean unbounded;
+        private final Executor resumeExecutor;
+        private final AtomicLong available = new AtomicLong();
+        private final AtomicLong unpublished = new AtomicLong();
+        private final Queue<Runnable> parked = new ConcurrentLinkedQueue<>();
+        private final Queue<Runnable> requestListeners = new ConcurrentLinkedQueue<>();
+
+        private PollingDemand(final boolean isUnbounded, final Executor executor) {
+            this.unbounded = isUnbounded;
+            this.resumeExecutor = Objects.requireNonNull(executor);
+        }
+
+        /**
+         * @return demand initially zero, increased by the items requested by subscribers, resuming parked pollers on
+         * the common pool.
+         */
+        public static PollingDemand create() {
+            return create(ForkJoinPool.commonPool());
+        }
+
+        /**
+         * @param pollingExecutor executor resuming parked pollers
+         * @return demand initially zero, increased by the items requested by subscribers.
+         */
+        public static PollingDemand create(final Executor pollingExecutor) {
+            return new PollingDemand(false, pollingExecutor);
+        }
+
+        /**
+         * @return demand never restricting polls.
+         */
+        public static PollingDemand unbounded() {
+            return new PollingDemand(true, ForkJoinPool.commonPool());
+        }
+
+        /**
+         * Adds the passed number of requested items, resuming parked pollers.
+         */
+        public void add(final long n) {
+            if (!unbounded && n > 0) {
+                unpublished.accumulateAndGet(n, (a, b) -> a + b < 0 ? Long.MAX_VALUE : a + b);
+                addAvailable(n);
+                requestListeners.forEach(resumeExecutor::execute);
+            }
+        }
+
+        private void addAvailable(final long n) {
+            available.accumulateAndGet(n, (a, b) -> a + b < 0 ? Long.MAX_VALUE : a + b);
+            resumeParked();
+        }
+
+        /**
+         * Subtracts the passed number of requested items no longer to be delivered, e.g. those of a cancelled
+         * subscriber, as far as they are not yet covered by issued polls (or published).
+         */
+        public void subtract(final long n) {
+            if (!unbounded && n > 0) {
+                available.accumulateAndGet(n, (a, b) -> Math.max(0, a - b));
+                unpublished.accumulateAndGet(n, (a, b) -> Math.max(0, a - b));
+            }
+        }
+
+        /**
+         * @return true if a unit of demand was reserved for a poll.
+         */
+        public boolean tryAcquire() {
+            if (unbounded) {
+                return true;
+            }
+            long current;
+            do {
+                current = available.get();
+                if (current <= 0) {
+                    return false;
+                }
+            } while (!available.compareAndSet(current, current - 1));
+            return true;
+        }
+
+        /**
+         * Returns a unit of demand reserved by a poll which yielded no item.
+         */
+        public void release() {
+            if (!unbounded) {
+                addAvailable(1);
+            }
+        }
+
+        /**
+         * @return true if a unit of the requested items not yet published was reserved for publishing an item.
+         */
+        public boolean tryAcquirePublish() {
+            if (unbounded) {
+                return true;
+            }
+            long current;
+            do {
+                current = unpublished.get();
+                if (current <= 0) {
+                    return false;
+                }
+            } while (!unpublished.compareAndSet(current, current - 1));
+            return true;
+        }
+
+        /**
+         * Returns a unit of the requested items reserved for publishing an item, which there was none of.
+         */
+        public void releasePublish() {
+            if (!unbounded) {
+                unpublished.incrementAndGet();
+            }
+        }
+
+        /**
+         * Runs the passed listener on the polling executor whenever subscribers request more items.
+         */
+        public void onRequested(final Runnable listener) {
+            requestListeners.add(listener);
+        }
+
+        /**
+         * Runs the passed poller continuation on the polling executor once demand is available, right away if it
+         * already is.
+         */
+        public void onAvailable(final Runnable continuation) {
+            parked.add(continuation);
+            resumeParked();
+        }
+
+        public long getAvailable() {
+            return unbounded ? Long.MAX_VALUE : available.get();
+        }
+
+        private void resumeParked() {
+            Runnable continuation;
+            while (available.get() > 0 && (continuation = parked.poll()) != null) {
+                resumeExecutor.execute(continuation);
+            }
+        }
+    }
 
     public abstract static class Builder<T extends Builder<T>> {
         private volatile int maxPollsPerThread = 100;
+        private volatile Optional<Integer> minPollsPerThread = Optional.empty();
         private volatile int maxPollingThreads = 1;
         private volatile int bufferCapacity = 256;
+        private volatile Executor pollingExecutor = ForkJoinPool.commonPool();
+        private volatile Optional<RingBufferPublisher.WaitStrategy> ringBufferWaitStrategy = Optional.empty();
+        private volatile boolean partitioned = false;
+        private volatile Optional<Path> spillDirectory = Optional.empty();
+        private volatile int spillMemoryThreshold;
+        private volatile long spillCapacity;
 
         protected int getMaxPollsPerThread() {
             return maxPollsPerThread;
@@ -67,6 +347,25 @@ public abstract class AbstractPollingPublisher<T> implements Flow.Publisher<T> {
             return getThis();
         }
 
+        /**
+         * @return minimum number of concurrent polls per polling thread, maxPollsPerThread unless set.
+         */
+        protected int getMinPollsPerThread() {
+            return minPollsPerThread.orElse(maxPollsPerThread);
+        }
+
+        /**
+         * Adapts the concurrent polls per polling thread between the passed minimum and maxPollsPerThread, as per
+         * how full the polls come back.
+         *
+         * @param minPollsPerThread minimum number of concurrent polls per polling thread
+         * @return this builder
+         */
+        public T setMinPollsPerThread(final int minPollsPerThread) {
+            this.minPollsPerThread = Optional.of(minPollsPerThread);
+            return getThis();
+        }
+
         protected int getMaxPollingThreads() {
             return maxPollingThreads;
         }
@@ -76,11 +375,111 @@ public abstract class AbstractPollingPublisher<T> implements Flow.Publisher<T> {
             return getThis();
         }
 
+        protected Executor getPollingExecutor() {
+            return pollingExecutor;
+        }
+
+        /**
+         * @param executor starts the pollers; polls are chained off completions, so no thread is held per poller.
+         * @return this builder
+         */
+        public T setPollingExecutor(final Executor executor) {
+            this.pollingExecutor = executor;
+            return getThis();
+        }
+
         protected <S> SubmissionPublisher<S> getPublisher() {
             return new SubmissionPublisher<>(ForkJoinPool
                     .commonPool(), bufferCapacity);
         }
 
+        /**
+         * Publishes polled items via a {@link RingBufferPublisher} of the buffer capacity, instead of a
+         * {@link SubmissionPublisher}.
+         *
+         * @param waitStrategy how pollers wait for a full ring buffer to be consumed
+         * @return this builder
+         */
+        public T setRingBufferPublisher(final RingBufferPublisher.WaitStrategy waitStrategy) {
+            this.ringBufferWaitStrategy = Optional.of(waitStrategy);
+            return getThis();
+        }
+
+        /**
+         * @param isPartitioned true for the subscribers to split the polled items among themselves, sharing one set of
+         *                      pollers sized to their total demand, rather than each receiving every polled item.
+         *                      Takes precedence over {@link #setRingBufferPublisher(RingBufferPublisher.WaitStrategy)}.
+         * @return this builder
+         */
+        public T setPartitioned(final boolean isPartitioned) {
+            this.partitioned = isPartitioned;
+            return getThis();
+        }
+
+        protected boolean isPartitioned() {
+            return partitioned;
+        }
+
+        /**
+         * Same as {@link #setSpillBuffer(Path, int, long)}, polling ahead of demand up to the memory threshold only.
+         *
+         * @param directory       directory to spill to
+         * @param memoryThreshold maximum number of polled items per poller held on heap
+         * @return this builder
+         */
+        public T setSpillBuffer(final Path directory, final int memoryThreshold) {
+            return setSpillBuffer(directory, memoryThreshold, memoryThreshold);
+        }
+
+        /**
+         * Buffers the polled items a poller cannot yet publish in a {@link SpillBuffer}, holding up to the passed
+         * memory threshold of items on heap and spilling the rest to the passed directory, rather than on heap only.
+         * <br>
+         * Pollers keep polling ahead of the subscribers' demand while their spill buffer holds fewer items than the
+         * passed capacity, so that bursts are absorbed on disk rather than left on the source.
+         *
+         * @param directory       directory to spill to
+         * @param memoryThreshold maximum number of polled items per poller held on heap
+         * @param capacity        number of polled items per poller buffered, beyond which polls only cover demand
+         * @return this builder
+         */
+        public T setSpillBuffer(final Path directory, final int memoryThreshold, final long capacity) {
+            this.spillDirectory = Optional.of(directory);
+            this.spillMemoryThreshold = memoryThreshold;
+            this.spillCapacity = capacity;
+            return getThis();
+        }
+
+        /**
+         * @param codec encodes the spilled items
+         * @return a new {@link SpillBuffer} for a poller, if configured.
+         */
+        protected <S> Optional<SpillBuffer<S>> newSpillBuffer(final SpillCodec<S> codec) {
+            return newSpillBuffer(codec, Optional.empty());
+        }
+
+        /**
+         * @param codec   encodes the spilled items
+         * @param indexer keys of the spilled items kept on heap
+         * @return a new {@link SpillBuffer} for a poller, if configured.
+         */
+        protected <S> Optional<SpillBuffer<S>> newSpillBuffer(final SpillCodec<S> codec,
+                final Optional<Function<? super S, ? extends Collection<String>>> indexer) {
+            return spillDirectory.map(dir -> new SpillBuffer<>(dir, spillMemoryThreshold,
+                    SpillBuffer.DEFAULT_SEGMENT_SIZE, spillCapacity, codec, indexer));
+        }
+
+        /**
+         * @return the configured {@link ItemPublisher}, by default adapting {@link #getPublisher()}.
+         */
+        protected <S> ItemPublisher<S> getItemPublisher() {
+            if (partitioned) {
+                return new WorkSharingPublisher<>(pollingExecutor);
+            }
+            return ringBufferWaitStrategy.<ItemPublisher<S>>map(w -> new RingBufferPublisher<>(bufferCapacity,
+                    pollingExecutor, w)).orElseGet(() -> ItemPublisher.of(getPublisher()));
+        }
+
         protected ClientAsyncConfiguration getDefaultAsyncConfig() {
             return ClientAsyncConfiguration.builder()
                     .advancedOption(SdkAdvancedAsyncClientOption.FUTURE_COMPLETION_EXECUTOR,
@@ -107,20 +506,78 @@ public abstract class AbstractPollingPublisher<T> implements Flow.Publisher<T> {
         public abstract T getThis();
     }
 
+    /**
+     * Polls the source repository without tying up a thread: {@link #run()} initializes the poller and starts
+     * {@code maxPollsPerThread} concurrent poll chains, then returns. Every chain issues its next poll from the
+     * completion of the previous one; polls completing synchronously are looped over rather than recursed into.
+     * <br>
+     * A failed poll delays the chain's next poll by an exponential backoff, starting at {@link #MIN_ERROR_BACKOFF}
+     * and doubling up to {@link #MAX_ERROR_BACKOFF}, on the shared {@link CompletableFuture#delayedExecutor} timer.
+     * The backoff resets on the next successful poll.
+     * <br>
+     * The number of concurrent poll chains adapts between {@code minPollsPerThread} and {@code maxPollsPerThread}:
+     * a poll coming back full (see {@link #fillRatio(Object)}) while subscribers have demand to spare starts another
+     * chain, an empty poll retires one. Chains start at the minimum, so idle sources cost as few calls as possible.
+     * <br>
+     * Polling stops once {@link #stop()} is invoked (e.g. by {@link AbstractPollingPublisher#close()}), or the
+     * thread completing a poll is interrupted.
+     * <br>
+     * Given a {@link SpillBuffer}, polled items are buffered in it rather than on heap only, and published by one
+     * poll completion at a time: the others carry on polling while the publisher is full, spilling their items
+     * until the subscribers catch up. Polls are then also issued ahead of the subscribers' demand, while the spill
+     * buffer holds (together with the outstanding polls ahead of demand) fewer items than its capacity.
+     */
     public static abstract class PollingRunnable<T> implements Runnable {
 
+        public static final Duration MIN_ERROR_BACKOFF = Duration.ofMillis(100);
+        public static final Duration MAX_ERROR_BACKOFF = Duration.ofSeconds(30);
         private static final Logger LOG = LogManager.getLogger("PollingRunnable");
-        private final BlockingQueue<CompletionStage<?>> pendingRequests;
+        private final int minConcurrentPolls;
+        private final int maxConcurrentPolls;
+        private final AtomicInteger activeChains = new AtomicInteger();
+        private final AtomicInteger targetChains = new AtomicInteger();
         private final BlockingQueue<T> submittableTaskResponses;
-        private final SubmissionPublisher<T> submissionPublisher;
+        private final ItemPublisher<T> submissionPublisher;
+        private final PollingDemand demand;
+        private final Optional<SpillBuffer<T>> spillBuffer;
+        private final AtomicInteger spillDrains = new AtomicInteger();
+        private final AtomicLong pollsAhead = new AtomicLong();
+        private final AtomicBoolean stopped = new AtomicBoolean(false);
 
 
         protected PollingRunnable(final int maxPollsPerThread,
                                   final BlockingQueue<T> submittableTaskResponses, final SubmissionPublisher<T> pub) {
-            this.pendingRequests = new ArrayBlockingQueue<>(maxPollsPerThread);
-            this.pendingRequests.add(CompletableFuture.allOf());
+            this(maxPollsPerThread, submittableTaskResponses, ItemPublisher.of(pub), PollingDemand.unbounded());
+        }
+
+        protected PollingRunnable(final int maxPollsPerThread,
+                                  final BlockingQueue<T> submittableTaskResponses, final ItemPublisher<T> pub,
+                                  final PollingDemand pollingDemand) {
+            this(maxPollsPerThread, maxPollsPerThread, submittableTaskResponses, pub, pollingDemand);
+        }
+
+        protected PollingRunnable(final int minPollsPerThread, final int maxPollsPerThread,
+                                  final BlockingQueue<T> submittableTaskResponses, final ItemPublisher<T> pub,
+                                  final PollingDemand pollingDemand) {
+            this(minPollsPerThread, maxPollsPerThread, submittableTaskResponses, pub, pollingDemand, Optional.empty());
+        }
+
+        /**
+         * @param spill buffers the polled items until published, instead of submittableTaskResponses.
+         */
+        protected PollingRunnable(final int minPollsPerThread, final int maxPollsPerThread,
+                                  final BlockingQueue<T> submittableTaskResponses, final ItemPublisher<T> pub,
+                                  final PollingDemand pollingDemand, final Optional<SpillBuffer<T>> spill) {
+            if (minPollsPerThread < 1 || maxPollsPerThread < minPollsPerThread) {
+                throw new IllegalArgumentException("Invalid polls per thread, min :" + minPollsPerThread + " max :"
+                        + maxPollsPerThread);
+            }
+            this.minConcurrentPolls = minPollsPerThread;
+            this.maxConcurrentPolls = maxPollsPerThread;
             this.submittableTaskResponses = submittableTaskResponses;
             this.submissionPublisher = pub;
+            this.demand = pollingDemand;
+            this.spillBuffer = spill;
         }
 
 
@@ -128,6 +585,26 @@ public abstract class AbstractPollingPublisher<T> implements Flow.Publisher<T> {
 
         protected abstract CompletionStage<Optional<T>> pollImpl();
 
+        /**
+         * @param polled a polled item
+         * @return how full the poll which returned the passed item was, in the range [0, 1]. Polls returning one
+         * item at most are always full.
+         */
+        protected double fillRatio(final T polled) {
+            return 1;
+        }
+
+        protected Optional<SpillBuffer<T>> getSpillBuffer() {
+            return spillBuffer;
+        }
+
+        /**
+         * @return number of concurrent poll chains currently aimed for.
+         */
+        public int getTargetConcurrentPolls() {
+            return targetChains.get();
+        }
+
         @Override
         public void run() {
             try {
@@ -136,34 +613,211 @@ public abstract class AbstractPollingPublisher<T> implements Flow.Publisher<T> {
                 LOG.fatal("Exception initializing ... exiting", t);
                 throw t;
             }
-            while (!Thread.currentThread().isInterrupted()) {
+            spillBuffer.ifPresent(spill -> demand.onRequested(() -> {
                 try {
-                    poll();
                     submitTasks();
                 } catch (Throwable t) {
-                    LOG.error(" Exception in MAIN Loop ...", t);
+                    LOG.error("Exception submitting spilled tasks", t);
+                }
+            }));
+            targetChains.set(minConcurrentPolls);
+            for (int i = 0; i < minConcurrentPolls && !stopped.get(); i++) {
+                startChain();
+            }
+        }
+
+        private void startChain() {
+            activeChains.incrementAndGet();
+            pollChain(MIN_ERROR_BACKOFF);
+        }
+
+        /**
+         * Grows the poll chains on full polls while subscribers have demand to spare, shrinks them on empty polls.
+         */
+        private void adapt(final Optional<T> polled) {
+            if (polled.isEmpty()) {
+                targetChains.getAndUpdate(t -> Math.max(minConcurrentPolls, t - 1));
+            } else if (fillRatio(polled.get()) >= 1 && demand.getAvailable() > activeChains.get()) {
+                int target = targetChains.get();
+                if (target < maxConcurrentPolls && targetChains.compareAndSet(target, target + 1)) {
+                    LOG.debug("Growing concurrent polls to {}", target + 1);
+                    startChain();
+                }
+            }
+        }
+
+        /**
+         * @return true if the calling chain is to retire, having more chains than aimed for.
+         */
+        private boolean retire() {
+            int active;
+            do {
+                active = activeChains.get();
+                if (active <= targetChains.get()) {
+                    return false;
+                }
+            } while (!activeChains.compareAndSet(active, active - 1));
+            LOG.debug("Shrinking concurrent polls to {}", active - 1);
+            return true;
+        }
+
+        /**
+         * Stops issuing further polls, outstanding polls still have their items published. Given a spill buffer, it
+         * is closed instead, deleting its segment files and discarding the items not yet published, those of
+         * outstanding polls included.
+         */
+        public void stop() {
+            if (stopped.compareAndSet(false, true)) {
+                LOG.warn("Polling stopped for {}", this);
+                spillBuffer.ifPresent(SpillBuffer::close);
+            }
+        }
+
+        public boolean isStopped() {
+            return stopped.get();
+        }
+
+        /**
+         * Polls until a poll either fails or does not complete synchronously, continuing the chain from that poll's
+         * completion.
+         *
+         * @param errorBackoff delay before polling again should the next poll fail
+         */
+        private void pollChain(final Duration errorBackoff) {
+            Duration backoff = errorBackoff;
+            while (!stopped.get() && !retire()) {
+                final Duration pendingBackoff = backoff;
+                final boolean ahead;
+                if (demand.tryAcquire()) {
+                    ahead = false;
+                } else if (tryPollAhead()) {
+                    ahead = true;
+                } else {
+                    LOG.trace("Parking poller until more items are requested");
+                    demand.onAvailable(() -> pollChain(pendingBackoff));
+                    return;
+                }
+                CompletableFuture<Optional<T>> poll = poll();
+                if (!poll.isDone()) {
+                    poll.whenComplete((r, t) -> {
+                        if (onPolled(r, t, ahead)) {
+                            pollChain(MIN_ERROR_BACKOFF);
+                        } else {
+                            retryAfter(pendingBackoff);
+                        }
+                    });
+                    return;
+                }
+                if (!poll.handle((r, t) -> onPolled(r, t, ahead)).join()) {
+                    retryAfter(backoff);
+                    return;
+                }
+                backoff = MIN_ERROR_BACKOFF;
+            }
+        }
+
+        private CompletableFuture<Optional<T>> poll() {
+            try {
+                return pollImpl().toCompletableFuture();
+            } catch (Throwable t) {
+                return CompletableFuture.failedFuture(t);
+            }
+        }
+
+        /**
+         * @return true if a poll ahead of demand was reserved, the spill buffer having capacity left for it.
+         */
+        private boolean tryPollAhead() {
+            if (spillBuffer.isEmpty()) {
+                return false;
+            }
+            SpillBuffer<T> spill = spillBuffer.get();
+            long ahead;
+            do {
+                ahead = pollsAhead.get();
+                if (spill.size() + ahead >= spill.getCapacity()) {
+                    return false;
                 }
+            } while (!pollsAhead.compareAndSet(ahead, ahead + 1));
+            return true;
+        }
+
+        /**
+         * @param ahead true if the poll was issued ahead of demand
+         * @return true if the poll succeeded.
+         */
+        private boolean onPolled(final Optional<T> polled, final Throwable throwable, final boolean ahead) {
+            if (ahead) {
+                pollsAhead.decrementAndGet();
+            } else if (throwable != null || polled.isEmpty()) {
+                demand.release();
+            }
+            if (throwable != null) {
+                LOG.error("Completion exception polling task", throwable);
+                return false;
             }
-            LOG.warn("MAIN loop has been exited due to interruption!!");
+            try {
+                polled.ifPresent(item -> spillBuffer.ifPresentOrElse(spill -> spill.add(item),
+                        () -> submittableTaskResponses.add(item)));
+                submitTasks();
+            } catch (Throwable t) {
+                LOG.error("Exception submitting polled tasks", t);
+                return false;
+            }
+            if (Thread.currentThread().isInterrupted()) {
+                stop();
+            } else {
+                adapt(polled);
+            }
+            return true;
         }
 
-        private void poll() throws InterruptedException {
-            pendingRequests.put(pollImpl()
-                    .thenAccept(o -> o.ifPresent(submittableTaskResponses::add))
-                    .whenComplete((r, t) ->
-                            pendingRequests.remove()).exceptionally(t ->
-                    {
-                        LOG.error("Completion exception polling task", t);
-                        return null;
-                    }));
+        private void retryAfter(final Duration backoff) {
+            if (!stopped.get()) {
+                LOG.debug("Backing off polling for {}", backoff);
+                CompletableFuture.delayedExecutor(backoff.toMillis(), TimeUnit.MILLISECONDS)
+                        .execute(() -> pollChain(backoff.multipliedBy(2).compareTo(MAX_ERROR_BACKOFF) > 0 ?
+                                MAX_ERROR_BACKOFF : backoff.multipliedBy(2)));
+            }
         }
 
         public void submitTasks() {
+            if (spillBuffer.isPresent()) {
+                submitSpilledTasks(spillBuffer.get());
+                return;
+            }
             T task;
             while (Objects.nonNull(task = submittableTaskResponses.poll())) {
                 LOG.trace("Submitting {}", task);
                 submissionPublisher.submit(task);
             }
         }
+
+        /**
+         * Publishes the buffered items requested by subscribers, unless another thread already is, in which case that
+         * thread publishes them.
+         */
+        private void submitSpilledTasks(final SpillBuffer<T> spill) {
+            if (spillDrains.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            try {
+                do {
+                    T task;
+                    while (demand.tryAcquirePublish()) {
+                        if (Objects.isNull(task = spill.poll())) {
+                            demand.releasePublish();
+                            break;
+                        }
+                        LOG.trace("Submitting {}", task);
+                        submissionPublisher.submit(task);
+                    }
+                } while ((missed = spillDrains.addAndGet(-missed)) != 0);
+            } catch (Throwable t) {
+                spillDrains.set(0);
+                throw t;
+            }
+        }
     }
 }
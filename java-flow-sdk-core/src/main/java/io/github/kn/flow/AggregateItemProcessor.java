@@ -0,0 +1,115 @@
+package io.github.kn.flow;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An "Aggregate" {@link CompletionStageItemProcessor} processing every entry of the aggregate input with the wrapped
+ * processor, with no more than the configured number of entries being processed at any given time.
+ * <br>
+ * Entries are started in their iteration order; each entry result is written straight into a pre-sized array at the
+ * entry's index, from which the aggregate result is formed once all the entries complete. Entries whose processing
+ * completes exceptionally are empty in the aggregate result.
+ *
+ * @see CompletionStageItemProcessor#aggregateProcessor(CompletionStageItemProcessor, int)
+ */
+final class AggregateItemProcessor<V, W> implements CompletionStageItemProcessor<Optionals<V>, Optionals<W>> {
+
+    private static final Logger LOG = LogManager.getLogger("AggregateItemProcessor");
+    private final CompletionStageItemProcessor<V, W> processor;
+    private final int maxParallelism;
+
+    AggregateItemProcessor(final CompletionStageItemProcessor<V, W> itemProcessor, final int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("maxParallelism must be positive :" + parallelism);
+        }
+        this.processor = Objects.requireNonNull(itemProcessor);
+        this.maxParallelism = parallelism;
+    }
+
+    @Override
+    public CompletionStage<Void> prepare() {
+        return processor.prepare();
+    }
+
+    @Override
+    public CompletionStage<Optionals<W>> onNext(final Optionals<V> items) {
+        Aggregation aggregation = new Aggregation(items);
+        if (aggregation.inputs.length == 0) {
+            aggregation.result.complete(items.replace(List.of()));
+        }
+        for (int i = 0; i < Math.min(maxParallelism, aggregation.inputs.length); i++) {
+            aggregation.processNext();
+        }
+        return aggregation.result;
+    }
+
+    @Override
+    public String toString() {
+        return "Aggregate(" + processor + ")";
+    }
+
+    private final class Aggregation {
+        private final Optionals<V> items;
+        private final Object[] inputs;
+        private final Object[] results;
+        private final AtomicInteger nextIndex = new AtomicInteger();
+        private final AtomicInteger remaining;
+        private final CompletableFuture<Optionals<W>> result = new CompletableFuture<>();
+
+        private Aggregation(final Optionals<V> aggregateItems) {
+            this.items = aggregateItems;
+            this.inputs = aggregateItems.stream().toArray();
+            this.results = new Object[inputs.length];
+            this.remaining = new AtomicInteger(inputs.length);
+        }
+
+        /**
+         * Starts processing of the next unprocessed entries, for as long as they complete synchronously, i.e. without
+         * recursing into completion callbacks.
+         */
+        private void processNext() {
+            int index;
+            while ((index = nextIndex.getAndIncrement()) < inputs.length) {
+                final int i = index;
+                CompletableFuture<W> stage = start(i);
+                if (!stage.isDone()) {
+                    stage.whenComplete((r, t) -> {
+                        complete(i, r, t);
+                        processNext();
+                    });
+                    return;
+                }
+                stage.whenComplete((r, t) -> complete(i, r, t));
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private CompletableFuture<W> start(final int index) {
+            try {
+                return processor.onNext((V) inputs[index]).toCompletableFuture();
+            } catch (Throwable t) {
+                return CompletableFuture.failedFuture(t);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void complete(final int index, final W entryResult, final Throwable throwable) {
+            if (throwable != null) {
+                LOG.error("aggregate processing exception", throwable);
+            } else {
+                results[index] = entryResult;
+            }
+            if (remaining.decrementAndGet() == 0) {
+                result.complete(items.replace((List<W>) Arrays.asList(results)));
+            }
+        }
+    }
+}
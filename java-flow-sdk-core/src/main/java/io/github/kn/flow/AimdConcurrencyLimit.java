@@ -0,0 +1,49 @@
+package io.github.kn.flow;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A {@link ConcurrencyLimit} adapting by additive increase / multiplicative decrease.
+ * <br>
+ * The limit is a single atomically updated integer, so recording samples is lock-free.
+ */
+final class AimdConcurrencyLimit implements ConcurrencyLimit {
+
+    static final double BACKOFF_RATIO = 0.9;
+    private static final Logger LOG = LogManager.getLogger("AimdConcurrencyLimit");
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final AtomicInteger limit;
+
+    AimdConcurrencyLimit(final int initialLimit, final int max, final long thresholdNanos) {
+        if (initialLimit < 1 || max < initialLimit) {
+            throw new IllegalArgumentException("Invalid limits, initial :" + initialLimit + " max :" + max);
+        }
+        this.maxLimit = max;
+        this.latencyThresholdNanos = thresholdNanos;
+        this.limit = new AtomicInteger(initialLimit);
+    }
+
+    @Override
+    public int getLimit() {
+        return limit.get();
+    }
+
+    @Override
+    public void onSample(final long latencyNanos, final int inFlight, final boolean dropped) {
+        if (dropped || latencyNanos > latencyThresholdNanos) {
+            int decreased = limit.updateAndGet(l -> Math.max(1, (int) (l * BACKOFF_RATIO)));
+            LOG.debug("Concurrency limit decreased to {}", decreased);
+        } else if (inFlight * 2 >= limit.get()) {
+            limit.updateAndGet(l -> Math.min(maxLimit, l + 1));
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "AIMD(" + limit.get() + ")";
+    }
+}
@@ -0,0 +1,158 @@
+package io.github.kn.flow;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
+
+/**
+ * A {@link CompletionStageItemProcessor} collecting items from (concurrent) {@code onNext} calls into batches,
+ * each of which is processed by a single call to the wrapped batch processor.
+ * <br>
+ * A batch is processed as soon as it holds the configured maximum number of items, or once the configured linger
+ * duration elapses after its first item was added, whichever happens first. With a weigher (the byte size of an item
+ * for instance), a batch is also processed once its items weigh the configured maximum weight, and is processed ahead
+ * of an item which would make it heavier, the item starting the next batch; an item heavier than the maximum weight
+ * is processed in a batch of its own. The batch processor result is expected to hold one entry per batched item (in
+ * the batched order), each completing the respective {@code onNext} call.
+ */
+final class BatchingItemProcessor<V, W> implements CompletionStageItemProcessor<V, W> {
+
+    private static final Logger LOG = LogManager.getLogger("BatchingItemProcessor");
+    private final int maxItems;
+    private final long maxWeight;
+    private final ToIntFunction<? super V> weigher;
+    private final Executor lingerExecutor;
+    private final CompletionStageItemProcessor<List<V>, List<W>> batchProcessor;
+    private Batch<V, W> currentBatch;
+
+    BatchingItemProcessor(final int maxBatchItems, final Duration maxLinger,
+                          final CompletionStageItemProcessor<List<V>, List<W>> processor) {
+        this(maxBatchItems, Long.MAX_VALUE, item -> 0, maxLinger, processor);
+    }
+
+    /**
+     * @param maxBatchWeight maximum weight of the items of a batch
+     * @param itemWeigher    weight of an item
+     */
+    BatchingItemProcessor(final int maxBatchItems, final long maxBatchWeight,
+                          final ToIntFunction<? super V> itemWeigher, final Duration maxLinger,
+                          final CompletionStageItemProcessor<List<V>, List<W>> processor) {
+        if (maxBatchItems <= 0) {
+            throw new IllegalArgumentException("maxItems must be positive :" + maxBatchItems);
+        }
+        if (maxBatchWeight <= 0) {
+            throw new IllegalArgumentException("maxWeight must be positive :" + maxBatchWeight);
+        }
+        this.maxItems = maxBatchItems;
+        this.maxWeight = maxBatchWeight;
+        this.weigher = Objects.requireNonNull(itemWeigher);
+        this.lingerExecutor = CompletableFuture.delayedExecutor(maxLinger.toNanos(), TimeUnit.NANOSECONDS);
+        this.batchProcessor = Objects.requireNonNull(processor);
+    }
+
+    @Override
+    public CompletionStage<Void> prepare() {
+        return batchProcessor.prepare();
+    }
+
+    @Override
+    public CompletionStage<W> onNext(final V item) {
+        CompletableFuture<W> result = new CompletableFuture<>();
+        int weight = weigher.applyAsInt(item);
+        Batch<V, W> lingering = null;
+        Batch<V, W> overweight = null;
+        Batch<V, W> full = null;
+        synchronized (this) {
+            if (currentBatch != null && currentBatch.weight + weight > maxWeight) {
+                overweight = currentBatch;
+                currentBatch = null;
+            }
+            if (currentBatch == null) {
+                currentBatch = new Batch<>(maxItems);
+                lingering = currentBatch;
+            }
+            currentBatch.add(item, result, weight);
+            if (currentBatch.size() >= maxItems || currentBatch.weight >= maxWeight) {
+                full = currentBatch;
+                currentBatch = null;
+            }
+        }
+        if (overweight != null) {
+            process(overweight);
+        }
+        if (full != null) {
+            process(full);
+        } else if (lingering != null) {
+            final Batch<V, W> batch = lingering;
+            lingerExecutor.execute(() -> processLingering(batch));
+        }
+        return result;
+    }
+
+    private void processLingering(final Batch<V, W> batch) {
+        synchronized (this) {
+            if (currentBatch != batch) {
+                return;
+            }
+            currentBatch = null;
+        }
+        process(batch);
+    }
+
+    private void process(final Batch<V, W> batch) {
+        LOG.trace("Processing batch of {} items", batch.size());
+        try {
+            batchProcessor.onNext(batch.items).whenComplete(batch::complete);
+        } catch (Throwable t) {
+            batch.complete(null, t);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Batching(" + batchProcessor + ")";
+    }
+
+    private static final class Batch<V, W> {
+        private final List<V> items;
+        private final List<CompletableFuture<W>> results;
+        private long weight;
+
+        private Batch(final int capacity) {
+            this.items = new ArrayList<>(capacity);
+            this.results = new ArrayList<>(capacity);
+        }
+
+        private void add(final V item, final CompletableFuture<W> result, final int itemWeight) {
+            items.add(item);
+            results.add(result);
+            weight += itemWeight;
+        }
+
+        private int size() {
+            return items.size();
+        }
+
+        private void complete(final List<W> batchResult, final Throwable throwable) {
+            for (int i = 0; i < results.size(); i++) {
+                if (throwable != null) {
+                    results.get(i).completeExceptionally(throwable);
+                } else if (batchResult == null || i >= batchResult.size()) {
+                    results.get(i).completeExceptionally(new IllegalStateException("No batch processing result " +
+                            "for item :" + items.get(i)));
+                } else {
+                    results.get(i).complete(batchResult.get(i));
+                }
+            }
+        }
+    }
+}
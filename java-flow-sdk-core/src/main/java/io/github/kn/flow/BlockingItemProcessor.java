@@ -0,0 +1,47 @@
+package io.github.kn.flow;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Processes items by blocking the calling thread, e.g. via JDBC, a legacy synchronous SDK or a file parser.
+ * <br>
+ * Adapted to a {@link CompletionStageItemProcessor} running every call on its own (virtual, where the runtime
+ * supports them) thread, so blocking processing can be composed into flows.
+ *
+ * @see #toCompletionStageItemProcessor(int)
+ */
+@FunctionalInterface
+public interface BlockingItemProcessor<T, R> {
+
+    /**
+     * Processes the passed item, blocking until the processing completes.
+     *
+     * @param item the item to process
+     * @return the processing result
+     * @throws Exception if the processing fails
+     */
+    R process(T item) throws Exception;
+
+    /**
+     * Returns a CompletionStageItemProcessor running every call of this processor on a virtual thread, falling back
+     * to a cached pool of daemon platform threads on runtimes without virtual threads.
+     *
+     * @param maxConcurrency maximum number of concurrently running calls of this processor, further items are queued
+     * @return the new CompletionStageItemProcessor
+     */
+    default CompletionStageItemProcessor<T, R> toCompletionStageItemProcessor(final int maxConcurrency) {
+        return new BlockingItemProcessorAdapter<>(this, BlockingItemProcessorAdapter.DEFAULT_EXECUTOR, maxConcurrency);
+    }
+
+    /**
+     * Returns a CompletionStageItemProcessor running every call of this processor on the passed executor.
+     *
+     * @param executor       runs the calls of this processor
+     * @param maxConcurrency maximum number of concurrently running calls of this processor, further items are queued
+     * @return the new CompletionStageItemProcessor
+     */
+    default CompletionStageItemProcessor<T, R> toCompletionStageItemProcessor(final Executor executor,
+                                                                               final int maxConcurrency) {
+        return new BlockingItemProcessorAdapter<>(this, executor, maxConcurrency);
+    }
+}
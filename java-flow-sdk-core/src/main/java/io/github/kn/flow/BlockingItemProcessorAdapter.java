@@ -0,0 +1,130 @@
+package io.github.kn.flow;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A {@link CompletionStageItemProcessor} running the calls of a {@link BlockingItemProcessor} on an executor, at most
+ * {@code maxConcurrency} at a time.
+ * <br>
+ * Admission never blocks the calling thread: an item either acquires a permit and is submitted to the executor, or is
+ * queued, to be submitted by the call releasing the next permit. Queued calls are submitted by one thread at a time, in
+ * a loop, so an executor running calls on the submitting thread does not recurse once per queued call.
+ *
+ * @see BlockingItemProcessor#toCompletionStageItemProcessor(int)
+ */
+final class BlockingItemProcessorAdapter<T, R> implements CompletionStageItemProcessor<T, R> {
+
+    private static final Logger LOG = LogManager.getLogger("BlockingItemProcessorAdapter");
+    static final Executor DEFAULT_EXECUTOR = newThreadPerTaskExecutor();
+    private final BlockingItemProcessor<T, R> processor;
+    private final Executor executor;
+    private final Semaphore permits;
+    private final Queue<Call> queued = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger drains = new AtomicInteger();
+
+    BlockingItemProcessorAdapter(final BlockingItemProcessor<T, R> blockingProcessor, final Executor exec,
+                                 final int maxConcurrency) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency must be positive :" + maxConcurrency);
+        }
+        this.processor = Objects.requireNonNull(blockingProcessor);
+        this.executor = Objects.requireNonNull(exec);
+        this.permits = new Semaphore(maxConcurrency);
+    }
+
+    /**
+     * Looks up {@code Executors.newVirtualThreadPerTaskExecutor()} reflectively, as the library compiles for a Java
+     * release predating virtual threads.
+     */
+    private static Executor newThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            LOG.info("Virtual threads unavailable, running blocking processing on a cached thread pool");
+            return Executors.newCachedThreadPool(r -> {
+                Thread thread = new Thread(r, "blocking-item-processor");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    @Override
+    public CompletionStage<R> onNext(final T item) {
+        Call call = new Call(item);
+        if (permits.tryAcquire()) {
+            submit(call);
+        } else {
+            queued.add(call);
+            // a permit may have been released after the failed acquire but before queueing
+            drainQueued();
+        }
+        return call.result;
+    }
+
+    private void submit(final Call call) {
+        try {
+            executor.execute(call);
+        } catch (RuntimeException e) {
+            LOG.error("Executor rejected blocking processing of item " + call.item, e);
+            call.result.completeExceptionally(e);
+            permits.release();
+        }
+    }
+
+    private void drainQueued() {
+        if (drains.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            while (!queued.isEmpty() && permits.tryAcquire()) {
+                Call call = queued.poll();
+                if (call == null) {
+                    permits.release();
+                } else {
+                    submit(call);
+                }
+            }
+        } while ((missed = drains.addAndGet(-missed)) != 0);
+    }
+
+    @Override
+    public String toString() {
+        return "Blocking(" + processor + ")";
+    }
+
+    private final class Call implements Runnable {
+        private final T item;
+        private final CompletableFuture<R> result = new CompletableFuture<>();
+
+        private Call(final T callItem) {
+            this.item = callItem;
+        }
+
+        @Override
+        public void run() {
+            try {
+                result.complete(processor.process(item));
+            } catch (Throwable t) {
+                result.completeExceptionally(t instanceof RuntimeException ? t : new CompletionException(t));
+            } finally {
+                permits.release();
+                drainQueued();
+            }
+        }
+    }
+}
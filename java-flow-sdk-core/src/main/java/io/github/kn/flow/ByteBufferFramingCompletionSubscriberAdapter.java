@@ -0,0 +1,308 @@
+package io.github.kn.flow;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * A {@link CompletionSubscriber} of bytes ({@link ByteBuffer}) framing them into records via a pluggable
+ * {@link RecordFramer}, and publishing the (mapped) records to a downstream {@link CompletionSubscriber} as per its
+ * demand.
+ * <br>
+ * Framing and parsing are a single pass over the bytes: the framer produces the typed records (parsed JSON objects,
+ * CSV fields, binary records...) directly, with no intermediate text line to parse a second time. A record which
+ * can not be framed (an {@link IllegalArgumentException} thrown by the framer) cancels the upstream subscription and
+ * errors the downstream subscriber.
+ * <br>
+ * In chunked mode every published item is a (mapped) chunk of up to maxRecords records, adding up to maxBytes bytes
+ * at most (unless of a single record exceeding it). Chunks are only published full, or once the bytes are all framed.
+ * <br>
+ * Received lists of buffers are framed as the downstream subscriber demands records, a buffering framer (see
+ * {@link RecordFramer#hasBuffered()}) framing a part of its bytes at a time. One list of buffers at a time is requested
+ * from upstream, once the bytes received so far are all framed, the records framed so far are published (or fall
+ * short of a chunk) and the downstream subscriber has demand left. Framing and publishing are serialized: whichever
+ * thread signals while no other is draining frames the bytes and publishes the records.
+ *
+ * @param <R> type of the framed records
+ * @param <T> type of the published items
+ */
+public final class ByteBufferFramingCompletionSubscriberAdapter<R, T> implements CompletionSubscriber<List<ByteBuffer>> {
+
+    private static final Logger LOG = LogManager.getLogger("ByteBufferFramingCompletionSubscriberAdapter");
+    private final CompletionSubscriber<? super T> subscriberDelegate;
+    private final RecordFramer<R> framer;
+    private final Function<? super R, ? extends T> recordMapper;
+    private final Function<List<R>, ? extends T> chunkMapper;
+    private final ToIntFunction<? super R> recordBytes;
+    private final int maxRecords;
+    private final long maxBytes;
+    private final Queue<List<ByteBuffer>> received = new ConcurrentLinkedQueue<>();
+    private final Queue<R> records = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queuedRecords = new AtomicInteger();
+    private final AtomicLong queuedBytes = new AtomicLong();
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicInteger wip = new AtomicInteger();
+    private final AtomicBoolean upstreamRequested = new AtomicBoolean(false);
+    private final AtomicInteger publishCount = new AtomicInteger();
+    private volatile CompletionSubscription upstream;
+    private volatile boolean upstreamCompleted;
+    private boolean upstreamDone;
+    private volatile Throwable error;
+    private boolean terminated;
+
+    ByteBufferFramingCompletionSubscriberAdapter(final CompletionSubscriber<? super T> delegate,
+                                                 final RecordFramer<R> recordFramer,
+                                                 final Function<? super R, ? extends T> mapper) {
+        this.subscriberDelegate = Objects.requireNonNull(delegate);
+        this.framer = Objects.requireNonNull(recordFramer);
+        this.recordMapper = Objects.requireNonNull(mapper);
+        this.chunkMapper = null;
+        this.recordBytes = null;
+        this.maxRecords = 1;
+        this.maxBytes = Long.MAX_VALUE;
+    }
+
+    /**
+     * Creates a subscriber in chunked mode.
+     *
+     * @param chunkRecords maximum number of records per chunk
+     * @param chunkBytes   maximum number of bytes per chunk
+     * @param byteLength   number of bytes of a record
+     */
+    ByteBufferFramingCompletionSubscriberAdapter(final CompletionSubscriber<? super T> delegate,
+                                                 final RecordFramer<R> recordFramer, final int chunkRecords,
+                                                 final long chunkBytes, final ToIntFunction<? super R> byteLength,
+                                                 final Function<List<R>, ? extends T> mapper) {
+        if (chunkRecords < 1 || chunkBytes < 1) {
+            throw new IllegalArgumentException("Invalid chunk, maxRecords :" + chunkRecords + " maxBytes :"
+                    + chunkBytes);
+        }
+        this.subscriberDelegate = Objects.requireNonNull(delegate);
+        this.framer = Objects.requireNonNull(recordFramer);
+        this.recordMapper = null;
+        this.chunkMapper = Objects.requireNonNull(mapper);
+        this.recordBytes = Objects.requireNonNull(byteLength);
+        this.maxRecords = chunkRecords;
+        this.maxBytes = chunkBytes;
+    }
+
+    /**
+     * @param delegate downstream subscriber of the framed records
+     * @param framer   framer of the bytes into records, used by the returned subscriber only
+     * @return the adapting subscriber of bytes
+     * @see RecordFramer#jsonLines(Class)
+     * @see RecordFramer#csv(Charset, char)
+     * @see RecordFramer#lengthPrefixed()
+     */
+    public static <R> ByteBufferFramingCompletionSubscriberAdapter<R, R> adapt(
+            final CompletionSubscriber<? super R> delegate, final RecordFramer<R> framer) {
+        return new ByteBufferFramingCompletionSubscriberAdapter<>(delegate, framer, Function.identity());
+    }
+
+    @Override
+    public void onSubscribe(final CompletionSubscription subs) {
+        this.upstream = subs;
+        subscriberDelegate.onSubscribe(new CompletionSubscription() {
+            @Override
+            public void request(final long n) {
+                if (n <= 0) {
+                    subs.cancel();
+                    onError(new IllegalArgumentException("non-positive subscription request :" + n));
+                    return;
+                }
+                requested.accumulateAndGet(n, (a, b) -> a + b < 0 ? Long.MAX_VALUE : a + b);
+                drain();
+            }
+
+            @Override
+            public void cancel() {
+                subs.cancel();
+                LOG.warn("Subscription cancelled by subscriber {} after publishing {} items", subscriberDelegate,
+                        publishCount);
+            }
+
+            @Override
+            public void onComplete() {
+                subs.onComplete();
+                LOG.debug("Subscription completed by subscriber {} after publishing {} items", subscriberDelegate,
+                        publishCount);
+            }
+        });
+    }
+
+    @Override
+    public void onNext(final List<ByteBuffer> byteBuffers) {
+        LOG.trace("onNext {}", byteBuffers);
+        if (error != null) {
+            return;
+        }
+        received.add(byteBuffers);
+        upstreamRequested.set(false);
+        drain();
+    }
+
+    @Override
+    public void onError(final Throwable throwable) {
+        if (error == null) {
+            error = throwable;
+        }
+        drain();
+    }
+
+    @Override
+    public void onComplete() {
+        LOG.debug("onComplete");
+        upstreamCompleted = true;
+        drain();
+    }
+
+    private void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            if (terminated) {
+                return;
+            }
+            Throwable throwable = error;
+            if (throwable != null) {
+                terminate(throwable);
+                return;
+            }
+            long demand = requested.get();
+            long published = 0;
+            try {
+                T item;
+                while (published != demand && ((item = next()) != null || frameMore())) {
+                    if (item != null) {
+                        subscriberDelegate.onNext(item);
+                        published++;
+                    }
+                }
+                if (!upstreamDone && upstreamCompleted && received.isEmpty() && !framer.hasBuffered()) {
+                    frameMore();
+                }
+            } catch (IllegalArgumentException e) {
+                if (!upstreamCompleted) {
+                    upstream.cancel();
+                }
+                terminate(e);
+                return;
+            }
+            if (published != 0) {
+                publishCount.addAndGet((int) published);
+                if (demand != Long.MAX_VALUE) {
+                    requested.addAndGet(-published);
+                }
+            }
+            if (upstreamDone && records.isEmpty()) {
+                terminated = true;
+                subscriberDelegate.onComplete();
+                LOG.info("onComplete invoked after publishing {} items for:{}", publishCount, subscriberDelegate);
+                return;
+            }
+            if (!upstreamCompleted && !isReady() && received.isEmpty() && !framer.hasBuffered() && requested.get() > 0
+                    && upstream != null && upstreamRequested.compareAndSet(false, true)) {
+                LOG.debug("Requesting 1 more item of bytes array");
+                upstream.request(1);
+            }
+        } while ((missed = wip.addAndGet(-missed)) != 0);
+    }
+
+    private void terminate(final Throwable throwable) {
+        terminated = true;
+        records.clear();
+        received.clear();
+        subscriberDelegate.onError(throwable);
+        LOG.error("onError invoked after publishing " + publishCount + " items for:" + subscriberDelegate, throwable);
+    }
+
+    /**
+     * Frames more bytes: the next part of those held on to by the framer, else the next list of buffers received,
+     * else (upstream having completed) the partial record left at the end of the bytes.
+     *
+     * @return false if there is nothing left to frame
+     * @throws IllegalArgumentException if the bytes can not be framed into a record
+     */
+    private boolean frameMore() {
+        if (framer.hasBuffered()) {
+            framer.frameBuffered(this::enqueue);
+            return true;
+        }
+        // read ahead of the received buffers: upstream completes once done adding to them
+        boolean completed = upstreamCompleted;
+        List<ByteBuffer> buffers = received.poll();
+        if (buffers != null) {
+            buffers.forEach(buffer -> framer.frame(buffer, this::enqueue));
+            return true;
+        }
+        if (completed && !upstreamDone) {
+            framer.finish(this::enqueue);
+            upstreamDone = true;
+            return true;
+        }
+        return false;
+    }
+
+    private void enqueue(final R record) {
+        records.add(record);
+        if (chunkMapper != null) {
+            queuedBytes.addAndGet(recordBytes.applyAsInt(record));
+        }
+        queuedRecords.incrementAndGet();
+    }
+
+    private R dequeue() {
+        R record = records.poll();
+        if (record != null) {
+            if (chunkMapper != null) {
+                queuedBytes.addAndGet(-recordBytes.applyAsInt(record));
+            }
+            queuedRecords.decrementAndGet();
+        }
+        return record;
+    }
+
+    /**
+     * @return true if the framed records make up an item to publish, without framing more bytes.
+     */
+    private boolean isReady() {
+        return chunkMapper == null ? !records.isEmpty()
+                : queuedRecords.get() >= maxRecords || queuedBytes.get() >= maxBytes;
+    }
+
+    /**
+     * @return the next item to publish, or null if none is ready.
+     */
+    private T next() {
+        if (chunkMapper == null) {
+            R record = dequeue();
+            return record == null ? null : recordMapper.apply(record);
+        }
+        if (!upstreamDone && !isReady()) {
+            return null;
+        }
+        List<R> chunk = new ArrayList<>(Math.min(maxRecords, queuedRecords.get()));
+        long chunkBytes = 0;
+        R record;
+        while (chunk.size() < maxRecords && (record = records.peek()) != null
+                && (chunk.isEmpty() || chunkBytes + recordBytes.applyAsInt(record) <= maxBytes)) {
+            chunk.add(dequeue());
+            chunkBytes += recordBytes.applyAsInt(record);
+        }
+        return chunk.isEmpty() ? null : chunkMapper.apply(chunk);
+    }
+}
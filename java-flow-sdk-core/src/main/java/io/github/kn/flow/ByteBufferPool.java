@@ -0,0 +1,51 @@
+package io.github.kn.flow;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A pool of byte buffers, shared by the byte handling components (producers acquiring the buffers they fill, the
+ * consumers at the end of a flow releasing the buffers they are done with) to spare allocating a buffer per chunk of
+ * bytes.
+ * <br>
+ * Release is explicit: a buffer is released once, by its last user, as acquired (not a slice nor a duplicate of it),
+ * and is not used from there on. Releasing is optional, a buffer never released being reclaimed by the garbage
+ * collector as any other.
+ *
+ * @see SizeClassedByteBufferPool
+ */
+public interface ByteBufferPool {
+
+    /**
+     * @return a pool allocating a new heap buffer on every acquire, and ignoring releases.
+     */
+    static ByteBufferPool heap() {
+        return new ByteBufferPool() {
+            @Override
+            public ByteBuffer acquire(final int capacity) {
+                return ByteBuffer.allocate(capacity);
+            }
+
+            @Override
+            public void release(final ByteBuffer buffer) {
+            }
+        };
+    }
+
+    /**
+     * @return the shared pool of direct buffers, see {@link SizeClassedByteBufferPool#DEFAULT}.
+     */
+    static ByteBufferPool direct() {
+        return SizeClassedByteBufferPool.DEFAULT;
+    }
+
+    /**
+     * @param capacity number of bytes needed
+     * @return a buffer of at least the passed capacity, its position zero and its limit the passed capacity.
+     */
+    ByteBuffer acquire(int capacity);
+
+    /**
+     * @param buffer a buffer acquired from this pool, done with
+     */
+    void release(ByteBuffer buffer);
+}
@@ -8,14 +8,18 @@ import java.net.http.HttpResponse;
 import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.util.List;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Flow;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 /**
  * A {@link CompletionSubscriber} of bytes ({@link ByteBuffer}) invoking a wrapped downstream textline
  * (String) {@link CompletionSubscriber}.
  * <br>
- * Conversion of bytes to text line is as per {@link HttpResponse.BodySubscribers#fromLineSubscriber(Flow.Subscriber)}
+ * Conversion of bytes to text line is as per {@link HttpResponse.BodySubscribers#fromLineSubscriber(Flow.Subscriber)}.
+ * For UTF-8 and single byte charsets the lines are framed from the bytes as they are, see {@link LineFramer}, each
+ * line only decoded when published; other charsets are decoded into text before being split into lines.
  */
 public class ByteBufferToTextLineCompletionSubscriberAdapter implements CompletionSubscriber<List<ByteBuffer>> {
 
@@ -24,7 +28,7 @@ public class ByteBufferToTextLineCompletionSubscriberAdapter implements Completi
     private final CompletionSubscriber<String> subscriberDelegate;
     private final String lineSeparator;
     private final Charset charset;
-    private volatile HttpResponse.BodySubscriber<Void> bytesArraySubscriberDelegate;
+    private volatile Flow.Subscriber<List<ByteBuffer>> bytesArraySubscriberDelegate;
 
     ByteBufferToTextLineCompletionSubscriberAdapter(final CompletionSubscriber<String> delegate, final Charset cSet,
                                                     final String separator) {
@@ -45,10 +49,73 @@ public class ByteBufferToTextLineCompletionSubscriberAdapter implements Completi
         return new ByteBufferToTextLineCompletionSubscriberAdapter(delegate, cSet, separator);
     }
 
+    /**
+     * Adapts a downstream subscriber of {@link TextLine} views of the lines, which are never decoded unless the
+     * subscriber does so.
+     *
+     * @param delegate  downstream subscriber of lines
+     * @param cSet      charset of the bytes, UTF-8 or a single byte charset
+     * @param separator line separator, or null for any of "\n", "\r" or "\r\n"
+     * @return the adapting subscriber of bytes
+     * @throws IllegalArgumentException if lines of the charset can not be framed as bytes
+     */
+    public static CompletionSubscriber<List<ByteBuffer>> adaptTextLines(final CompletionSubscriber<TextLine> delegate,
+                                                                       final Charset cSet, final String separator) {
+        return ByteBufferFramingCompletionSubscriberAdapter.adapt(delegate, new LineFramer(cSet, separator));
+    }
+
+    /**
+     * Adapts a downstream subscriber of chunks of lines, each chunk of up to maxLines lines adding up to maxBytes
+     * bytes at most (unless of a single line exceeding it), so that the downstream processing is per chunk rather
+     * than per line.
+     *
+     * @param delegate  downstream subscriber of line chunks
+     * @param cSet      charset of the bytes, UTF-8 or a single byte charset
+     * @param separator line separator, or null for any of "\n", "\r" or "\r\n"
+     * @param maxLines  maximum number of lines per chunk
+     * @param maxBytes  maximum number of line bytes per chunk
+     * @return the adapting subscriber of bytes
+     * @throws IllegalArgumentException if lines of the charset can not be framed as bytes
+     */
+    public static CompletionSubscriber<List<ByteBuffer>> adaptChunked(final CompletionSubscriber<List<String>> delegate,
+                                                                     final Charset cSet, final String separator,
+                                                                     final int maxLines, final long maxBytes) {
+        return new ByteBufferFramingCompletionSubscriberAdapter<>(delegate, new LineFramer(cSet, separator), maxLines,
+                maxBytes, TextLine::getByteLength, chunk -> chunk.stream().map(TextLine::toString).collect(Collectors.toList()));
+    }
+
+    /**
+     * Adapts a downstream subscriber of lines, the lines framed and decoded on a pool of workers, one block (received
+     * list of buffers) per worker, and published in their original order.
+     *
+     * @param delegate    downstream subscriber of lines
+     * @param cSet        charset of the bytes, UTF-8 or a single byte charset
+     * @param separator   line separator, or null for any of "\n", "\r" or "\r\n"
+     * @param executor    executor framing and decoding the blocks
+     * @param parallelism maximum number of blocks framed ahead of the downstream demand
+     * @return the adapting subscriber of bytes
+     * @throws IllegalArgumentException if lines of the charset can not be framed as bytes
+     * @see ParallelLineFramingCompletionSubscriber
+     */
+    public static CompletionSubscriber<List<ByteBuffer>> adaptParallel(final CompletionSubscriber<String> delegate,
+                                                                      final Charset cSet, final String separator,
+                                                                      final Executor executor, final int parallelism) {
+        return new ParallelLineFramingCompletionSubscriber<>(delegate, cSet, separator, executor, parallelism,
+                TextLine::toString);
+    }
+
     @Override
     public void onSubscribe(final CompletionSubscription subs) {
         LOG.trace("init invoked");
-        this.bytesArraySubscriberDelegate = HttpResponse.BodySubscribers
+        if (LineFramer.supports(charset)) {
+            ByteBufferFramingCompletionSubscriberAdapter<TextLine, String> framingSubscriber =
+                    new ByteBufferFramingCompletionSubscriberAdapter<>(subscriberDelegate,
+                            new LineFramer(charset, lineSeparator), TextLine::toString);
+            this.bytesArraySubscriberDelegate = framingSubscriber;
+            framingSubscriber.onSubscribe(subs);
+            return;
+        }
+        HttpResponse.BodySubscriber<Void> decodingSubscriber = HttpResponse.BodySubscribers
                 .fromLineSubscriber(new Flow.Subscriber<>() {
                     private volatile AtomicInteger publishCount = new AtomicInteger(0);
 
@@ -92,7 +159,8 @@ public class ByteBufferToTextLineCompletionSubscriberAdapter implements Completi
                     }
 
                 }, s -> null, charset, lineSeparator);
-        this.bytesArraySubscriberDelegate.onSubscribe(new Flow.Subscription() {
+        this.bytesArraySubscriberDelegate = decodingSubscriber;
+        decodingSubscriber.onSubscribe(new Flow.Subscription() {
             @Override
             public void request(long n) {
                 LOG.debug("Requesting {} more items of bytes array", n);
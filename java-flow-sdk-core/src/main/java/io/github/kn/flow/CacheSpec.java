@@ -0,0 +1,65 @@
+package io.github.kn.flow;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Specification of the cache of a cached {@link CompletionStageItemProcessor}.
+ * <br>
+ * maximumSize - maximum number of cached processing results. Once reached, a newly processed result is only cached
+ * (evicting the oldest cached result) when its key is accessed more frequently than the oldest cached result's key.
+ * <br>
+ * expireAfterWrite - duration after which a cached processing result expires, never by default.
+ *
+ * @see CompletionStageItemProcessor#cached(java.util.function.Function, CacheSpec)
+ */
+public final class CacheSpec {
+
+    public static final long DEFAULT_MAXIMUM_SIZE = 10_000;
+    private final long maximumSize;
+    private final Optional<Duration> expireAfterWrite;
+
+    private CacheSpec(final long maxSize, final Optional<Duration> ttl) {
+        this.maximumSize = maxSize;
+        this.expireAfterWrite = ttl;
+    }
+
+    public static CacheSpec.Builder builder() {
+        return new CacheSpec.Builder();
+    }
+
+    public long getMaximumSize() {
+        return maximumSize;
+    }
+
+    public Optional<Duration> getExpireAfterWrite() {
+        return expireAfterWrite;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheSpec(maximumSize=" + maximumSize + ", expireAfterWrite=" + expireAfterWrite + ")";
+    }
+
+    public static class Builder {
+        private volatile long maximumSize = DEFAULT_MAXIMUM_SIZE;
+        private volatile Optional<Duration> expireAfterWrite = Optional.empty();
+
+        public Builder maximumSize(final long size) {
+            if (size < 0) {
+                throw new IllegalArgumentException("maximumSize must not be negative :" + size);
+            }
+            this.maximumSize = size;
+            return this;
+        }
+
+        public Builder expireAfterWrite(final Duration ttl) {
+            this.expireAfterWrite = Optional.of(ttl);
+            return this;
+        }
+
+        public CacheSpec build() {
+            return new CacheSpec(maximumSize, expireAfterWrite);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package io.github.kn.flow;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * A {@link CompletionStageItemProcessor} caching the (non-null) results of the wrapped processor by item key.
+ * <br>
+ * Concurrent {@code onNext} calls for the same key share one in-flight processing call of the wrapped processor,
+ * instead of each calling it. Exceptional results are shared by the in-flight callers, but never cached.
+ *
+ * @see CompletionStageItemProcessor#cached(Function, CacheSpec)
+ * @see FrequencyAwareCache
+ */
+final class CachedItemProcessor<T, K, R> implements CompletionStageItemProcessor<T, R> {
+
+    private static final Logger LOG = LogManager.getLogger("CachedItemProcessor");
+    private final CompletionStageItemProcessor<T, R> processor;
+    private final Function<? super T, ? extends K> keyFunction;
+    private final FrequencyAwareCache<K, R> cache;
+    private final ConcurrentHashMap<K, CompletableFuture<R>> inFlight = new ConcurrentHashMap<>();
+
+    CachedItemProcessor(final CompletionStageItemProcessor<T, R> itemProcessor,
+                        final Function<? super T, ? extends K> keyFunc, final CacheSpec spec) {
+        this.processor = Objects.requireNonNull(itemProcessor);
+        this.keyFunction = Objects.requireNonNull(keyFunc);
+        this.cache = new FrequencyAwareCache<>(spec);
+    }
+
+    @Override
+    public CompletionStage<Void> prepare() {
+        return processor.prepare();
+    }
+
+    @Override
+    public CompletionStage<R> onNext(final T item) {
+        final K key = keyFunction.apply(item);
+        R cached = cache.get(key);
+        if (cached != null) {
+            LOG.trace("Cache hit for key {}", key);
+            return CompletableFuture.completedStage(cached);
+        }
+        final CompletableFuture<R> loading = new CompletableFuture<>();
+        CompletableFuture<R> existing = inFlight.putIfAbsent(key, loading);
+        if (existing != null) {
+            LOG.trace("Joining in-flight processing for key {}", key);
+            return existing.minimalCompletionStage();
+        }
+        try {
+            processor.onNext(item).whenComplete((r, t) -> {
+                if (t == null && r != null) {
+                    cache.put(key, r);
+                }
+                inFlight.remove(key, loading);
+                if (t == null) {
+                    loading.complete(r);
+                } else {
+                    loading.completeExceptionally(t);
+                }
+            });
+        } catch (Throwable t) {
+            inFlight.remove(key, loading);
+            loading.completeExceptionally(t);
+        }
+        return loading.minimalCompletionStage();
+    }
+
+    @Override
+    public String toString() {
+        return "Cached(" + processor + ")";
+    }
+}
@@ -18,4 +18,30 @@ public interface CompletionPublisher<T> {
      * @see java.util.concurrent.Flow.Publisher#subscribe(Flow.Subscriber)
      */
     CompletableFuture<Void> subscribe(CompletionSubscriber<? super T> subscriber);
+
+    /**
+     * Merges the items of the passed publishers, fairly interleaving the items of up to maxConcurrency publishers
+     * subscribed at a time. The returned publisher's subscriber completes once all the publishers complete.
+     *
+     * @param publishers     publishers to merge, subscribed in iteration order (possibly created lazily)
+     * @param maxConcurrency maximum number of publishers subscribed at a time
+     * @param <T>            type of published items
+     * @return the merging {@link CompletionPublisher}
+     */
+    static <T> CompletionPublisher<T> merge(final Iterable<? extends Flow.Publisher<? extends T>> publishers,
+                                            final int maxConcurrency) {
+        return new MergingCompletionPublisher<>(publishers, maxConcurrency);
+    }
+
+    /**
+     * Concatenates the items of the passed publishers, subscribing to the next publisher once the previous
+     * completes.
+     *
+     * @param publishers publishers to concatenate, subscribed in iteration order (possibly created lazily)
+     * @param <T>        type of published items
+     * @return the concatenating {@link CompletionPublisher}
+     */
+    static <T> CompletionPublisher<T> concat(final Iterable<? extends Flow.Publisher<? extends T>> publishers) {
+        return merge(publishers, 1);
+    }
 }
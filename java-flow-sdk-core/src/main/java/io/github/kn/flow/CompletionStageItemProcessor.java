@@ -3,15 +3,19 @@ package io.github.kn.flow;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
+import java.util.function.ToIntFunction;
 
 /**
  * An Async processor of items.
@@ -34,48 +38,84 @@ public interface CompletionStageItemProcessor<T, R> {
      */
     static <V, W> CompletionStageItemProcessor<Optionals<V>, Optionals<W>> aggregateProcessor
     (final CompletionStageItemProcessor<V, W> processor) {
-        return new CompletionStageItemProcessor<>() {
-            @Override
-            public CompletionStage<Void> prepare() {
-                return processor.prepare();
-            }
-
-            private void logException(final CompletableFuture<W> future) {
-                future.whenComplete((r, t) -> Optional.of(t)
-                        .ifPresent(e -> LOG.error("aggregate processing exception", t)));
-            }
+        return aggregateProcessor(processor, Integer.MAX_VALUE);
+    }
 
-            @Override
-            public CompletionStage<Optionals<W>> onNext(final Optionals<V> items) {
-                List<CompletableFuture<W>> futures = items.stream()
-                        .map(processor::onNext)
-                        .map(CompletionStage::toCompletableFuture).collect(Collectors.toList());
-                CompletableFuture<Optionals<W>> result = new CompletableFuture<>();
-                CompletableFuture.allOf(futures
-                        .toArray(CompletableFuture[]::new))
-                        .whenComplete((r, e) ->
-                                result.complete(
-                                        items.replace(
-                                                futures.stream()
-                                                        .peek(this::logException)
-                                                        .map(s -> s.isDone() && !s.isCompletedExceptionally()
-                                                                ? s.getNow(null)
-                                                                : null).collect(Collectors.toList())
-                                        )));
-                return result;
-            }
-        };
+    /**
+     * Returns a new "Aggregate" CompletionStageItemProcessor wrapping the passed processor, processing no more than
+     * {@code maxParallelism} entries of an aggregate input at any given time.
+     * <p>The entries are processed in their iteration order, each entry result being written into the aggregate
+     * result at the entry's index. Entries whose processing completes exceptionally are empty in the aggregate result.
+     *
+     * @param processor      input to result mapper
+     * @param maxParallelism maximum number of entries of an aggregate input processed at any given time
+     * @param <V>            type of aggregate processing input
+     * @param <W>            type of aggregate processing result
+     * @return the new "Aggregate" {@link CompletionStageItemProcessor}
+     * @see #aggregateProcessor(CompletionStageItemProcessor)
+     */
+    static <V, W> CompletionStageItemProcessor<Optionals<V>, Optionals<W>> aggregateProcessor
+    (final CompletionStageItemProcessor<V, W> processor, final int maxParallelism) {
+        return new AggregateItemProcessor<>(processor, maxParallelism);
     }
 
     /**
      * Returns a new CompletionStageItemProcessor which is already completed.
+     * <p>Functions subsequently applied to the returned processor (see {@link #apply(BiFunction)}) are fused into a
+     * single synchronous stage.
      *
      * @param <V> type of processing input and output
      * @return Completed {@link CompletionStageItemProcessor}
      * @see CompletableFuture#completedStage(Object)
      */
     static <V> CompletionStageItemProcessor<V, V> completedProcessor() {
-        return CompletableFuture::completedStage;
+        return FusedItemProcessor.identity();
+    }
+
+    /**
+     * Returns a new CompletionStageItemProcessor collecting the items of (concurrent) {@code onNext} calls into
+     * batches, each of which is processed by a single call to the passed batch processor.
+     * <p>A batch is processed once it holds {@code maxItems} items, or once {@code maxLinger} elapses after its first
+     * item is collected, whichever happens first.
+     * <p>The batch processor must complete with one result entry per batched item, in the order of the batched items.
+     * Each {@code onNext} call completes with its own entry of the batch result, or exceptionally if the batch
+     * processing completes exceptionally.
+     *
+     * @param maxItems       maximum number of items in a batch
+     * @param maxLinger      maximum duration a batch waits for more items before being processed
+     * @param batchProcessor processor of the batched items
+     * @param <V>            type of processing input
+     * @param <W>            type of processing result
+     * @return the new batching {@link CompletionStageItemProcessor}
+     */
+    static <V, W> CompletionStageItemProcessor<V, W> batching(final int maxItems, final Duration maxLinger,
+                                                              final CompletionStageItemProcessor<List<V>, List<W>>
+                                                                      batchProcessor) {
+        return new BatchingItemProcessor<>(maxItems, maxLinger, batchProcessor);
+    }
+
+    /**
+     * Returns a {@link CompletionStageItemProcessor} collecting the items of (concurrent) {@code onNext} calls into
+     * batches bounded by weight as well as by number of items, as per
+     * {@link #batching(int, Duration, CompletionStageItemProcessor)}.
+     * <p>A batch is also processed once its items weigh {@code maxWeight}, and ahead of an item which would make it
+     * heavier, the item starting the next batch. An item heavier than {@code maxWeight} is batched on its own.
+     *
+     * @param maxItems       maximum number of items in a batch
+     * @param maxWeight      maximum weight of the items in a batch, e.g. their number of bytes
+     * @param weigher        weight of an item
+     * @param maxLinger      maximum duration a batch waits for more items before being processed
+     * @param batchProcessor processor of the batched items
+     * @param <V>            type of processing input
+     * @param <W>            type of processing result
+     * @return the new batching {@link CompletionStageItemProcessor}
+     */
+    static <V, W> CompletionStageItemProcessor<V, W> batching(final int maxItems, final long maxWeight,
+                                                              final ToIntFunction<? super V> weigher,
+                                                              final Duration maxLinger,
+                                                              final CompletionStageItemProcessor<List<V>, List<W>>
+                                                                      batchProcessor) {
+        return new BatchingItemProcessor<>(maxItems, maxWeight, weigher, maxLinger, batchProcessor);
     }
 
     /**
@@ -115,6 +155,8 @@ public interface CompletionStageItemProcessor<T, R> {
      * Returns a new CompletionStageItemProcessor that, when this processor completes normally, completes with this
      * processors's input and result as the arguments to the supplied Bifunction.
      * See the CompletionStage documentation for rules covering exceptional completion.
+     * <p>Runs of applied functions are fused into a single stage, invoking the functions directly one after the
+     * other, rather than creating a {@link CompletionStage} per applied function.
      *
      * @param function the function to use to compute the result of the returned CompletionStageItemProcessor
      * @param <V>      the function's return type
@@ -122,6 +164,22 @@ public interface CompletionStageItemProcessor<T, R> {
      * @see CompletionStage#thenApply(Function)
      */
     default <V> CompletionStageItemProcessor<T, V> apply(final BiFunction<? super T, ? super R, ? extends V> function) {
+        return FusedItemProcessor.fuse(this, function);
+    }
+
+    /**
+     * Returns a new CompletionStageItemProcessor that is completed with the result of this processor, unless this
+     * processor does not complete within the passed timeout.
+     * <p>When the timeout elapses first, the returned processor completes exceptionally with an
+     * {@link IllegalArgumentException} caused by a {@link TimeoutException}, and this processor's outstanding
+     * {@link CompletionStage} is cancelled.
+     *
+     * @param timeout maximum duration of the processing of an item
+     * @return the new CompletionStageItemProcessor
+     * @see CompletableFuture#orTimeout(long, TimeUnit)
+     */
+    default CompletionStageItemProcessor<T, R> withTimeout(final Duration timeout) {
+        final long timeoutNanos = timeout.toNanos();
         return new CompletionStageItemProcessor<>() {
             @Override
             public CompletionStage<Void> prepare() {
@@ -129,12 +187,97 @@ public interface CompletionStageItemProcessor<T, R> {
             }
 
             @Override
-            public CompletionStage<V> onNext(T item) {
-                return CompletionStageItemProcessor.this.onNext(item).thenApply(r -> function.apply(item, r));
+            public CompletionStage<R> onNext(T item) {
+                CompletableFuture<R> stage = CompletionStageItemProcessor.this.onNext(item).toCompletableFuture();
+                return stage.copy().orTimeout(timeoutNanos, TimeUnit.NANOSECONDS).exceptionally(t -> {
+                    if (t instanceof TimeoutException) {
+                        stage.cancel(true);
+                        throw new IllegalArgumentException("Processing timed out after " + timeout + " for item :"
+                                + item, t);
+                    }
+                    throw t instanceof CompletionException ? (CompletionException) t : new CompletionException(t);
+                });
             }
         };
     }
 
+    /**
+     * Returns a new CompletionStageItemProcessor issuing duplicate (hedge) calls to this processor, whenever the
+     * processing of an item does not complete within the delay decided by the passed policy. This processor must
+     * therefore be idempotent.
+     * <p>Up to {@code maxHedges} hedge calls are issued per item, each one delay after the previous call.
+     * The returned processor completes with the result of whichever call completes normally first, cancelling the
+     * remaining outstanding calls' {@link CompletionStage}s. It completes exceptionally only if all the issued calls
+     * complete exceptionally.
+     *
+     * @param delayPolicy decides the delay before each hedge call
+     * @param maxHedges   maximum number of hedge calls issued per item
+     * @return the new CompletionStageItemProcessor
+     * @see HedgeDelayPolicy
+     */
+    default CompletionStageItemProcessor<T, R> hedged(final HedgeDelayPolicy delayPolicy, final int maxHedges) {
+        return new HedgingItemProcessor<>(this, delayPolicy, maxHedges);
+    }
+
+    /**
+     * Returns a new CompletionStageItemProcessor invoking this processor at a sustained rate of at most
+     * {@code permitsPerSecond} items per second, allowing bursts of up to {@code burst} items.
+     * <p>Items exceeding the rate are passed to this processor after a delay, awaited on a shared timer. The calling
+     * thread is never blocked.
+     *
+     * @param permitsPerSecond sustained rate of items per second
+     * @param burst            maximum number of items passed to this processor without delay
+     * @return the new CompletionStageItemProcessor
+     */
+    default CompletionStageItemProcessor<T, R> rateLimited(final double permitsPerSecond, final int burst) {
+        return new RateLimitedItemProcessor<>(this, permitsPerSecond, burst);
+    }
+
+    /**
+     * Returns a new CompletionStageItemProcessor recording the processing of this processor into the
+     * {@link StageMetrics} registered under the passed name: started, succeeded, failed and in-flight items, and a
+     * histogram of processing latencies.
+     * <p>Instrumenting every stage of a composed pipeline, under distinct names into the same registry, gives a
+     * per-stage breakdown of the pipeline. Recording is lock-free and cheap enough to remain enabled under load.
+     *
+     * @param name     name of the stage
+     * @param registry registry of the stage's metrics
+     * @return the new CompletionStageItemProcessor
+     */
+    default CompletionStageItemProcessor<T, R> instrumented(final String name, final StageMetricsRegistry registry) {
+        return new InstrumentedItemProcessor<>(this, registry.stage(name));
+    }
+
+    /**
+     * Returns a new CompletionStageItemProcessor caching this processor's (non-null) results by the item keys
+     * computed by the passed function, as per the passed {@link CacheSpec}.
+     * <p>Concurrent calls for the same key share one in-flight processing call of this processor, instead of each
+     * calling this processor. Exceptional results are shared by the in-flight callers, but are never cached.
+     *
+     * @param keyFunction computes the cache key of an item
+     * @param cacheSpec   specification of the cache
+     * @param <K>         type of cache key
+     * @return the new CompletionStageItemProcessor
+     */
+    default <K> CompletionStageItemProcessor<T, R> cached(final Function<? super T, ? extends K> keyFunction,
+                                                          final CacheSpec cacheSpec) {
+        return new CachedItemProcessor<>(this, keyFunction, cacheSpec);
+    }
+
+    /**
+     * Returns a new CompletionStageItemProcessor invoking this processor for items having the same key (computed by
+     * the passed function) strictly one after another, in the order they are passed to the returned processor.
+     * <p>An item is passed to this processor only once the processing of the previous item with the same key
+     * completes, normally or exceptionally. Items having different keys are processed concurrently.
+     *
+     * @param keyFunction computes the ordering key of an item
+     * @param <K>         type of ordering key
+     * @return the new CompletionStageItemProcessor
+     */
+    default <K> CompletionStageItemProcessor<T, R> keyOrdered(final Function<? super T, ? extends K> keyFunction) {
+        return new KeyOrderedItemProcessor<>(this, keyFunction);
+    }
+
     /**
      * Returns a new CompletionStageItemProcessor that is completed with the result of this
      * CompletionStageItemProcessor And is prepared when this and the passed processor's preparation completes normally.
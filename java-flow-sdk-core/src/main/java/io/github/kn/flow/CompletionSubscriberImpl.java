@@ -4,6 +4,7 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.util.Optional;
+import java.util.OptionalDouble;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -12,10 +13,15 @@ import java.util.concurrent.atomic.AtomicInteger;
  * concurrency limits while delegating subscribed items to
  * {@link CompletionStageItemProcessor}. <br>
  * concurrency limit/maxConcurrency - maximum number of items that can have their processing
- * outstanding at any given time. <br>
- * backpressuresize/chunkSize - number of items demanded in one batch from
+ * outstanding at any given time, either fixed or adapted at runtime by a {@link ConcurrencyLimit}. Demanded plus
+ * outstanding items are kept within the current limit (but for rounding up to a chunk), demand being replenished as
+ * item processing completes, so that a lowered limit lowers the number of items in flight. <br>
+ * backpressuresize/chunkSize - minimum number of items demanded in one batch from
  * upstream publisher once an item processing is complete. (i.e. input parameter
- * of {@link java.util.concurrent.Flow.Subscription#request(long)}).
+ * of {@link java.util.concurrent.Flow.Subscription#request(long)}). <br>
+ * low watermark - alternatively to demanding a chunk per processed item, the number of demanded plus outstanding
+ * items below which demand is replenished, in a single request, back up to the concurrency limit (the high
+ * watermark).
  */
 public class CompletionSubscriberImpl<T> implements CompletionSubscriber<T> {
 
@@ -25,8 +31,12 @@ public class CompletionSubscriberImpl<T> implements CompletionSubscriber<T> {
 	private final CompletionStageItemProcessor<T, Void> itemProcessor;
 	private final AtomicInteger outstandingAsyncRequests = new AtomicInteger(0);
 	private final AtomicBoolean moreItems = new AtomicBoolean(false);
+	private final AtomicBoolean completed = new AtomicBoolean(false);
+	// demanded plus outstanding items
+	private final AtomicInteger demand = new AtomicInteger(0);
 	private final int backPressureSize;
-	private final int maxProcessingConcurrency;
+	private final ConcurrencyLimit concurrencyLimit;
+	private final OptionalDouble lowWatermarkRatio;
 	private volatile CompletionSubscription subscription;
 
 	/**
@@ -38,9 +48,20 @@ public class CompletionSubscriberImpl<T> implements CompletionSubscriber<T> {
 
 	CompletionSubscriberImpl(final CompletionStageItemProcessor<T, Void> processor, final int maxConcurrency,
 			final int chunkSize) {
+		this(processor, ConcurrencyLimit.fixed(maxConcurrency), chunkSize);
+	}
+
+	CompletionSubscriberImpl(final CompletionStageItemProcessor<T, Void> processor, final ConcurrencyLimit limit,
+			final int chunkSize) {
+		this(processor, limit, chunkSize, OptionalDouble.empty());
+	}
+
+	private CompletionSubscriberImpl(final CompletionStageItemProcessor<T, Void> processor,
+			final ConcurrencyLimit limit, final int chunkSize, final OptionalDouble lowWatermark) {
 		this.itemProcessor = processor;
-		this.maxProcessingConcurrency = maxConcurrency;
+		this.concurrencyLimit = limit;
 		this.backPressureSize = chunkSize;
+		this.lowWatermarkRatio = lowWatermark;
 	}
 
 	/**
@@ -55,37 +76,98 @@ public class CompletionSubscriberImpl<T> implements CompletionSubscriber<T> {
 		return new CompletionSubscriberImpl<>(processor, maxConcurrency, chunkSize);
 	}
 
+	/**
+	 * @param processor
+	 * @param concurrencyLimit decides the maximum number of items processed concurrently, e.g.
+	 *                         {@link ConcurrencyLimit#aimd(int, int, java.time.Duration)} to adapt it at runtime.
+	 * @param chunkSize
+	 * @param <T>
+	 * @return
+	 */
+	public static <T> CompletionSubscriberImpl<T> wrap(final CompletionStageItemProcessor<T, Void> processor,
+			final ConcurrencyLimit concurrencyLimit, final int chunkSize) {
+		return new CompletionSubscriberImpl<>(processor, concurrencyLimit, chunkSize);
+	}
+
+	/**
+	 * Wraps the passed processor, replenishing demand in batches instead of per processed item. Once the number of
+	 * demanded plus outstanding items drops to the low watermark (the passed ratio of the concurrency limit), enough
+	 * items are requested in a single {@link CompletionSubscription#request(long)} call to get back to the
+	 * concurrency limit.
+	 *
+	 * @param processor
+	 * @param concurrencyLimit  decides the maximum number of items demanded or processed concurrently
+	 * @param lowWatermarkRatio ratio of the concurrency limit at which demand is replenished, in the range [0, 1)
+	 * @param <T>
+	 * @return
+	 */
+	public static <T> CompletionSubscriberImpl<T> watermarked(final CompletionStageItemProcessor<T, Void> processor,
+			final ConcurrencyLimit concurrencyLimit, final double lowWatermarkRatio) {
+		if (lowWatermarkRatio < 0 || lowWatermarkRatio >= 1) {
+			throw new IllegalArgumentException("lowWatermarkRatio must be in range [0, 1) :" + lowWatermarkRatio);
+		}
+		return new CompletionSubscriberImpl<>(processor, concurrencyLimit, BACK_PRESSURE_CHUNK_SIZE,
+				OptionalDouble.of(lowWatermarkRatio));
+	}
+
 	@Override
 	public void onSubscribe(final CompletionSubscription subs) {
 		subscription = subs;
 		outstandingAsyncRequests.set(0);
+		demand.set(0);
+		completed.set(false);
 		moreItems.set(true);
-		this.itemProcessor.prepare().thenRun(() -> this.subscription.request(backPressureSize))
-				.exceptionally(this::handleException);
+		this.itemProcessor.prepare().thenRun(this::requestMore).exceptionally(this::handleException);
 	}
 
 	@Override
 	public void onNext(final T item) {
 		LOG.trace("onNext invoked for item {} for: {}", item, itemProcessor);
-		boolean requestMoreConcurrently = outstandingAsyncRequests.incrementAndGet() <= maxProcessingConcurrency;
-		this.itemProcessor.onNext(item).exceptionally(this::handleException).whenComplete((r, t) -> {
+		final long start = System.nanoTime();
+		final int inFlight = outstandingAsyncRequests.incrementAndGet();
+		this.itemProcessor.onNext(item)
+				.whenComplete((r, t) -> concurrencyLimit.onSample(System.nanoTime() - start, inFlight, t != null))
+				.exceptionally(this::handleException).whenComplete((r, t) -> {
 			Optional.ofNullable(t).ifPresent(e -> LOG.error("Exception processing item" + item, e));
-			requestMoreOrCompleteSubscription(outstandingAsyncRequests.decrementAndGet(), moreItems.get(),
-					!requestMoreConcurrently);
+			demand.decrementAndGet();
+			requestMoreOrCompleteSubscription(outstandingAsyncRequests.decrementAndGet(), moreItems.get(), true);
 		});
-		requestMoreOrCompleteSubscription(outstandingAsyncRequests.get(), moreItems.get(), requestMoreConcurrently);
 	}
 
 	private void requestMoreOrCompleteSubscription(final int numOutstandingRequests, final boolean hasMoreItems,
 			final boolean requestMore) {
 		if (numOutstandingRequests <= 0 && !hasMoreItems) {
-			LOG.trace("No more items to publish for:{}", itemProcessor);
-			this.subscription.onComplete();
+			if (completed.compareAndSet(false, true)) {
+				LOG.trace("No more items to publish for:{}", itemProcessor);
+				this.subscription.onComplete();
+			}
 		} else if (requestMore) {
-			this.subscription.request(backPressureSize);
+			requestMore();
 		}
 	}
 
+	/**
+	 * Tops up the demanded plus outstanding items to the concurrency limit (the high watermark) once they drop to the
+	 * low watermark, or below the limit (by at least a chunk) if not watermarked. The CAS ensures concurrent
+	 * completions do not request the same items twice.
+	 */
+	private void requestMore() {
+		int highWatermark = concurrencyLimit.getLimit();
+		int lowWatermark = lowWatermarkRatio.isPresent() ? (int) (highWatermark * lowWatermarkRatio.getAsDouble())
+				: highWatermark - 1;
+		int current;
+		int requested;
+		do {
+			current = demand.get();
+			if (current > lowWatermark || current >= highWatermark) {
+				return;
+			}
+			requested = lowWatermarkRatio.isPresent() ? highWatermark - current
+					: Math.max(highWatermark - current, backPressureSize);
+		} while (!demand.compareAndSet(current, current + requested));
+		this.subscription.request(requested);
+	}
+
 	private Void handleException(final Throwable throwable) {
 		Optional.ofNullable(throwable).ifPresent(t -> {
 			if (t instanceof IllegalArgumentException || t.getCause() instanceof IllegalArgumentException) {
@@ -100,13 +182,16 @@ public class CompletionSubscriberImpl<T> implements CompletionSubscriber<T> {
 
 	@Override
 	public void onError(final Throwable throwable) {
-		requestMoreOrCompleteSubscription(outstandingAsyncRequests.get(), !moreItems.compareAndSet(true, false), false);
+		moreItems.set(false);
+		requestMoreOrCompleteSubscription(outstandingAsyncRequests.get(), false, false);
 		LOG.error("onError invoked for:" + this.itemProcessor, throwable);
 	}
 
 	@Override
 	public void onComplete() {
-		requestMoreOrCompleteSubscription(outstandingAsyncRequests.get(), !moreItems.compareAndSet(true, false), false);
+		// cleared before reading the outstanding count, so either this or the last item completion sees both
+		moreItems.set(false);
+		requestMoreOrCompleteSubscription(outstandingAsyncRequests.get(), false, false);
 		LOG.info("onComplete invoked for:{}", this.itemProcessor);
 	}
 }
\ No newline at end of file
@@ -0,0 +1,54 @@
+package io.github.kn.flow;
+
+import java.time.Duration;
+
+/**
+ * Decides the maximum number of items a {@link CompletionSubscriberImpl} keeps processing concurrently.
+ * <br>
+ * Implementations may adapt the limit at runtime to the processing outcomes recorded via
+ * {@link #onSample(long, int, boolean)}, which is invoked once the processing of every item completes.
+ *
+ * @see CompletionSubscriberImpl#wrap(CompletionStageItemProcessor, ConcurrencyLimit, int)
+ */
+public interface ConcurrencyLimit {
+
+    /**
+     * Returns a fixed concurrency limit.
+     *
+     * @param limit the concurrency limit
+     * @return the new {@link ConcurrencyLimit}
+     */
+    static ConcurrencyLimit fixed(final int limit) {
+        return () -> limit;
+    }
+
+    /**
+     * Returns a concurrency limit adapting to processing outcomes by additive increase / multiplicative decrease
+     * (AIMD). The limit grows by one for every normally completed item processed within the latency threshold while
+     * at least half the limit is in use, and shrinks by 10% whenever an item's processing completes exceptionally or
+     * exceeds the latency threshold.
+     *
+     * @param initialLimit     concurrency limit to start with
+     * @param maxLimit         upper bound of the concurrency limit
+     * @param latencyThreshold processing latency beyond which an item counts as a sign of overload
+     * @return the new {@link ConcurrencyLimit}
+     */
+    static ConcurrencyLimit aimd(final int initialLimit, final int maxLimit, final Duration latencyThreshold) {
+        return new AimdConcurrencyLimit(initialLimit, maxLimit, latencyThreshold.toNanos());
+    }
+
+    /**
+     * @return the current concurrency limit.
+     */
+    int getLimit();
+
+    /**
+     * Invoked once the processing of an item completes.
+     *
+     * @param latencyNanos processing latency in nanoseconds
+     * @param inFlight     number of items being processed when this item's processing started (including it)
+     * @param dropped      true if the processing completed exceptionally
+     */
+    default void onSample(final long latencyNanos, final int inFlight, final boolean dropped) {
+    }
+}
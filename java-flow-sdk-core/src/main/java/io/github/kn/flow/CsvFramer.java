@@ -0,0 +1,126 @@
+package io.github.kn.flow;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Frames RFC 4180 CSV bytes into records of fields, in a single pass over the bytes: fields are accumulated as bytes
+ * (quotes unescaped on the way) and only decoded once complete, one String per field.
+ * <br>
+ * Scanning bytes for the delimiter, quote and line break bytes is sound for the charsets supported by
+ * {@link LineFramer}, as these bytes never occur within the encoding of another character. Characters following
+ * the closing quote of a field are kept as part of the field.
+ */
+final class CsvFramer implements RecordFramer<List<String>> {
+
+    private static final int INITIAL_FIELD_CAPACITY = 64;
+    private final Charset charset;
+    private final byte delimiter;
+    private final byte quote;
+    private final byte lineFeed;
+    private final byte carriageReturn;
+    private List<String> fields = new ArrayList<>();
+    private byte[] field = new byte[INITIAL_FIELD_CAPACITY];
+    private int fieldLength;
+    private boolean recordStarted;
+    private boolean quoted;
+    private boolean quotePending;
+    private boolean skipLineFeed;
+
+    CsvFramer(final Charset cSet, final char fieldDelimiter) {
+        if (!LineFramer.supports(cSet)) {
+            throw new IllegalArgumentException("Records of charset " + cSet + " can not be framed as bytes");
+        }
+        byte[] delimiterBytes = String.valueOf(fieldDelimiter).getBytes(cSet);
+        if (delimiterBytes.length != 1 || fieldDelimiter == '"' || fieldDelimiter == '\n' || fieldDelimiter == '\r') {
+            throw new IllegalArgumentException("Invalid field delimiter :" + fieldDelimiter);
+        }
+        this.charset = cSet;
+        this.delimiter = delimiterBytes[0];
+        this.quote = "\"".getBytes(cSet)[0];
+        this.lineFeed = "\n".getBytes(cSet)[0];
+        this.carriageReturn = "\r".getBytes(cSet)[0];
+    }
+
+    @Override
+    public void frame(final ByteBuffer buffer, final Consumer<? super List<String>> records) {
+        for (int index = buffer.position(); index < buffer.limit(); index++) {
+            byte b = buffer.get(index);
+            if (skipLineFeed) {
+                skipLineFeed = false;
+                if (b == lineFeed) {
+                    continue;
+                }
+            }
+            if (quoted) {
+                if (quotePending) {
+                    quotePending = false;
+                    if (b == quote) {
+                        append(b);
+                        continue;
+                    }
+                    quoted = false;
+                } else {
+                    if (b == quote) {
+                        quotePending = true;
+                    } else {
+                        append(b);
+                    }
+                    continue;
+                }
+            }
+            if (b == delimiter) {
+                endField();
+                recordStarted = true;
+            } else if (b == lineFeed || b == carriageReturn) {
+                endRecord(records);
+                skipLineFeed = b == carriageReturn;
+            } else if (b == quote && fieldLength == 0) {
+                quoted = true;
+                recordStarted = true;
+            } else {
+                append(b);
+                recordStarted = true;
+            }
+        }
+    }
+
+    @Override
+    public void finish(final Consumer<? super List<String>> records) {
+        skipLineFeed = false;
+        if (quoted && !quotePending) {
+            quoted = false;
+            throw new IllegalArgumentException("Unterminated quoted field in record :" + fields);
+        }
+        quoted = false;
+        quotePending = false;
+        endRecord(records);
+    }
+
+    private void append(final byte b) {
+        if (fieldLength == field.length) {
+            field = Arrays.copyOf(field, field.length * 2);
+        }
+        field[fieldLength++] = b;
+    }
+
+    private void endField() {
+        fields.add(new String(field, 0, fieldLength, charset));
+        fieldLength = 0;
+    }
+
+    private void endRecord(final Consumer<? super List<String>> records) {
+        if (!recordStarted) {
+            return;
+        }
+        endField();
+        List<String> record = fields;
+        fields = new ArrayList<>(record.size());
+        recordStarted = false;
+        records.accept(record);
+    }
+}
@@ -0,0 +1,184 @@
+package io.github.kn.flow;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * A bounded cache with frequency-aware eviction and expiry after write.
+ * <br>
+ * Reads are lock-free, recording the accessed key in a count-min frequency sketch. Writes are serialized; once the
+ * cache is full, a written entry replaces the oldest cached entry only if its key is estimated to be accessed more
+ * frequently than the oldest entry's key (TinyLFU admission), else it is not cached at all. This keeps one-off keys
+ * from flushing frequently accessed entries out of the cache.
+ */
+final class FrequencyAwareCache<K, V> {
+
+    private final long maximumSize;
+    private final long expireAfterWriteNanos;
+    private final ConcurrentHashMap<K, Entry<K, V>> entries = new ConcurrentHashMap<>();
+    private final Deque<Entry<K, V>> writeOrder = new ArrayDeque<>();
+    private final FrequencySketch sketch;
+
+    FrequencyAwareCache(final CacheSpec spec) {
+        this.maximumSize = spec.getMaximumSize();
+        this.expireAfterWriteNanos = spec.getExpireAfterWrite().map(Duration::toNanos).orElse(Long.MAX_VALUE);
+        this.sketch = new FrequencySketch(maximumSize);
+    }
+
+    /**
+     * @param key cache key
+     * @return the cached value, or null if absent or expired.
+     */
+    V get(final K key) {
+        sketch.increment(key);
+        Entry<K, V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (isExpired(entry, System.nanoTime())) {
+            entries.remove(key, entry);
+            return null;
+        }
+        return entry.value;
+    }
+
+    /**
+     * Caches the passed value, subject to admission once the cache is full.
+     *
+     * @param key   cache key
+     * @param value value to cache
+     * @return true if the value was cached.
+     */
+    synchronized boolean put(final K key, final V value) {
+        long now = System.nanoTime();
+        Entry<K, V> entry = new Entry<>(key, value, now);
+        if (entries.containsKey(key) || entries.size() < maximumSize || evict(key, now)) {
+            entries.put(key, entry);
+            writeOrder.addLast(entry);
+            trimWriteOrder();
+            return true;
+        }
+        return false;
+    }
+
+    long size() {
+        return entries.size();
+    }
+
+    private boolean isExpired(final Entry<K, V> entry, final long now) {
+        return now - entry.writeNanos >= expireAfterWriteNanos;
+    }
+
+    private boolean isCurrent(final Entry<K, V> entry) {
+        return entries.get(entry.key) == entry;
+    }
+
+    /**
+     * Evicts the oldest current entry for the passed candidate key, unless the oldest entry is accessed at least as
+     * frequently as the candidate.
+     */
+    private boolean evict(final K candidate, final long now) {
+        Entry<K, V> victim;
+        while ((victim = writeOrder.pollFirst()) != null) {
+            if (!isCurrent(victim)) {
+                continue;
+            }
+            if (!isExpired(victim, now) && sketch.frequency(victim.key) >= sketch.frequency(candidate)) {
+                writeOrder.addFirst(victim);
+                return false;
+            }
+            entries.remove(victim.key, victim);
+            return true;
+        }
+        return maximumSize > 0;
+    }
+
+    /**
+     * Drops superseded entries (overwritten, expired or evicted keys) from the write order.
+     */
+    private void trimWriteOrder() {
+        if (writeOrder.size() > 2 * Math.max(maximumSize, entries.size())) {
+            writeOrder.removeIf(e -> !isCurrent(e));
+        }
+    }
+
+    private static final class Entry<K, V> {
+        private final K key;
+        private final V value;
+        private final long writeNanos;
+
+        private Entry(final K k, final V v, final long nanos) {
+            this.key = k;
+            this.value = v;
+            this.writeNanos = nanos;
+        }
+    }
+
+    /**
+     * A count-min sketch of saturating (at 15) counters, estimating key access frequencies.
+     * Counters are halved once the number of recorded accesses reaches ten times the cache size, so that the
+     * estimates favour recent accesses.
+     */
+    static final class FrequencySketch {
+        private static final long[] SEEDS = {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL,
+                0xcbf29ce484222325L};
+        private static final int MAX_FREQUENCY = 15;
+        private final AtomicIntegerArray counters;
+        private final int mask;
+        private final int sampleSize;
+        private final AtomicInteger additions = new AtomicInteger();
+
+        FrequencySketch(final long expectedSize) {
+            int size = Integer.highestOneBit((int) Math.min(Math.max(expectedSize, 16), 1 << 24) * 4);
+            this.counters = new AtomicIntegerArray(size);
+            this.mask = size - 1;
+            this.sampleSize = (int) Math.min(Math.max(expectedSize, 16) * 10, Integer.MAX_VALUE);
+        }
+
+        void increment(final Object key) {
+            int hash = spread(key.hashCode());
+            for (int i = 0; i < SEEDS.length; i++) {
+                int index = indexOf(hash, i);
+                int count;
+                while ((count = counters.get(index)) < MAX_FREQUENCY && !counters
+                        .compareAndSet(index, count, count + 1)) {
+                    // retry lost increment
+                }
+            }
+            if (additions.incrementAndGet() == sampleSize) {
+                reset();
+            }
+        }
+
+        int frequency(final Object key) {
+            int hash = spread(key.hashCode());
+            int frequency = MAX_FREQUENCY;
+            for (int i = 0; i < SEEDS.length; i++) {
+                frequency = Math.min(frequency, counters.get(indexOf(hash, i)));
+            }
+            return frequency;
+        }
+
+        private void reset() {
+            for (int i = 0; i < counters.length(); i++) {
+                counters.set(i, counters.get(i) >>> 1);
+            }
+            additions.addAndGet(-sampleSize / 2);
+        }
+
+        private int indexOf(final int hash, final int i) {
+            long h = (hash + SEEDS[i]) * SEEDS[i];
+            h += h >>> 32;
+            return (int) h & mask;
+        }
+
+        private static int spread(final int hash) {
+            int h = hash * 0x9e3779b9;
+            return h ^ (h >>> 16);
+        }
+    }
+}
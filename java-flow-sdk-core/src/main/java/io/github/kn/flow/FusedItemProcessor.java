@@ -0,0 +1,82 @@
+package io.github.kn.flow;
+
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.function.BiFunction;
+
+/**
+ * A {@link CompletionStageItemProcessor} fusing a run of synchronous stages
+ * ({@link CompletionStageItemProcessor#completedProcessor()}, {@link CompletionStageItemProcessor#apply(BiFunction)})
+ * into a single stage.
+ * <br>
+ * The fused functions are invoked directly one after the other, so that a single {@link CompletionStage} is created
+ * per processed item, instead of one per stage. The optional source processor is the (asynchronous) stage preceding
+ * the fused run of functions; when absent, the functions are applied to the processed item itself.
+ */
+final class FusedItemProcessor<T, S, R> implements CompletionStageItemProcessor<T, R> {
+
+    private final Optional<CompletionStageItemProcessor<T, S>> source;
+    private final BiFunction<? super T, ? super S, ? extends R> function;
+
+    private FusedItemProcessor(final Optional<CompletionStageItemProcessor<T, S>> src,
+                               final BiFunction<? super T, ? super S, ? extends R> func) {
+        this.source = src;
+        this.function = func;
+    }
+
+    /**
+     * @param <V> type of processing input and output
+     * @return a fused processor without source, completing with the processed item itself.
+     */
+    static <V> FusedItemProcessor<V, V, V> identity() {
+        return new FusedItemProcessor<>(Optional.empty(), (t, s) -> s);
+    }
+
+    /**
+     * Fuses the passed function into the passed processor if it is itself fused, else returns a new fused processor
+     * having the passed processor as its source.
+     *
+     * @param processor processor whose result the function is applied to
+     * @param function  function to fuse
+     * @param <T>       type of processing input
+     * @param <S>       processing result type of the passed processor
+     * @param <V>       the function's return type
+     * @return the fused processor
+     */
+    @SuppressWarnings("unchecked")
+    static <T, S, V> CompletionStageItemProcessor<T, V> fuse(final CompletionStageItemProcessor<T, S> processor,
+                                                            final BiFunction<? super T, ? super S, ? extends V>
+                                                                    function) {
+        Objects.requireNonNull(function);
+        if (processor instanceof FusedItemProcessor) {
+            return ((FusedItemProcessor<T, ?, S>) processor).andThen(function);
+        }
+        return new FusedItemProcessor<>(Optional.of(processor), function);
+    }
+
+    private <V> FusedItemProcessor<T, S, V> andThen(final BiFunction<? super T, ? super R, ? extends V> after) {
+        return new FusedItemProcessor<>(source, (t, s) -> after.apply(t, function.apply(t, s)));
+    }
+
+    @Override
+    public CompletionStage<Void> prepare() {
+        return source.map(CompletionStageItemProcessor::prepare).orElseGet(CompletableFuture::allOf);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public CompletionStage<R> onNext(final T item) {
+        if (source.isPresent()) {
+            return source.get().onNext(item).thenApply(r -> function.apply(item, r));
+        }
+        try {
+            return CompletableFuture.completedStage(function.apply(item, (S) item));
+        } catch (Throwable t) {
+            // mirror CompletionStage#thenApply exceptional completion
+            return CompletableFuture.failedStage(t instanceof CompletionException ? t : new CompletionException(t));
+        }
+    }
+}
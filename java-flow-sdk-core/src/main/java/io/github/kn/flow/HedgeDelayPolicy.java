@@ -0,0 +1,51 @@
+package io.github.kn.flow;
+
+import java.time.Duration;
+
+/**
+ * Decides how long a hedged {@link CompletionStageItemProcessor} waits for an outstanding processing call before
+ * issuing a duplicate (hedge) call.
+ * <br>
+ * Implementations may adapt the delay to the processing latencies recorded via {@link #record(long)}, which is
+ * invoked with the latency of every successfully completed hedged item.
+ *
+ * @see CompletionStageItemProcessor#hedged(HedgeDelayPolicy, int)
+ */
+public interface HedgeDelayPolicy {
+
+    /**
+     * Returns a policy with a fixed hedging delay.
+     *
+     * @param delay the hedging delay
+     * @return the new {@link HedgeDelayPolicy}
+     */
+    static HedgeDelayPolicy fixed(final Duration delay) {
+        final long delayNanos = delay.toNanos();
+        return () -> delayNanos;
+    }
+
+    /**
+     * Returns a policy whose hedging delay is the given percentile of the recently recorded processing latencies,
+     * e.g. 0.95 for the observed p95. The initial delay applies until enough latencies are recorded.
+     *
+     * @param percentile   latency percentile in the range (0, 1]
+     * @param initialDelay hedging delay applied until enough latencies are recorded
+     * @return the new {@link HedgeDelayPolicy}
+     */
+    static HedgeDelayPolicy percentile(final double percentile, final Duration initialDelay) {
+        return new LatencyPercentileHedgeDelayPolicy(percentile, initialDelay.toNanos());
+    }
+
+    /**
+     * @return the current hedging delay in nanoseconds.
+     */
+    long delayNanos();
+
+    /**
+     * Invoked with the latency of a successfully completed processing call.
+     *
+     * @param latencyNanos processing latency in nanoseconds
+     */
+    default void record(final long latencyNanos) {
+    }
+}
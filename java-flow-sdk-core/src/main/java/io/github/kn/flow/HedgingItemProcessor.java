@@ -0,0 +1,128 @@
+package io.github.kn.flow;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link CompletionStageItemProcessor} issuing duplicate (hedge) calls to the wrapped, idempotent, processor
+ * whenever an item's outstanding processing does not complete within the delay decided by a
+ * {@link HedgeDelayPolicy}.
+ * <br>
+ * Every item is completed with the result of whichever call completes successfully first, after which the remaining
+ * outstanding calls are cancelled. An item completes exceptionally only once all of its issued calls complete
+ * exceptionally. The latency recorded to the {@link HedgeDelayPolicy} is the item's, from its first call on, whichever
+ * call wins, so that winning hedges do not shrink the delay.
+ *
+ * @see CompletionStageItemProcessor#hedged(HedgeDelayPolicy, int)
+ */
+final class HedgingItemProcessor<T, R> implements CompletionStageItemProcessor<T, R> {
+
+    private static final Logger LOG = LogManager.getLogger("HedgingItemProcessor");
+    private final CompletionStageItemProcessor<T, R> processor;
+    private final HedgeDelayPolicy delayPolicy;
+    private final int maxHedges;
+
+    HedgingItemProcessor(final CompletionStageItemProcessor<T, R> itemProcessor, final HedgeDelayPolicy policy,
+                         final int hedges) {
+        if (hedges < 0) {
+            throw new IllegalArgumentException("maxHedges must not be negative :" + hedges);
+        }
+        this.processor = Objects.requireNonNull(itemProcessor);
+        this.delayPolicy = Objects.requireNonNull(policy);
+        this.maxHedges = hedges;
+    }
+
+    @Override
+    public CompletionStage<Void> prepare() {
+        return processor.prepare();
+    }
+
+    @Override
+    public CompletionStage<R> onNext(final T item) {
+        Hedge hedge = new Hedge(item);
+        hedge.attempt();
+        hedge.scheduleNext();
+        return hedge.result;
+    }
+
+    @Override
+    public String toString() {
+        return "Hedged(" + processor + ", " + delayPolicy + ")";
+    }
+
+    private final class Hedge {
+        private final T item;
+        private final long start = System.nanoTime();
+        private final CompletableFuture<R> result = new CompletableFuture<>();
+        private final List<CompletableFuture<R>> attempts = new ArrayList<>(1 + maxHedges);
+        private int outstandingAttempts;
+
+        private Hedge(final T hedgedItem) {
+            this.item = hedgedItem;
+            result.whenComplete((r, t) -> cancelOutstanding());
+        }
+
+        private void scheduleNext() {
+            boolean hedgesLeft;
+            synchronized (this) {
+                hedgesLeft = attempts.size() <= maxHedges;
+            }
+            if (hedgesLeft && !result.isDone()) {
+                CompletableFuture.delayedExecutor(delayPolicy.delayNanos(), TimeUnit.NANOSECONDS)
+                        .execute(this::hedge);
+            }
+        }
+
+        private void hedge() {
+            if (!result.isDone()) {
+                LOG.debug("Hedging item {}", item);
+                attempt();
+                scheduleNext();
+            }
+        }
+
+        private void attempt() {
+            CompletableFuture<R> attempt = start();
+            synchronized (this) {
+                attempts.add(attempt);
+                outstandingAttempts++;
+            }
+            if (result.isDone()) {
+                // lost the race with the completion of the item, cancelling outstanding attempts
+                attempt.cancel(true);
+            }
+            attempt.whenComplete((r, t) -> {
+                if (t == null) {
+                    if (result.complete(r)) {
+                        delayPolicy.record(System.nanoTime() - start);
+                    }
+                } else if (lastOutstanding()) {
+                    result.completeExceptionally(t);
+                }
+            });
+        }
+
+        private CompletableFuture<R> start() {
+            try {
+                return processor.onNext(item).toCompletableFuture();
+            } catch (Throwable t) {
+                return CompletableFuture.failedFuture(t);
+            }
+        }
+
+        private synchronized boolean lastOutstanding() {
+            return --outstandingAttempts == 0;
+        }
+
+        private synchronized void cancelOutstanding() {
+            attempts.stream().filter(a -> !a.isDone()).forEach(a -> a.cancel(true));
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package io.github.kn.flow;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Adapts a downstream {@link CompletionSubscriber} of bytes into a {@link CompletionSubscriber} of compressed bytes,
+ * inflating the bytes as they stream through, as per the downstream demand: inflated bytes are published in lists
+ * of up to {@link #MAX_CHUNK_BYTES} bytes, each inflated only once demanded, and one list of compressed buffers is
+ * requested from upstream at a time, once the compressed bytes received so far are all inflated.
+ * <br>
+ * Sits between a publisher of compressed bytes (an S3 object of a .gz key for instance) and a subscriber of bytes,
+ * such as a {@link ByteBufferToTextLineCompletionSubscriberAdapter} or a subscriber wrapping a
+ * {@link io.github.kn.flow.file.FileWritingItemProcessor}, so that bytes stay compressed in storage and transfer.
+ * Compressed bytes which fail to inflate error the downstream subscriber and cancel the upstream subscription.
+ *
+ * @see InflatingFramer
+ */
+public final class InflatingCompletionSubscriberAdapter {
+
+    /**
+     * Maximum number of inflated bytes published in a list, unless of a single buffer.
+     */
+    public static final int MAX_CHUNK_BYTES = 4 * InflatingFramer.OUTPUT_BUFFER_SIZE;
+
+    private InflatingCompletionSubscriberAdapter() {
+    }
+
+    /**
+     * @param delegate downstream subscriber of the inflated bytes
+     * @param format   compression format of the bytes
+     * @return the adapting subscriber of compressed bytes
+     */
+    public static CompletionSubscriber<List<ByteBuffer>> adapt(final CompletionSubscriber<List<ByteBuffer>> delegate,
+                                                               final Format format) {
+        return adapt(delegate, format, ByteBufferPool.heap());
+    }
+
+    /**
+     * @param delegate downstream subscriber of the inflated bytes, which may release every published buffer to the
+     *                 passed pool once done with it, as a {@link io.github.kn.flow.file.FileWritingItemProcessor} of
+     *                 the same pool does
+     * @param format   compression format of the bytes
+     * @param pool     pool of the buffers inflated into
+     * @return the adapting subscriber of compressed bytes
+     */
+    public static CompletionSubscriber<List<ByteBuffer>> adapt(final CompletionSubscriber<List<ByteBuffer>> delegate,
+                                                               final Format format, final ByteBufferPool pool) {
+        return new ByteBufferFramingCompletionSubscriberAdapter<>(delegate, new InflatingFramer(format, pool, MAX_CHUNK_BYTES),
+                Integer.MAX_VALUE, MAX_CHUNK_BYTES, ByteBuffer::remaining, Function.identity());
+    }
+
+    /**
+     * @param delegate downstream subscriber of the inflated bytes
+     * @return the adapting subscriber of gzip compressed bytes
+     */
+    public static CompletionSubscriber<List<ByteBuffer>> gzip(final CompletionSubscriber<List<ByteBuffer>> delegate) {
+        return adapt(delegate, Format.GZIP);
+    }
+
+    /**
+     * Compression formats of the bytes to inflate.
+     */
+    public enum Format {
+        /**
+         * gzip file format (RFC 1952), of one or more concatenated members.
+         */
+        GZIP,
+        /**
+         * zlib format (RFC 1950), i.e. HTTP "deflate" content encoding.
+         */
+        ZLIB,
+        /**
+         * raw deflate format (RFC 1951), with no header nor trailer.
+         */
+        DEFLATE
+    }
+}
@@ -0,0 +1,305 @@
+package io.github.kn.flow;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Frames compressed bytes into blocks of inflated bytes, streaming, into output buffers acquired from a
+ * {@link ByteBufferPool}. An output buffer is framed once full (or the bytes are all framed), whole, so that its
+ * consumer may release it to the pool.
+ * <br>
+ * Framed buffers of compressed bytes are held on to (see {@link #hasBuffered()}), and inflated up to the passed
+ * number of bytes at a time, by {@link #frameBuffered(Consumer)}, so that no more is inflated than demanded.
+ * <br>
+ * The gzip format (RFC 1952) is parsed here, header and trailer alike, the CRC-32 and size of every member checked,
+ * concatenated members inflated one after the other; the zlib (RFC 1950) and raw deflate (RFC 1951) formats are left
+ * to the {@link Inflater}. Inflaters are pooled across framers, taken on the first framed bytes and returned once the
+ * bytes are all framed, or fail to inflate. Not thread-safe.
+ */
+final class InflatingFramer implements RecordFramer<ByteBuffer> {
+
+    static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+    private static final int POOL_SIZE = 2 * Runtime.getRuntime().availableProcessors();
+    private static final BlockingQueue<Inflater> WRAPPED_INFLATERS = new ArrayBlockingQueue<>(POOL_SIZE);
+    private static final BlockingQueue<Inflater> RAW_INFLATERS = new ArrayBlockingQueue<>(POOL_SIZE);
+    private static final int GZIP_MAGIC = 0x8b1f;
+    private static final int GZIP_HEADER_SIZE = 10;
+    private static final int GZIP_TRAILER_SIZE = 8;
+    private static final int FHCRC = 2;
+    private static final int FEXTRA = 4;
+    private static final int FNAME = 8;
+    private static final int FCOMMENT = 16;
+
+    private final InflatingCompletionSubscriberAdapter.Format format;
+    private final ByteBufferPool pool;
+    private final long maxInflatedBytes;
+    private final Queue<ByteBuffer> input = new ArrayDeque<>();
+    private final CRC32 crc = new CRC32();
+    private final byte[] fixedBytes = new byte[GZIP_HEADER_SIZE];
+    private Inflater inflater;
+    private ByteBuffer output;
+    private State state;
+    private int fixedLength;
+    private int flags;
+    private int extraLength;
+    private long inflatedBytes;
+    private boolean outputPending;
+
+    /**
+     * @param maxBytes number of inflated bytes framed by {@link #frameBuffered(Consumer)}, at most (unless of a
+     *                 single output buffer)
+     */
+    InflatingFramer(final InflatingCompletionSubscriberAdapter.Format compression, final ByteBufferPool bufferPool,
+                    final long maxBytes) {
+        this.format = compression;
+        this.pool = bufferPool;
+        this.maxInflatedBytes = maxBytes;
+        this.state = compression == InflatingCompletionSubscriberAdapter.Format.GZIP ? State.HEADER : State.INFLATING;
+    }
+
+    @Override
+    public void frame(final ByteBuffer buffer, final Consumer<? super ByteBuffer> records) {
+        if (buffer.hasRemaining()) {
+            input.add(buffer.slice());
+        }
+    }
+
+    @Override
+    public boolean hasBuffered() {
+        return !input.isEmpty();
+    }
+
+    @Override
+    public void frameBuffered(final Consumer<? super ByteBuffer> records) {
+        if (input.isEmpty()) {
+            return;
+        }
+        if (inflater == null) {
+            inflater = acquire();
+        }
+        inflatedBytes = 0;
+        try {
+            ByteBuffer buffer;
+            while (inflatedBytes < maxInflatedBytes && (buffer = input.peek()) != null) {
+                int position = buffer.position();
+                int limit = buffer.limit();
+                switch (state) {
+                    case HEADER:
+                    case EXTRA:
+                    case NAME:
+                    case COMMENT:
+                    case HEADER_CRC:
+                        position = readHeader(buffer, position, limit);
+                        break;
+                    case INFLATING:
+                        position = inflate(buffer, records);
+                        break;
+                    case TRAILER:
+                        position = readTrailer(buffer, position, limit);
+                        break;
+                    default:
+                        if (format != InflatingCompletionSubscriberAdapter.Format.GZIP) {
+                            throw new IllegalArgumentException("Bytes following the end of the compressed stream");
+                        }
+                        inflater.reset();
+                        crc.reset();
+                        state = State.HEADER;
+                }
+                buffer.position(position);
+                // inflated bytes may be left over from the inflated buffer, so it is held on to until they are framed
+                if (!buffer.hasRemaining() && !outputPending) {
+                    input.poll();
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            input.clear();
+            release();
+            releaseOutput();
+            throw e;
+        }
+    }
+
+    @Override
+    public void finish(final Consumer<? super ByteBuffer> records) {
+        boolean truncated = (inflater != null && state != State.END) || !input.isEmpty();
+        input.clear();
+        release();
+        if (truncated || output == null || output.position() == 0) {
+            releaseOutput();
+        } else {
+            emit(records);
+        }
+        if (truncated) {
+            throw new IllegalArgumentException("Compressed bytes ended within the compressed stream, at " + state);
+        }
+    }
+
+    /**
+     * Inflates the bytes of the passed buffer, until framing the maximum number of bytes.
+     *
+     * @return position in the buffer of the first byte not inflated
+     */
+    private int inflate(final ByteBuffer buffer, final Consumer<? super ByteBuffer> records) {
+        int limit = buffer.limit();
+        inflater.setInput(buffer.slice());
+        try {
+            boolean filled = outputPending;
+            while (inflatedBytes < maxInflatedBytes && !inflater.finished() && (filled || !inflater.needsInput())) {
+                if (output == null) {
+                    output = pool.acquire(OUTPUT_BUFFER_SIZE);
+                }
+                int start = output.position();
+                int inflated = inflater.inflate(output);
+                if (inflated > 0 && format == InflatingCompletionSubscriberAdapter.Format.GZIP) {
+                    crc.update(output.slice(start, inflated));
+                }
+                filled = !output.hasRemaining();
+                if (filled) {
+                    emit(records);
+                } else if (inflated == 0 && inflater.needsDictionary()) {
+                    throw new IllegalArgumentException("Preset dictionary not supported");
+                }
+            }
+            outputPending = filled && !inflater.finished();
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Invalid compressed bytes", e);
+        }
+        if (!inflater.finished()) {
+            return limit - inflater.getRemaining();
+        }
+        state = format == InflatingCompletionSubscriberAdapter.Format.GZIP ? State.TRAILER : State.END;
+        fixedLength = 0;
+        return limit - inflater.getRemaining();
+    }
+
+    private void emit(final Consumer<? super ByteBuffer> records) {
+        ByteBuffer inflated = output.flip();
+        output = null;
+        inflatedBytes += inflated.remaining();
+        records.accept(inflated);
+    }
+
+    private void releaseOutput() {
+        if (output != null) {
+            pool.release(output);
+            output = null;
+        }
+    }
+
+    private int readHeader(final ByteBuffer buffer, final int from, final int limit) {
+        int position = from;
+        while (position < limit && state != State.INFLATING) {
+            byte b = buffer.get(position++);
+            switch (state) {
+                case HEADER:
+                    fixedBytes[fixedLength++] = b;
+                    if (fixedLength == GZIP_HEADER_SIZE) {
+                        checkHeader();
+                    }
+                    break;
+                case EXTRA:
+                    if (fixedLength < 2) {
+                        fixedBytes[fixedLength++] = b;
+                        if (fixedLength == 2) {
+                            extraLength = (fixedBytes[0] & 0xff) | (fixedBytes[1] & 0xff) << 8;
+                            nextHeaderField(FEXTRA, extraLength == 0);
+                        }
+                    } else {
+                        nextHeaderField(FEXTRA, --extraLength == 0);
+                    }
+                    break;
+                case NAME:
+                    nextHeaderField(FNAME, b == 0);
+                    break;
+                case COMMENT:
+                    nextHeaderField(FCOMMENT, b == 0);
+                    break;
+                default:
+                    nextHeaderField(FHCRC, ++fixedLength == 2);
+            }
+        }
+        return position;
+    }
+
+    private void checkHeader() {
+        if (((fixedBytes[0] & 0xff) | (fixedBytes[1] & 0xff) << 8) != GZIP_MAGIC || fixedBytes[2] != 8) {
+            throw new IllegalArgumentException("Not in gzip format");
+        }
+        flags = fixedBytes[3] & (FEXTRA | FNAME | FCOMMENT | FHCRC);
+        nextHeaderField(0, true);
+    }
+
+    /**
+     * Moves past the header field of the passed flag if done with it, to the next field present.
+     */
+    private void nextHeaderField(final int flag, final boolean done) {
+        if (!done) {
+            return;
+        }
+        flags &= ~flag;
+        fixedLength = 0;
+        if ((flags & FEXTRA) != 0) {
+            state = State.EXTRA;
+        } else if ((flags & FNAME) != 0) {
+            state = State.NAME;
+        } else if ((flags & FCOMMENT) != 0) {
+            state = State.COMMENT;
+        } else if ((flags & FHCRC) != 0) {
+            state = State.HEADER_CRC;
+        } else {
+            state = State.INFLATING;
+        }
+    }
+
+    private int readTrailer(final ByteBuffer buffer, final int from, final int limit) {
+        int position = from;
+        while (position < limit && fixedLength < GZIP_TRAILER_SIZE) {
+            fixedBytes[fixedLength++] = buffer.get(position++);
+        }
+        if (fixedLength == GZIP_TRAILER_SIZE) {
+            if (littleEndianInt(0) != (int) crc.getValue()) {
+                throw new IllegalArgumentException("Corrupt gzip member, CRC-32 mismatch");
+            }
+            if (littleEndianInt(4) != (int) inflater.getBytesWritten()) {
+                throw new IllegalArgumentException("Corrupt gzip member, size mismatch");
+            }
+            fixedLength = 0;
+            state = State.END;
+        }
+        return position;
+    }
+
+    private int littleEndianInt(final int offset) {
+        return (fixedBytes[offset] & 0xff) | (fixedBytes[offset + 1] & 0xff) << 8
+                | (fixedBytes[offset + 2] & 0xff) << 16 | (fixedBytes[offset + 3] & 0xff) << 24;
+    }
+
+    private Inflater acquire() {
+        boolean raw = format != InflatingCompletionSubscriberAdapter.Format.ZLIB;
+        Inflater pooled = (raw ? RAW_INFLATERS : WRAPPED_INFLATERS).poll();
+        return pooled == null ? new Inflater(raw) : pooled;
+    }
+
+    private void release() {
+        if (inflater == null) {
+            return;
+        }
+        inflater.reset();
+        if (!(format == InflatingCompletionSubscriberAdapter.Format.ZLIB ? WRAPPED_INFLATERS : RAW_INFLATERS)
+                .offer(inflater)) {
+            inflater.end();
+        }
+        inflater = null;
+    }
+
+    private enum State {
+        HEADER, EXTRA, NAME, COMMENT, HEADER_CRC, INFLATING, TRAILER, END
+    }
+}
@@ -0,0 +1,48 @@
+package io.github.kn.flow;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * A {@link CompletionStageItemProcessor} recording the processing of the wrapped processor into
+ * {@link StageMetrics}.
+ *
+ * @see CompletionStageItemProcessor#instrumented(String, StageMetricsRegistry)
+ */
+final class InstrumentedItemProcessor<T, R> implements CompletionStageItemProcessor<T, R> {
+
+    private final CompletionStageItemProcessor<T, R> processor;
+    private final StageMetrics metrics;
+
+    InstrumentedItemProcessor(final CompletionStageItemProcessor<T, R> itemProcessor,
+                              final StageMetrics stageMetrics) {
+        this.processor = Objects.requireNonNull(itemProcessor);
+        this.metrics = Objects.requireNonNull(stageMetrics);
+    }
+
+    @Override
+    public CompletionStage<Void> prepare() {
+        return processor.prepare();
+    }
+
+    @Override
+    public CompletionStage<R> onNext(final T item) {
+        final long start = System.nanoTime();
+        metrics.onStart();
+        CompletionStage<R> stage;
+        try {
+            stage = processor.onNext(item);
+        } catch (Throwable t) {
+            metrics.onComplete(System.nanoTime() - start, true);
+            return CompletableFuture.failedStage(t);
+        }
+        stage.whenComplete((r, t) -> metrics.onComplete(System.nanoTime() - start, t != null));
+        return stage;
+    }
+
+    @Override
+    public String toString() {
+        return "Instrumented(" + metrics.getName() + ", " + processor + ")";
+    }
+}
@@ -0,0 +1,59 @@
+package io.github.kn.flow;
+
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+
+/**
+ * A {@link Flow.Publisher} to which producers (e.g. pollers) submit the items to publish to its subscribers.
+ *
+ * @see SubmissionPublisher
+ * @see RingBufferPublisher
+ */
+public interface ItemPublisher<T> extends Flow.Publisher<T> {
+
+    /**
+     * Adapts the passed {@link SubmissionPublisher}.
+     *
+     * @param publisher publisher to adapt
+     * @param <T>       type of published items
+     * @return the adapting {@link ItemPublisher}
+     */
+    static <T> ItemPublisher<T> of(final SubmissionPublisher<T> publisher) {
+        return new ItemPublisher<>() {
+            @Override
+            public int submit(final T item) {
+                return publisher.submit(item);
+            }
+
+            @Override
+            public void close() {
+                publisher.close();
+            }
+
+            @Override
+            public void subscribe(final Flow.Subscriber<? super T> subscriber) {
+                publisher.subscribe(subscriber);
+            }
+
+            @Override
+            public String toString() {
+                return publisher.toString();
+            }
+        };
+    }
+
+    /**
+     * Publishes the passed item to the current subscribers, blocking while there is no capacity to buffer it.
+     *
+     * @param item the item to publish
+     * @return an estimate of the lag (number of items submitted but not yet consumed) among subscribers.
+     * @throws IllegalStateException if closed
+     * @see SubmissionPublisher#submit(Object)
+     */
+    int submit(T item);
+
+    /**
+     * Completes the current subscribers once they consume all the submitted items, rejecting further submissions.
+     */
+    void close();
+}
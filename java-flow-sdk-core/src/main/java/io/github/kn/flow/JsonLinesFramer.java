@@ -0,0 +1,67 @@
+package io.github.kn.flow;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+
+/**
+ * Frames newline-delimited JSON into objects: lines are framed by a {@link LineFramer}, and each line parsed by the
+ * Jackson streaming parser straight from the line bytes, with no String in between. The bytes of a line are only
+ * copied if the line spans several buffers (or lies in a direct buffer).
+ */
+final class JsonLinesFramer<T> implements RecordFramer<T> {
+
+    private final LineFramer lineFramer = new LineFramer(StandardCharsets.UTF_8, null);
+    private final ObjectReader objectReader;
+
+    JsonLinesFramer(final ObjectReader reader) {
+        this.objectReader = Objects.requireNonNull(reader);
+    }
+
+    @Override
+    public void frame(final ByteBuffer buffer, final Consumer<? super T> records) {
+        lineFramer.frame(buffer, line -> parse(line, records));
+    }
+
+    @Override
+    public void finish(final Consumer<? super T> records) {
+        lineFramer.finish(line -> parse(line, records));
+    }
+
+    private void parse(final TextLine line, final Consumer<? super T> records) {
+        ByteBuffer[] segments = line.getSegments();
+        if (segments.length == 1 && isBlank(segments[0])) {
+            return;
+        }
+        try {
+            if (segments.length == 1 && segments[0].hasArray()) {
+                ByteBuffer bytes = segments[0];
+                records.accept(objectReader.readValue(bytes.array(), bytes.arrayOffset() + bytes.position(),
+                        bytes.remaining()));
+            } else {
+                ByteBuffer bytes = line.asByteBuffer();
+                byte[] array = new byte[bytes.remaining()];
+                bytes.get(array);
+                if (!isBlank(ByteBuffer.wrap(array))) {
+                    records.accept(objectReader.readValue(array));
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Exception parsing JSON line :" + line, e);
+        }
+    }
+
+    private static boolean isBlank(final ByteBuffer bytes) {
+        for (int i = bytes.position(); i < bytes.limit(); i++) {
+            byte b = bytes.get(i);
+            if (b != ' ' && b != '\t') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
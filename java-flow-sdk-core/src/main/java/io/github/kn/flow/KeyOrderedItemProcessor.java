@@ -0,0 +1,126 @@
+package io.github.kn.flow;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * A {@link CompletionStageItemProcessor} processing items having the same key strictly one after another, in the
+ * order of the {@code onNext} calls, while items having different keys are processed concurrently.
+ * <br>
+ * Every key with outstanding items maps to a queue of its items, with a count of its outstanding ones. Items are
+ * processed by draining the queue in a loop, run by a single thread at a time (whichever submits an item or completes
+ * the processing of one while none other drains), processing an item once the previous one completes. Items
+ * completing as they are processed only make the loop go around again, so that no stack builds up however many items
+ * are queued behind a key. The key is removed once its last submitted item completes, so idle keys hold no memory.
+ *
+ * @see CompletionStageItemProcessor#keyOrdered(Function)
+ */
+final class KeyOrderedItemProcessor<T, K, R> implements CompletionStageItemProcessor<T, R> {
+
+    private static final Logger LOG = LogManager.getLogger("KeyOrderedItemProcessor");
+    private final CompletionStageItemProcessor<T, R> processor;
+    private final Function<? super T, ? extends K> keyFunction;
+    private final ConcurrentHashMap<K, KeyQueue> queues = new ConcurrentHashMap<>();
+
+    KeyOrderedItemProcessor(final CompletionStageItemProcessor<T, R> itemProcessor,
+                            final Function<? super T, ? extends K> keyFunc) {
+        this.processor = Objects.requireNonNull(itemProcessor);
+        this.keyFunction = Objects.requireNonNull(keyFunc);
+    }
+
+    @Override
+    public CompletionStage<Void> prepare() {
+        return processor.prepare();
+    }
+
+    @Override
+    public CompletionStage<R> onNext(final T item) {
+        final K key = keyFunction.apply(item);
+        final Pending pending = new Pending(item);
+        KeyQueue queue = queues.compute(key, (k, q) -> {
+            KeyQueue keyQueue = q == null ? new KeyQueue(k) : q;
+            keyQueue.outstanding++;
+            return keyQueue;
+        });
+        LOG.trace("Queueing item {} of key {}", item, key);
+        queue.items.add(pending);
+        queue.drain();
+        return pending.result;
+    }
+
+    /**
+     * @return number of keys with outstanding items.
+     */
+    int activeKeys() {
+        return queues.size();
+    }
+
+    @Override
+    public String toString() {
+        return "KeyOrdered(" + processor + ")";
+    }
+
+    private final class Pending {
+        private final T item;
+        private final CompletableFuture<R> result = new CompletableFuture<>();
+
+        private Pending(final T pendingItem) {
+            this.item = pendingItem;
+        }
+    }
+
+    private final class KeyQueue {
+        private final K key;
+        private final Queue<Pending> items = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger wip = new AtomicInteger();
+        private volatile boolean processing;
+        // guarded by the map's lock of the key
+        private int outstanding;
+
+        private KeyQueue(final K queueKey) {
+            this.key = queueKey;
+        }
+
+        private void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                Pending next;
+                if (!processing && (next = items.poll()) != null) {
+                    processing = true;
+                    process(next);
+                }
+            } while ((missed = wip.addAndGet(-missed)) != 0);
+        }
+
+        private void process(final Pending pending) {
+            CompletionStage<R> stage;
+            try {
+                stage = processor.onNext(pending.item);
+            } catch (Throwable t) {
+                stage = CompletableFuture.failedStage(t);
+            }
+            stage.whenComplete((r, t) -> {
+                queues.computeIfPresent(key, (k, q) -> --q.outstanding == 0 ? null : q);
+                if (t == null) {
+                    pending.result.complete(r);
+                } else {
+                    pending.result.completeExceptionally(t);
+                }
+                processing = false;
+                drain();
+            });
+        }
+    }
+}
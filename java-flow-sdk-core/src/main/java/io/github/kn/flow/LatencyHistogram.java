@@ -0,0 +1,99 @@
+package io.github.kn.flow;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of latencies (or any non-negative long values) with log-linear buckets, in the manner of
+ * HdrHistogram.
+ * <br>
+ * Every power of two range is divided into {@link #SUB_BUCKETS} linear buckets, bounding the relative error of
+ * reported percentiles to about 3%, while covering the full positive long range in a fixed array of counters.
+ * Recording a value is a few bit operations plus atomic increments and never allocates.
+ */
+public final class LatencyHistogram {
+
+    static final int SUB_BUCKET_BITS = 5;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+
+    LatencyHistogram() {
+    }
+
+    static int indexOf(final long value) {
+        int msb = 63 - Long.numberOfLeadingZeros(value);
+        if (msb < SUB_BUCKET_BITS) {
+            return (int) value;
+        }
+        int shift = msb - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) - SUB_BUCKETS);
+    }
+
+    /**
+     * @return highest value counted in the bucket at the passed index.
+     */
+    static long highestValueAt(final int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long subBucket = index % SUB_BUCKETS + SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    /**
+     * @param value value to record, negative values are recorded as zero.
+     */
+    public void record(final long value) {
+        long recorded = Math.max(0, value);
+        counts.incrementAndGet(indexOf(recorded));
+        count.increment();
+        sum.add(recorded);
+    }
+
+    /**
+     * @return number of recorded values.
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * @return mean of the recorded values, zero if none recorded.
+     */
+    public double getMean() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    /**
+     * @param percentile percentile in the range (0, 1], e.g. 0.99 for p99
+     * @return the (upper bound of the bucket of the) recorded value at the passed percentile, zero if none recorded.
+     */
+    public long getValueAtPercentile(final double percentile) {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        long target = Math.max(1, (long) Math.ceil(percentile * total));
+        long cumulative = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            cumulative += snapshot[i];
+            if (cumulative >= target) {
+                return highestValueAt(i);
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public String toString() {
+        return "count=" + getCount() + ", mean=" + (long) getMean() + ", p50=" + getValueAtPercentile(0.5)
+                + ", p99=" + getValueAtPercentile(0.99) + ", max=" + getValueAtPercentile(1);
+    }
+}
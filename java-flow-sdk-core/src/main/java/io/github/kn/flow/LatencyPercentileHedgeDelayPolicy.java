@@ -0,0 +1,57 @@
+package io.github.kn.flow;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A {@link HedgeDelayPolicy} whose delay is a percentile of a window of the most recently recorded latencies.
+ * <br>
+ * Recording a latency is lock-free and allocation free; the percentile is recomputed once every
+ * {@link #RECOMPUTE_INTERVAL} recorded latencies.
+ */
+final class LatencyPercentileHedgeDelayPolicy implements HedgeDelayPolicy {
+
+    static final int WINDOW_SIZE = 1024;
+    static final int RECOMPUTE_INTERVAL = 64;
+    private final double percentile;
+    private final AtomicLongArray window = new AtomicLongArray(WINDOW_SIZE);
+    private final AtomicLong recorded = new AtomicLong();
+    private volatile long delayNanos;
+
+    LatencyPercentileHedgeDelayPolicy(final double pctl, final long initialDelayNanos) {
+        if (pctl <= 0 || pctl > 1) {
+            throw new IllegalArgumentException("percentile must be in range (0, 1] :" + pctl);
+        }
+        this.percentile = pctl;
+        this.delayNanos = initialDelayNanos;
+    }
+
+    @Override
+    public long delayNanos() {
+        return delayNanos;
+    }
+
+    @Override
+    public void record(final long latencyNanos) {
+        long count = recorded.incrementAndGet();
+        window.set((int) ((count - 1) % WINDOW_SIZE), latencyNanos);
+        if (count % RECOMPUTE_INTERVAL == 0) {
+            recompute((int) Math.min(count, WINDOW_SIZE));
+        }
+    }
+
+    private void recompute(final int samples) {
+        long[] sorted = new long[samples];
+        for (int i = 0; i < samples; i++) {
+            sorted[i] = window.get(i);
+        }
+        Arrays.sort(sorted);
+        delayNanos = sorted[(int) Math.min(samples - 1, Math.ceil(percentile * samples) - 1)];
+    }
+
+    @Override
+    public String toString() {
+        return "p" + (percentile * 100) + "(" + delayNanos + "ns)";
+    }
+}
@@ -0,0 +1,84 @@
+package io.github.kn.flow;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.function.Consumer;
+
+/**
+ * Frames binary records, each preceded by its length as a 4 byte big-endian int (the record format of
+ * {@link SpillBuffer} segments too).
+ * <br>
+ * Records lying within a buffer are framed as read-only slices of it; only a record (or length) spanning buffers is
+ * copied, into a buffer of its own. Length prefixes are checked against a maximum before allocating that buffer, so a
+ * corrupt or hostile prefix fails the framing instead of exhausting the heap.
+ */
+final class LengthPrefixedFramer implements RecordFramer<ByteBuffer> {
+
+    static final int DEFAULT_MAX_LENGTH = 64 << 20;
+    private final ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+    private final int maxLength;
+    private ByteBuffer partialRecord;
+
+    LengthPrefixedFramer(final int maxRecordLength) {
+        if (maxRecordLength < 0) {
+            throw new IllegalArgumentException("Invalid max record length :" + maxRecordLength);
+        }
+        this.maxLength = maxRecordLength;
+    }
+
+    @Override
+    public void frame(final ByteBuffer buffer, final Consumer<? super ByteBuffer> records) {
+        int position = buffer.position();
+        int limit = buffer.limit();
+        while (position < limit) {
+            if (partialRecord != null) {
+                int length = Math.min(partialRecord.remaining(), limit - position);
+                partialRecord.put(buffer.slice(position, length));
+                position += length;
+                if (!partialRecord.hasRemaining()) {
+                    records.accept(partialRecord.flip().asReadOnlyBuffer());
+                    partialRecord = null;
+                }
+            } else if (header.position() > 0 || limit - position < Integer.BYTES) {
+                int length = Math.min(header.remaining(), limit - position);
+                header.put(buffer.slice(position, length));
+                position += length;
+                if (!header.hasRemaining()) {
+                    partialRecord = ByteBuffer.allocate(recordLength(header.flip().getInt()));
+                    header.clear();
+                    if (!partialRecord.hasRemaining()) {
+                        records.accept(partialRecord.asReadOnlyBuffer());
+                        partialRecord = null;
+                    }
+                }
+            } else {
+                int prefix = buffer.getInt(position);
+                int length = recordLength(buffer.order() == ByteOrder.BIG_ENDIAN ? prefix : Integer.reverseBytes(prefix));
+                position += Integer.BYTES;
+                if (limit - position >= length) {
+                    records.accept(buffer.slice(position, length).asReadOnlyBuffer());
+                    position += length;
+                } else {
+                    partialRecord = ByteBuffer.allocate(length);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void finish(final Consumer<? super ByteBuffer> records) {
+        boolean truncated = partialRecord != null || header.position() > 0;
+        partialRecord = null;
+        header.clear();
+        if (truncated) {
+            throw new IllegalArgumentException("Bytes ended within a length-prefixed record");
+        }
+    }
+
+    private int recordLength(final int length) {
+        if (length < 0 || length > maxLength) {
+            throw new IllegalArgumentException("Invalid record length :" + length + " max :" + maxLength);
+        }
+        return length;
+    }
+}
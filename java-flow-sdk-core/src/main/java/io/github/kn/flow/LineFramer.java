@@ -0,0 +1,299 @@
+package io.github.kn.flow;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Frames a stream of bytes into {@link TextLine}s, scanning the bytes for the (encoded) line separator without
+ * decoding them.
+ * <br>
+ * Bytes are scanned eight at a time: each 8 byte word is xor-ed with the separator's first byte repeated in every byte
+ * lane, and a zero byte of the result (located via SWAR arithmetic, no branch per byte) is a candidate separator.
+ * Lines are slices of the scanned buffers; the partial line at the end of a buffer is kept as a slice and completed by
+ * slices of the following buffers, never copied.
+ * <br>
+ * A null separator ends lines at any of "\n", "\r" or "\r\n", as per {@link java.io.BufferedReader#readLine()}.
+ * Framing bytes is only sound for charsets encoding the separator into bytes which never occur within the encoding
+ * of another character, see {@link #supports(Charset)}. Not thread-safe.
+ */
+final class LineFramer implements RecordFramer<TextLine> {
+
+    private static final long ONES = 0x0101010101010101L;
+    private static final long LOW_SEVEN_BITS = 0x7F7F7F7F7F7F7F7FL;
+    private final Charset charset;
+    private final byte[] separator;
+    private final byte lineFeed;
+    private final byte carriageReturn;
+    private final long firstPattern;
+    private final long secondPattern;
+    private final List<ByteBuffer> partialLine = new ArrayList<>();
+    private int partialSeparator;
+    private boolean skipLineFeed;
+
+    /**
+     * @param cSet      charset of the bytes
+     * @param lineSeparator line separator, or null for any of "\n", "\r" or "\r\n".
+     */
+    LineFramer(final Charset cSet, final String lineSeparator) {
+        if (!supports(cSet)) {
+            throw new IllegalArgumentException("Lines of charset " + cSet + " can not be framed as bytes");
+        }
+        this.charset = cSet;
+        this.lineFeed = "\n".getBytes(cSet)[0];
+        this.carriageReturn = "\r".getBytes(cSet)[0];
+        if (lineSeparator == null) {
+            this.separator = null;
+            this.firstPattern = broadcast(lineFeed);
+            this.secondPattern = broadcast(carriageReturn);
+        } else {
+            if (lineSeparator.isEmpty()) {
+                throw new IllegalArgumentException("Empty line separator");
+            }
+            this.separator = lineSeparator.getBytes(cSet);
+            this.firstPattern = broadcast(separator[0]);
+            this.secondPattern = firstPattern;
+        }
+    }
+
+    /**
+     * @param cSet a charset
+     * @return true if lines of the passed charset can be framed as bytes: UTF-8, or any single byte charset.
+     */
+    static boolean supports(final Charset cSet) {
+        return StandardCharsets.UTF_8.equals(cSet) || cSet.canEncode() && cSet.newEncoder().maxBytesPerChar() == 1;
+    }
+
+    /**
+     * Frames the remaining bytes of the passed buffer, leaving its position unchanged.
+     *
+     * @param buffer bytes to frame
+     * @param lines  consumer of the framed lines
+     */
+    @Override
+    public void frame(final ByteBuffer buffer, final Consumer<? super TextLine> lines) {
+        int position = buffer.position();
+        int limit = buffer.limit();
+        if (position < limit && skipLineFeed) {
+            skipLineFeed = false;
+            if (buffer.get(position) == lineFeed) {
+                position++;
+            }
+        }
+        if (partialSeparator > 0) {
+            position = completeSeparator(buffer, position, limit, lines);
+            if (position < 0) {
+                partialLine.add(buffer.slice(buffer.position(), limit - buffer.position()));
+                return;
+            }
+        }
+        int lineStart = position;
+        while (position < limit) {
+            int index = indexOf(buffer, position, limit);
+            if (index < 0) {
+                break;
+            }
+            if (separator == null) {
+                emit(buffer, lineStart, index, lines);
+                if (buffer.get(index) == carriageReturn) {
+                    if (index + 1 == limit) {
+                        skipLineFeed = true;
+                    } else if (buffer.get(index + 1) == lineFeed) {
+                        index++;
+                    }
+                }
+                lineStart = position = index + 1;
+                continue;
+            }
+            int matched = matchSeparator(buffer, index, limit, 0);
+            if (matched == separator.length) {
+                emit(buffer, lineStart, index, lines);
+                lineStart = position = index + matched;
+            } else if (index + matched == limit) {
+                partialSeparator = matched;
+                break;
+            } else {
+                position = index + 1;
+            }
+        }
+        if (lineStart < limit) {
+            partialLine.add(buffer.slice(lineStart, limit - lineStart));
+        }
+    }
+
+    /**
+     * Frames the partial line left at the end of the bytes, if any.
+     *
+     * @param lines consumer of the framed line
+     */
+    @Override
+    public void finish(final Consumer<? super TextLine> lines) {
+        skipLineFeed = false;
+        partialSeparator = 0;
+        if (!partialLine.isEmpty()) {
+            lines.accept(new TextLine(partialLine.toArray(new ByteBuffer[0]), charset));
+            partialLine.clear();
+        }
+    }
+
+    /**
+     * @return true if the bytes framed so far end within a (multi byte) separator.
+     */
+    boolean isWithinSeparator() {
+        return partialSeparator > 0;
+    }
+
+    /**
+     * @return true if the bytes framed so far end with a "\r", a following "\n" being part of the same separator.
+     */
+    boolean isSkippingLineFeed() {
+        return skipLineFeed;
+    }
+
+    /**
+     * Completes the partial line left by the bytes framed so far with the first line framed, independently, from the
+     * bytes that follow them.
+     *
+     * @param head first line framed from the following bytes
+     * @return the completed line
+     */
+    TextLine completeLine(final TextLine head) {
+        if (partialLine.isEmpty()) {
+            return head;
+        }
+        partialLine.addAll(Arrays.asList(head.getSegments()));
+        TextLine line = new TextLine(partialLine.toArray(new ByteBuffer[0]), charset);
+        partialLine.clear();
+        return line;
+    }
+
+    /**
+     * Resumes framing from where the passed framer (of the same separator) left off, as if it had framed all the
+     * bytes framed by both.
+     *
+     * @param other framer of the bytes following those framed by this one
+     */
+    void resumeFrom(final LineFramer other) {
+        partialLine.clear();
+        partialLine.addAll(other.partialLine);
+        partialSeparator = other.partialSeparator;
+        skipLineFeed = other.skipLineFeed;
+    }
+
+    /**
+     * Completes a separator started at the end of the previous buffer, falling back to shorter separator prefixes
+     * ending there should it not complete.
+     *
+     * @return position to frame the rest of the buffer from, or -1 if the buffer is all part of the separator.
+     */
+    private int completeSeparator(final ByteBuffer buffer, final int position, final int limit,
+                                  final Consumer<? super TextLine> lines) {
+        int matched = partialSeparator;
+        while (matched > 0) {
+            int completed = matchSeparator(buffer, position, limit, matched);
+            if (matched + completed == separator.length) {
+                partialSeparator = 0;
+                trimPartialLine(matched);
+                lines.accept(new TextLine(partialLine.toArray(new ByteBuffer[0]), charset));
+                partialLine.clear();
+                return position + completed;
+            }
+            if (position + completed == limit) {
+                // the buffer is too short to tell, the separator may yet complete
+                partialSeparator = matched + completed;
+                return -1;
+            }
+            matched = shorterPrefix(matched);
+        }
+        partialSeparator = 0;
+        return position;
+    }
+
+    /**
+     * @return the length of the longest proper suffix of the matched separator prefix, which is a separator prefix too.
+     */
+    private int shorterPrefix(final int matched) {
+        for (int length = matched - 1; length > 0; length--) {
+            if (Arrays.equals(separator, matched - length, matched, separator, 0, length)) {
+                return length;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @return number of bytes at index matching the separator bytes from offset on.
+     */
+    private int matchSeparator(final ByteBuffer buffer, final int index, final int limit, final int offset) {
+        int matched = 0;
+        while (offset + matched < separator.length && index + matched < limit
+                && buffer.get(index + matched) == separator[offset + matched]) {
+            matched++;
+        }
+        return matched;
+    }
+
+    private void trimPartialLine(final int length) {
+        int remaining = length;
+        while (remaining > 0) {
+            ByteBuffer last = partialLine.remove(partialLine.size() - 1);
+            if (last.remaining() > remaining) {
+                partialLine.add(last.slice(last.position(), last.remaining() - remaining));
+            }
+            remaining -= last.remaining();
+        }
+    }
+
+    private void emit(final ByteBuffer buffer, final int from, final int to, final Consumer<? super TextLine> lines) {
+        ByteBuffer bytes = buffer.slice(from, to - from);
+        if (partialLine.isEmpty()) {
+            lines.accept(new TextLine(bytes, charset));
+        } else {
+            partialLine.add(bytes);
+            lines.accept(new TextLine(partialLine.toArray(new ByteBuffer[0]), charset));
+            partialLine.clear();
+        }
+    }
+
+    /**
+     * @return index of the first byte in [from, to) matching either search pattern, or -1 if none does.
+     */
+    private int indexOf(final ByteBuffer buffer, final int from, final int to) {
+        boolean bigEndian = buffer.order() == ByteOrder.BIG_ENDIAN;
+        int index = from;
+        for (; index + Long.BYTES <= to; index += Long.BYTES) {
+            long word = buffer.getLong(index);
+            long found = zeroBytes(word ^ firstPattern) | zeroBytes(word ^ secondPattern);
+            if (found != 0) {
+                return index + (bigEndian ? Long.numberOfLeadingZeros(found) : Long.numberOfTrailingZeros(found))
+                        / Byte.SIZE;
+            }
+        }
+        byte first = (byte) firstPattern;
+        byte second = (byte) secondPattern;
+        for (; index < to; index++) {
+            byte b = buffer.get(index);
+            if (b == first || b == second) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the high bit of every zero byte of the passed word set, all other bits clear.
+     */
+    private static long zeroBytes(final long word) {
+        long lowBits = (word & LOW_SEVEN_BITS) + LOW_SEVEN_BITS;
+        return ~(lowBits | word | LOW_SEVEN_BITS);
+    }
+
+    private static long broadcast(final byte b) {
+        return (b & 0xFFL) * ONES;
+    }
+}
@@ -0,0 +1,243 @@
+package io.github.kn.flow;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link CompletionPublisher} merging the items of many upstream {@link Flow.Publisher}s into its one subscriber.
+ * <br>
+ * Up to maxConcurrency sources are subscribed at a time, in the order of the passed sources; once a source
+ * completes, the next one is subscribed, so the sources may well be created lazily while iterated over. Every
+ * subscribed source has up to {@link #PREFETCH} items requested in advance and buffered. Buffered items are emitted
+ * round-robin across the subscribed sources, one at a time, as per the demand of the subscriber. The subscriber is
+ * completed once every source completes, and errored as soon as any source errors (cancelling the others).
+ * <br>
+ * Emission to the subscriber is serialized: whichever thread signals while no other is emitting drains the buffers.
+ *
+ * @see CompletionPublisher#merge(Iterable, int)
+ * @see CompletionPublisher#concat(Iterable)
+ */
+final class MergingCompletionPublisher<T> implements CompletionPublisher<T> {
+
+    static final int PREFETCH = 16;
+    private static final int REPLENISH_THRESHOLD = PREFETCH - (PREFETCH >> 2);
+    private static final Logger LOG = LogManager.getLogger("MergingCompletionPublisher");
+    private final Iterable<? extends Flow.Publisher<? extends T>> sources;
+    private final int maxConcurrency;
+
+    MergingCompletionPublisher(final Iterable<? extends Flow.Publisher<? extends T>> publishers,
+                               final int concurrency) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency must be positive :" + concurrency);
+        }
+        this.sources = Objects.requireNonNull(publishers);
+        this.maxConcurrency = concurrency;
+    }
+
+    @Override
+    public CompletableFuture<Void> subscribe(final CompletionSubscriber<? super T> subscriber) {
+        Merge merge = new Merge(Objects.requireNonNull(subscriber));
+        subscriber.onSubscribe(merge);
+        merge.drain();
+        return merge.completionFuture;
+    }
+
+    @Override
+    public String toString() {
+        return "Merge(maxConcurrency=" + maxConcurrency + ")";
+    }
+
+    private final class Merge implements CompletionSubscription {
+        private final CompletionSubscriber<? super T> subscriber;
+        private final CompletableFuture<Void> completionFuture = new CompletableFuture<>();
+        private final Iterator<? extends Flow.Publisher<? extends T>> pending = sources.iterator();
+        private final List<Source> subscribed = new ArrayList<>(maxConcurrency);
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private volatile boolean cancelled;
+        private volatile Throwable error;
+        private boolean terminated;
+        private int cursor;
+
+        private Merge(final CompletionSubscriber<? super T> completionSubscriber) {
+            this.subscriber = completionSubscriber;
+        }
+
+        @Override
+        public void request(final long n) {
+            if (n <= 0) {
+                onError(new IllegalArgumentException("non-positive subscription request :" + n));
+            } else {
+                requested.accumulateAndGet(n, (a, b) -> a + b < 0 ? Long.MAX_VALUE : a + b);
+                drain();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            drain();
+            completionFuture.completeExceptionally(new RuntimeException("Subscription closed abruptly, " +
+                    "most likely due to processing error"));
+        }
+
+        @Override
+        public void onComplete() {
+            completionFuture.complete(null);
+        }
+
+        private void onError(final Throwable throwable) {
+            if (error == null) {
+                error = throwable;
+            }
+            drain();
+        }
+
+        private void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                boolean emitted;
+                do {
+                    if (terminated) {
+                        return;
+                    }
+                    if (cancelled || error != null) {
+                        terminate();
+                        return;
+                    }
+                    subscribed.removeIf(Source::isDrained);
+                    boolean exhausted;
+                    try {
+                        while (subscribed.size() < maxConcurrency && pending.hasNext()) {
+                            Source source = new Source();
+                            subscribed.add(source);
+                            pending.next().subscribe(source);
+                        }
+                        exhausted = subscribed.isEmpty() && !pending.hasNext();
+                    } catch (Throwable t) {
+                        if (error == null) {
+                            error = t;
+                        }
+                        terminate();
+                        return;
+                    }
+                    if (exhausted) {
+                        terminated = true;
+                        LOG.debug("All sources drained, completing {}", subscriber);
+                        subscriber.onComplete();
+                        return;
+                    }
+                    emitted = emit();
+                } while (emitted && subscribed.stream().anyMatch(Source::isDrained));
+            } while ((missed = wip.addAndGet(-missed)) != 0);
+        }
+
+        /**
+         * Emits buffered items round-robin across the subscribed sources, while the subscriber has demand.
+         *
+         * @return true if any item was emitted
+         */
+        private boolean emit() {
+            long demand = requested.get();
+            long emitted = 0;
+            int idle = 0;
+            while (emitted != demand && idle < subscribed.size() && !cancelled && error == null) {
+                if (cursor >= subscribed.size()) {
+                    cursor = 0;
+                }
+                Source source = subscribed.get(cursor++);
+                T item = source.buffer.poll();
+                if (item == null) {
+                    idle++;
+                    continue;
+                }
+                idle = 0;
+                subscriber.onNext(item);
+                source.consumed();
+                emitted++;
+            }
+            if (emitted != 0 && demand != Long.MAX_VALUE) {
+                requested.addAndGet(-emitted);
+            }
+            return emitted != 0;
+        }
+
+        private void terminate() {
+            terminated = true;
+            subscribed.forEach(Source::cancel);
+            subscribed.clear();
+            if (!cancelled) {
+                LOG.error("Source errored, cancelling the remaining sources", error);
+                subscriber.onError(error);
+                completionFuture.completeExceptionally(error);
+            }
+        }
+
+        private final class Source implements Flow.Subscriber<T> {
+            private final Queue<T> buffer = new ConcurrentLinkedQueue<>();
+            private volatile Flow.Subscription subscription;
+            private volatile boolean done;
+            private int consumed;
+
+            @Override
+            public void onSubscribe(final Flow.Subscription sourceSubscription) {
+                this.subscription = sourceSubscription;
+                if (cancelled || error != null) {
+                    sourceSubscription.cancel();
+                } else {
+                    sourceSubscription.request(PREFETCH);
+                }
+            }
+
+            @Override
+            public void onNext(final T item) {
+                buffer.add(item);
+                drain();
+            }
+
+            @Override
+            public void onError(final Throwable throwable) {
+                done = true;
+                Merge.this.onError(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                done = true;
+                drain();
+            }
+
+            private boolean isDrained() {
+                return done && buffer.isEmpty();
+            }
+
+            private void consumed() {
+                if (++consumed == REPLENISH_THRESHOLD) {
+                    consumed = 0;
+                    subscription.request(REPLENISH_THRESHOLD);
+                }
+            }
+
+            private void cancel() {
+                Flow.Subscription s = subscription;
+                if (s != null && !done) {
+                    s.cancel();
+                }
+            }
+        }
+    }
+}
@@ -3,45 +3,77 @@ package io.github.kn.flow;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.function.Function;
-import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 /**
  * An iterable of {@link Optional} values.
+ * <br>
+ * Backed by an array of the values and a bitmask of the present ones (a bit per array index), so that operations are
+ * index based, with no {@link Optional} boxing the values. Arrays are never modified once created, and shared
+ * between the optionals derived from one another wherever possible. Optionals wrapping an iterable of
+ * {@link Optional} are a view of it instead, copied into arrays anew on every operation.
  */
 public class Optionals<E> implements Iterable<E> {
     private static final Logger LOG = LogManager.getLogger("Optionals");
 
-    private final OptionalIterable<?, E> iterable;
-
-    /**
-     * @param delegate
-     */
-    private <V> Optionals(final Iterable<Optional<V>> delegate, final Function<V, E> func) {
-        this(new OptionalIterable<>(func, delegate));
+    private final Object[] values;
+    private final long[] presence;
+    private final int size;
+    private final Iterable<? extends Optional<?>> view;
+    private final Function<Object, ?> viewMapper;
+
+    private Optionals(final Object[] optionalValues, final long[] presentBits, final int length) {
+        this.values = optionalValues;
+        this.presence = presentBits;
+        this.size = length;
+        this.view = null;
+        this.viewMapper = null;
     }
 
-    private Optionals(final OptionalIterable<?, E> input) {
-        iterable = input;
-    }
-
-
-    private Optionals(final Iterable<Optional<E>> delegate) {
-        this(delegate, Function.identity());
+    private Optionals(final Iterable<? extends Optional<?>> delegate, final Function<Object, ?> mapper) {
+        this.values = null;
+        this.presence = null;
+        this.size = 0;
+        this.view = delegate;
+        this.viewMapper = mapper;
     }
 
     public static <V> Optionals<V> create(final Iterable<V> from) {
-        return new Optionals<>(StreamSupport.stream(from.spliterator(), false).map(Optional::ofNullable)
-                .collect(Collectors.toList()));
+        Object[] values;
+        if (from instanceof Collection) {
+            values = ((Collection<V>) from).toArray();
+        } else {
+            values = new Object[16];
+            int length = 0;
+            for (V value : from) {
+                if (length == values.length) {
+                    values = Arrays.copyOf(values, length * 2);
+                }
+                values[length++] = value;
+            }
+            values = values.length == length ? values : Arrays.copyOf(values, length);
+        }
+        long[] presence = words(values.length);
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+                presence[i >>> 6] |= 1L << i;
+            }
+        }
+        return new Optionals<>(values, presence, values.length);
     }
 
     public static <V> Optionals<V> wrap(final Iterable<Optional<V>> from) {
         LOG.trace("wrap invoked with wrap :{}", from);
-        return new Optionals<>(from);
+        return new Optionals<>(from, Function.identity());
     }
 
     /**
@@ -54,9 +86,18 @@ public class Optionals<E> implements Iterable<E> {
      */
     public <V> Optionals<V> replace(final Iterable<V> to) {
         LOG.trace("replace invoked with this :{} and to :{}", this, to);
+        Optionals<E> source = materialize();
+        Object[] replaced = new Object[source.size];
+        long[] presence = words(source.size);
         Iterator<V> toIter = to.iterator();
-        return new Optionals<>(new OptionalIterable<>(o -> toIter.next(), this.iterable.rawIterable()).mappedStream()
-                .collect(Collectors.toList()));
+        for (int i = source.nextPresent(0); i >= 0; i = source.nextPresent(i + 1)) {
+            V value = toIter.next();
+            if (value != null) {
+                replaced[i] = value;
+                presence[i >>> 6] |= 1L << i;
+            }
+        }
+        return new Optionals<>(replaced, presence, source.size);
     }
 
     /**
@@ -70,10 +111,16 @@ public class Optionals<E> implements Iterable<E> {
      */
     public <V> Optionals<E> mergeEmpties(final Optionals<V> from) {
         LOG.trace("mergeEmpties invoked with this :{} and wrap :{}", this, from);
-        Iterator<Optional<V>> fromIt = from.iterable.mappedStream().iterator();
-        return new Optionals<>(this.iterable.mappedStream().
-                map(s -> fromIt.hasNext() && fromIt.next().isEmpty() && s.isPresent() ? Optional.<E>empty() : s)
-                .collect(Collectors.toList()));
+        Optionals<E> source = materialize();
+        Optionals<V> empties = from.materialize();
+        long[] presence = source.presence.clone();
+        int merged = Math.min(source.size, empties.size);
+        for (int w = 0; w < words(merged).length; w++) {
+            int bitsInWord = Math.min(Long.SIZE, merged - w * Long.SIZE);
+            long withinFrom = bitsInWord == Long.SIZE ? -1L : (1L << bitsInWord) - 1;
+            presence[w] &= ~(~empties.presence[w] & withinFrom);
+        }
+        return new Optionals<>(source.values, presence, source.size);
     }
 
     /**
@@ -83,73 +130,118 @@ public class Optionals<E> implements Iterable<E> {
      * @param <V>
      * @return a new optionals
      */
+    @SuppressWarnings("unchecked")
     public <V> Optionals<V> map(final Function<E, V> mapper) {
         LOG.trace("map invoked with this :{} and mapper:{}", this, mapper);
-        return new Optionals<>(this.iterable.map(mapper));
+        if (view != null) {
+            return new Optionals<>(view, viewMapper.andThen((Function<Object, V>) mapper));
+        }
+        Object[] mapped = new Object[size];
+        long[] presence = this.presence.clone();
+        for (int i = nextPresent(0); i >= 0; i = nextPresent(i + 1)) {
+            mapped[i] = mapper.apply((E) values[i]);
+            if (mapped[i] == null) {
+                presence[i >>> 6] &= ~(1L << i);
+            }
+        }
+        return new Optionals<>(mapped, presence, size);
     }
 
     public Stream<E> stream() {
-        return StreamSupport.stream(this.iterable.spliterator(), false);
+        Optionals<E> source = materialize();
+        return StreamSupport.stream(Spliterators.spliterator(source.iterator(), source.count(),
+                Spliterator.ORDERED | Spliterator.NONNULL), false);
     }
 
     @Override
     public Iterator<E> iterator() {
-        return this.iterable.iterator();
+        Optionals<E> source = materialize();
+        return new Iterator<>() {
+            private int next = source.nextPresent(0);
+
+            @Override
+            public boolean hasNext() {
+                return next >= 0;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public E next() {
+                if (next < 0) {
+                    throw new NoSuchElementException();
+                }
+                E value = (E) source.values[next];
+                next = source.nextPresent(next + 1);
+                return value;
+            }
+        };
     }
 
     @Override
     public String toString() {
-        return this.stream()
-                .collect(
-                        StringBuilder::new,
-                        StringBuilder::append,
-                        StringBuilder::append
-                )
-                .toString();
+        Optionals<E> source = materialize();
+        StringBuilder builder = new StringBuilder();
+        for (int i = source.nextPresent(0); i >= 0; i = source.nextPresent(i + 1)) {
+            builder.append(source.values[i]);
+        }
+        return builder.toString();
     }
 
-    private static class OptionalIterable<V, E> implements Iterable<E> {
-        private final Function<V, E> mapper;
-        private final Iterable<Optional<V>> optionalIterable;
-
-        private OptionalIterable(Function<V, E> mapper, Iterable<Optional<V>> iterable) {
-            this.mapper = mapper;
-            this.optionalIterable = iterable;
+    /**
+     * @return this optionals if array backed, else a copy of the wrapped view into arrays.
+     */
+    @SuppressWarnings("unchecked")
+    private Optionals<E> materialize() {
+        if (view == null) {
+            return this;
         }
-
-        private Stream<Optional<E>> mappedStream() {
-            return StreamSupport.stream(rawIterable().spliterator(), false).map(o -> o.map(mapper));
+        Object[] copy = new Object[16];
+        long[] presence = words(copy.length);
+        int length = 0;
+        for (Optional<?> optional : view) {
+            if (length == copy.length) {
+                copy = Arrays.copyOf(copy, length * 2);
+                presence = Arrays.copyOf(presence, words(copy.length).length);
+            }
+            if (optional != null && optional.isPresent()) {
+                copy[length] = viewMapper.apply(optional.get());
+                if (copy[length] != null) {
+                    presence[length >>> 6] |= 1L << length;
+                }
+            }
+            length++;
         }
+        return new Optionals<>(copy, presence, length);
+    }
 
-        private Iterable<Optional<V>> rawIterable() {
-            return optionalIterable;
+    /**
+     * @return index of the first present value from the passed index on, or -1 if none is.
+     */
+    private int nextPresent(final int from) {
+        if (from >= size) {
+            return -1;
         }
-
-        private <R> OptionalIterable<V, R> map(final Function<E, R> func) {
-            return new OptionalIterable<>(this.mapper.andThen(func), this.optionalIterable);
+        int w = from >>> 6;
+        long word = presence[w] & (-1L << from);
+        while (word == 0) {
+            if (++w == presence.length) {
+                return -1;
+            }
+            word = presence[w];
         }
+        int index = w * Long.SIZE + Long.numberOfTrailingZeros(word);
+        return index < size ? index : -1;
+    }
 
-        @Override
-        public Iterator<E> iterator() {
-            return new Iterator<>() {
-                private final Iterator<E> nonOptionalList =
-                        mappedStream().filter(Optional::isPresent).map(Optional::get).iterator();
-
-                @Override
-                public boolean hasNext() {
-                    return nonOptionalList.hasNext();
-                }
-
-                @Override
-                public E next() {
-                    return nonOptionalList.next();
-                }
-
-                @Override
-                public String toString() {
-                    return nonOptionalList.toString();
-                }
-            };
+    private long count() {
+        long count = 0;
+        for (long word : presence) {
+            count += Long.bitCount(word);
         }
+        return count;
+    }
+
+    private static long[] words(final int length) {
+        return new long[(length + Long.SIZE - 1) >>> 6];
     }
 }
@@ -0,0 +1,242 @@
+package io.github.kn.flow;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * A {@link CompletionSubscriber} of bytes framing (and decoding) them into lines on a pool of workers, publishing
+ * the (mapped) lines to a downstream {@link CompletionSubscriber} in their original order, as per its demand.
+ * <br>
+ * Every received list of buffers is a block framed by a worker of its own, with a {@link LineFramer} starting at the
+ * block, i.e. resynchronizing on the first separator of the block; all lines but the first of the block are mapped by
+ * the worker too. Blocks are then stitched in order on a single thread: the first line of a block completes the
+ * partial line left at the end of the previous block, and framing resumes from where the block's framer left off.
+ * Should the previous block end within a multi byte separator, the block is framed again on the stitching thread.
+ * <br>
+ * Up to parallelism blocks are requested from upstream (and framed) ahead of the downstream demand.
+ */
+final class ParallelLineFramingCompletionSubscriber<T> implements CompletionSubscriber<List<ByteBuffer>> {
+
+    private static final Logger LOG = LogManager.getLogger("ParallelLineFramingCompletionSubscriber");
+    private final CompletionSubscriber<? super T> subscriberDelegate;
+    private final Charset charset;
+    private final String separator;
+    private final Function<TextLine, ? extends T> lineMapper;
+    private final Executor executor;
+    private final int parallelism;
+    private final LineFramer stitcher;
+    private final byte lineFeed;
+    private final Queue<CompletableFuture<Block<T>>> blocks = new ConcurrentLinkedQueue<>();
+    private final Queue<T> items = new ArrayDeque<>();
+    private final AtomicInteger pendingBlocks = new AtomicInteger();
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicInteger wip = new AtomicInteger();
+    private final AtomicInteger publishCount = new AtomicInteger();
+    private volatile CompletionSubscription upstream;
+    private volatile boolean upstreamDone;
+    private volatile Throwable error;
+    private boolean finished;
+    private boolean terminated;
+
+    /**
+     * @param cSet          charset of the bytes, UTF-8 or a single byte charset
+     * @param lineSeparator line separator, or null for any of "\n", "\r" or "\r\n"
+     * @param workers       executor framing the blocks
+     * @param maxBlocks     maximum number of blocks requested (and framed) ahead
+     */
+    ParallelLineFramingCompletionSubscriber(final CompletionSubscriber<? super T> delegate, final Charset cSet,
+                                            final String lineSeparator, final Executor workers, final int maxBlocks,
+                                            final Function<TextLine, ? extends T> mapper) {
+        if (maxBlocks < 1) {
+            throw new IllegalArgumentException("Invalid parallelism :" + maxBlocks);
+        }
+        this.subscriberDelegate = Objects.requireNonNull(delegate);
+        this.stitcher = new LineFramer(cSet, lineSeparator);
+        this.lineFeed = "\n".getBytes(cSet)[0];
+        this.charset = cSet;
+        this.separator = lineSeparator;
+        this.executor = Objects.requireNonNull(workers);
+        this.parallelism = maxBlocks;
+        this.lineMapper = Objects.requireNonNull(mapper);
+    }
+
+    @Override
+    public void onSubscribe(final CompletionSubscription subs) {
+        this.upstream = subs;
+        subscriberDelegate.onSubscribe(new CompletionSubscription() {
+            @Override
+            public void request(final long n) {
+                if (n <= 0) {
+                    subs.cancel();
+                    onError(new IllegalArgumentException("non-positive subscription request :" + n));
+                    return;
+                }
+                requested.accumulateAndGet(n, (a, b) -> a + b < 0 ? Long.MAX_VALUE : a + b);
+                drain();
+            }
+
+            @Override
+            public void cancel() {
+                subs.cancel();
+                LOG.warn("Subscription cancelled by subscriber {} after publishing {} items", subscriberDelegate,
+                        publishCount);
+            }
+
+            @Override
+            public void onComplete() {
+                subs.onComplete();
+                LOG.debug("Subscription completed by subscriber {} after publishing {} items", subscriberDelegate,
+                        publishCount);
+            }
+        });
+    }
+
+    @Override
+    public void onNext(final List<ByteBuffer> byteBuffers) {
+        LOG.trace("onNext {}", byteBuffers);
+        CompletableFuture<Block<T>> block = CompletableFuture.supplyAsync(() -> frame(byteBuffers), executor);
+        blocks.add(block);
+        block.whenComplete((b, e) -> drain());
+    }
+
+    @Override
+    public void onError(final Throwable throwable) {
+        if (error == null) {
+            error = throwable;
+        }
+        drain();
+    }
+
+    @Override
+    public void onComplete() {
+        LOG.debug("onComplete");
+        upstreamDone = true;
+        drain();
+    }
+
+    private Block<T> frame(final List<ByteBuffer> byteBuffers) {
+        LineFramer framer = new LineFramer(charset, separator);
+        List<TextLine> lines = new ArrayList<>();
+        byteBuffers.forEach(buffer -> framer.frame(buffer, lines::add));
+        List<T> mapped = new ArrayList<>(Math.max(lines.size() - 1, 0));
+        for (int i = 1; i < lines.size(); i++) {
+            mapped.add(lineMapper.apply(lines.get(i)));
+        }
+        return new Block<>(byteBuffers, lines.isEmpty() ? null : lines.get(0), mapped, framer);
+    }
+
+    private void stitch(final Block<T> block) {
+        if (block.head == null || stitcher.isWithinSeparator()) {
+            block.buffers.forEach(buffer -> stitcher.frame(buffer, line -> items.add(lineMapper.apply(line))));
+            return;
+        }
+        if (!stitcher.isSkippingLineFeed() || !block.startsWith(lineFeed)) {
+            items.add(lineMapper.apply(stitcher.completeLine(block.head)));
+        }
+        items.addAll(block.items);
+        stitcher.resumeFrom(block.framer);
+    }
+
+    private void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            if (terminated) {
+                return;
+            }
+            CompletableFuture<Block<T>> block;
+            while (error == null && (block = blocks.peek()) != null && block.isDone()) {
+                blocks.poll();
+                pendingBlocks.decrementAndGet();
+                try {
+                    stitch(block.join());
+                } catch (CompletionException e) {
+                    error = e.getCause();
+                }
+            }
+            Throwable throwable = error;
+            if (throwable != null) {
+                terminated = true;
+                items.clear();
+                upstream.cancel();
+                subscriberDelegate.onError(throwable);
+                LOG.error("onError invoked after publishing " + publishCount + " items for:" + subscriberDelegate,
+                        throwable);
+                return;
+            }
+            if (upstreamDone && blocks.isEmpty() && !finished) {
+                finished = true;
+                stitcher.finish(line -> items.add(lineMapper.apply(line)));
+            }
+            long demand = requested.get();
+            long published = 0;
+            T item;
+            while (published != demand && (item = items.poll()) != null) {
+                subscriberDelegate.onNext(item);
+                published++;
+            }
+            if (published != 0) {
+                publishCount.addAndGet((int) published);
+                if (demand != Long.MAX_VALUE) {
+                    requested.addAndGet(-published);
+                }
+            }
+            if (finished && items.isEmpty()) {
+                terminated = true;
+                subscriberDelegate.onComplete();
+                LOG.info("onComplete invoked after publishing {} items for:{}", publishCount, subscriberDelegate);
+                return;
+            }
+            while (!upstreamDone && items.isEmpty() && requested.get() > 0 && upstream != null
+                    && pendingBlocks.get() < parallelism) {
+                pendingBlocks.incrementAndGet();
+                LOG.debug("Requesting 1 more item of bytes array");
+                upstream.request(1);
+            }
+        } while ((missed = wip.addAndGet(-missed)) != 0);
+    }
+
+    /**
+     * A framed block of buffers.
+     */
+    private static final class Block<T> {
+        private final List<ByteBuffer> buffers;
+        private final TextLine head;
+        private final List<T> items;
+        private final LineFramer framer;
+
+        private Block(final List<ByteBuffer> byteBuffers, final TextLine firstLine, final List<T> mappedLines,
+                      final LineFramer blockFramer) {
+            this.buffers = byteBuffers;
+            this.head = firstLine;
+            this.items = mappedLines;
+            this.framer = blockFramer;
+        }
+
+        private boolean startsWith(final byte b) {
+            for (ByteBuffer buffer : buffers) {
+                if (buffer.hasRemaining()) {
+                    return buffer.get(buffer.position()) == b;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package io.github.kn.flow;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * A {@link CompletionStageItemProcessor} pacing the calls to the wrapped processor to a sustained rate of permits per
+ * second, allowing bursts of up to {@code burst} calls.
+ * <br>
+ * Implemented as a token bucket in its virtual scheduling (GCRA) form: a single atomically updated
+ * theoretical arrival time, from which every {@code onNext} call reserves its permit with one compare-and-set.
+ * Calls whose permit is not yet available are delayed on the shared {@link CompletableFuture#delayedExecutor}
+ * timer, so the calling thread is never blocked.
+ *
+ * @see CompletionStageItemProcessor#rateLimited(double, int)
+ */
+final class RateLimitedItemProcessor<T, R> implements CompletionStageItemProcessor<T, R> {
+
+    private static final Logger LOG = LogManager.getLogger("RateLimitedItemProcessor");
+    private final CompletionStageItemProcessor<T, R> processor;
+    private final double permitsPerSecond;
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final AtomicLong theoreticalArrivalNanos;
+
+    RateLimitedItemProcessor(final CompletionStageItemProcessor<T, R> itemProcessor, final double permits,
+                             final int burst) {
+        if (!(permits > 0)) {
+            throw new IllegalArgumentException("permitsPerSecond must be positive :" + permits);
+        }
+        if (burst < 1) {
+            throw new IllegalArgumentException("burst must be positive :" + burst);
+        }
+        this.processor = Objects.requireNonNull(itemProcessor);
+        this.permitsPerSecond = permits;
+        this.intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / permits));
+        this.burstNanos = intervalNanos * burst;
+        this.theoreticalArrivalNanos = new AtomicLong(System.nanoTime());
+    }
+
+    @Override
+    public CompletionStage<Void> prepare() {
+        return processor.prepare();
+    }
+
+    @Override
+    public CompletionStage<R> onNext(final T item) {
+        long delayNanos = reserve();
+        if (delayNanos <= 0) {
+            return start(item);
+        }
+        LOG.trace("Delaying item {} by {}ns", item, delayNanos);
+        CompletableFuture<T> permitted = new CompletableFuture<>();
+        CompletableFuture.delayedExecutor(delayNanos, TimeUnit.NANOSECONDS).execute(() -> permitted.complete(item));
+        return permitted.thenCompose(this::start);
+    }
+
+    /**
+     * Reserves the next permit.
+     *
+     * @return nanos until the reserved permit is available, zero or less if available now.
+     */
+    private long reserve() {
+        long now = System.nanoTime();
+        long arrival;
+        long next;
+        do {
+            arrival = theoreticalArrivalNanos.get();
+            next = Math.max(arrival, now) + intervalNanos;
+        } while (!theoreticalArrivalNanos.compareAndSet(arrival, next));
+        return next - burstNanos - now;
+    }
+
+    private CompletionStage<R> start(final T item) {
+        try {
+            return processor.onNext(item);
+        } catch (Throwable t) {
+            return CompletableFuture.failedStage(t);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "RateLimited(" + processor + ", " + permitsPerSecond + "/s)";
+    }
+}
@@ -0,0 +1,111 @@
+package io.github.kn.flow;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.function.Consumer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+/**
+ * Frames a stream of bytes into records, parsing them in the same pass over the bytes. A framer is stateful (a
+ * record may span several buffers), so is not thread-safe and frames a single stream of bytes.
+ * <br>
+ * Records may be views of the framed buffers, only valid as long as the buffers are not reused by their producer.
+ *
+ * @param <R> type of the framed records
+ * @see ByteBufferFramingCompletionSubscriberAdapter
+ */
+public interface RecordFramer<R> {
+
+    /**
+     * @param cSet      charset of the bytes, UTF-8 or a single byte charset
+     * @param separator line separator, or null for any of "\n", "\r" or "\r\n"
+     * @return a framer of text lines, see {@link TextLine}.
+     */
+    static RecordFramer<TextLine> lines(final Charset cSet, final String separator) {
+        return new LineFramer(cSet, separator);
+    }
+
+    /**
+     * @param type type of the JSON objects
+     * @return a framer of newline-delimited (UTF-8) JSON values into objects of the passed type, see
+     * {@link #jsonLines(ObjectReader)}.
+     */
+    static <T> RecordFramer<T> jsonLines(final Class<T> type) {
+        return jsonLines(new ObjectMapper().readerFor(type));
+    }
+
+    /**
+     * @param reader reader of the JSON values
+     * @return a framer of newline-delimited (UTF-8) JSON values, each line parsed straight from its bytes (never
+     * decoded into a String) by the passed reader; blank lines are skipped.
+     */
+    static <T> RecordFramer<T> jsonLines(final ObjectReader reader) {
+        return new JsonLinesFramer<>(reader);
+    }
+
+    /**
+     * @param cSet      charset of the bytes, UTF-8 or a single byte charset
+     * @param delimiter field delimiter
+     * @return a framer of RFC 4180 CSV records into their list of fields; fields may be quoted, quoted fields
+     * holding delimiters, line breaks or (doubled) quotes. Records end at "\r\n" or a bare "\n" or "\r"; blank
+     * lines are skipped.
+     */
+    static RecordFramer<List<String>> csv(final Charset cSet, final char delimiter) {
+        return new CsvFramer(cSet, delimiter);
+    }
+
+    /**
+     * @return a framer of binary records, each preceded by its length as a 4 byte big-endian int, of 64 MiB at most.
+     * @see #lengthPrefixed(int)
+     */
+    static RecordFramer<ByteBuffer> lengthPrefixed() {
+        return lengthPrefixed(LengthPrefixedFramer.DEFAULT_MAX_LENGTH);
+    }
+
+    /**
+     * @param maxLength maximum length of a record, larger length prefixes failing the framing (before any buffer is
+     *                  allocated for the record)
+     * @return a framer of binary records, each preceded by its length as a 4 byte big-endian int.
+     */
+    static RecordFramer<ByteBuffer> lengthPrefixed(final int maxLength) {
+        return new LengthPrefixedFramer(maxLength);
+    }
+
+    /**
+     * Frames the remaining bytes of the passed buffer, leaving its position unchanged. A buffering framer (see
+     * {@link #hasBuffered()}) may hold on to (a view of) the buffer instead, until its bytes are framed.
+     *
+     * @param buffer  bytes to frame
+     * @param records consumer of the framed records
+     * @throws IllegalArgumentException if the bytes can not be framed into a record
+     */
+    void frame(ByteBuffer buffer, Consumer<? super R> records);
+
+    /**
+     * @return true if bytes passed to {@link #frame(ByteBuffer, Consumer)} are held on to, not framed yet, the
+     * framer framing them a part at a time by {@link #frameBuffered(Consumer)}, as the records are demanded.
+     */
+    default boolean hasBuffered() {
+        return false;
+    }
+
+    /**
+     * Frames the next part of the bytes held on to, if any.
+     *
+     * @param records consumer of the framed records
+     * @throws IllegalArgumentException if the bytes can not be framed into a record
+     */
+    default void frameBuffered(final Consumer<? super R> records) {
+    }
+
+    /**
+     * Frames the partial record left at the end of the bytes, if any.
+     *
+     * @param records consumer of the framed record
+     * @throws IllegalArgumentException if the bytes left can not be framed into a record
+     */
+    void finish(Consumer<? super R> records);
+}
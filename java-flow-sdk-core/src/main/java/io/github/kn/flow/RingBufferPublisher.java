@@ -0,0 +1,295 @@
+package io.github.kn.flow;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * An {@link ItemPublisher} backed by a pre-allocated ring buffer shared by all producers and subscribers.
+ * <br>
+ * Producers claim a ring sequence with a single atomic increment, store the item into its pre-allocated slot and mark
+ * the slot published, so submitting allocates nothing. A producer finding the ring full (its slot not yet consumed by
+ * every subscriber) waits as per the configured {@link WaitStrategy}.
+ * <br>
+ * Slots consumed by every subscriber are cleared, so that consumed items are not kept reachable for a whole ring
+ * cycle, by a single thread at a time (subscribers after delivering, producers waiting for capacity), which advances
+ * the cleared sequence producers wait on. New subscriptions are registered by the clearing thread too, starting after
+ * the last claimed sequence, so that no slot is cleared or reclaimed past the start of a subscription.
+ * <br>
+ * Subscribers track their own sequence in the ring rather than buffering items. Delivery to a subscriber is a drain
+ * task run on the configured executor, handing every published item covered by the subscriber's demand over in one
+ * batch; publishing while the task runs only makes it loop again rather than scheduling another task.
+ * <br>
+ * As with {@link java.util.concurrent.SubmissionPublisher}, items submitted while there are no subscribers are
+ * dropped, and a subscriber receives the items submitted after it subscribes.
+ */
+public final class RingBufferPublisher<T> implements ItemPublisher<T> {
+
+    private static final Logger LOG = LogManager.getLogger("RingBufferPublisher");
+    private final Object[] slots;
+    private final AtomicLongArray published;
+    private final int mask;
+    private final Executor executor;
+    private final WaitStrategy waitStrategy;
+    private final AtomicLong claimed = new AtomicLong(-1);
+    private final List<RingSubscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final Queue<RingSubscription> pendingSubscriptions = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger clearingWip = new AtomicInteger();
+    private volatile long cleared = -1;
+    private volatile boolean closed;
+
+    /**
+     * @param capacity     ring capacity, rounded up to a power of two
+     * @param exec         runs the delivery to subscribers
+     * @param waitStrategy how producers wait for a full ring to be consumed
+     */
+    public RingBufferPublisher(final int capacity, final Executor exec, final WaitStrategy waitStrategy) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive :" + capacity);
+        }
+        int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.slots = new Object[size];
+        this.published = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            published.set(i, -1);
+        }
+        this.mask = size - 1;
+        this.executor = Objects.requireNonNull(exec);
+        this.waitStrategy = Objects.requireNonNull(waitStrategy);
+    }
+
+    @Override
+    public void subscribe(final Flow.Subscriber<? super T> subscriber) {
+        Objects.requireNonNull(subscriber);
+        RingSubscription subscription = new RingSubscription(subscriber);
+        pendingSubscriptions.add(subscription);
+        subscriber.onSubscribe(subscription);
+        clear();
+    }
+
+    @Override
+    public int submit(final T item) {
+        Objects.requireNonNull(item);
+        if (closed) {
+            throw new IllegalStateException("Closed");
+        }
+        long sequence = claimed.incrementAndGet();
+        long wrapPoint = sequence - slots.length;
+        if (wrapPoint > cleared) {
+            awaitCapacity(wrapPoint);
+        }
+        int index = (int) sequence & mask;
+        slots[index] = item;
+        published.set(index, sequence);
+        long lag = 0;
+        for (RingSubscription subscription : subscriptions) {
+            subscription.signal();
+            lag = Math.max(lag, sequence - subscription.consumed);
+        }
+        return (int) Math.min(lag, Integer.MAX_VALUE);
+    }
+
+    private void awaitCapacity(final long wrapPoint) {
+        int iteration = 0;
+        clear();
+        while (wrapPoint > cleared) {
+            waitStrategy.idle(iteration++);
+            clear();
+        }
+    }
+
+    /**
+     * Registers pending subscriptions, then clears the slots consumed by every subscriber, advancing the cleared
+     * sequence; run by a single thread at a time, any other thread calling in making it loop again.
+     */
+    private void clear() {
+        if (clearingWip.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            RingSubscription pending;
+            while ((pending = pendingSubscriptions.poll()) != null) {
+                pending.consumed = claimed.get();
+                subscriptions.add(pending);
+                pending.signal();
+            }
+            long from = cleared;
+            long to = minimumConsumed();
+            for (long sequence = Math.max(from + 1, to - slots.length + 1); sequence <= to; sequence++) {
+                slots[(int) sequence & mask] = null;
+            }
+            if (to > from) {
+                cleared = to;
+            }
+        } while ((missed = clearingWip.addAndGet(-missed)) != 0);
+    }
+
+    private long minimumConsumed() {
+        // read ahead of the subscriptions: without subscribers, nothing claimed so far is to be delivered
+        long lastClaimed = claimed.get();
+        long minimum = Long.MAX_VALUE;
+        for (RingSubscription subscription : subscriptions) {
+            minimum = Math.min(minimum, subscription.consumed);
+        }
+        return minimum == Long.MAX_VALUE ? lastClaimed : minimum;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        subscriptions.forEach(RingSubscription::signal);
+    }
+
+    public int getNumberOfSubscribers() {
+        return subscriptions.size() + pendingSubscriptions.size();
+    }
+
+    public int getCapacity() {
+        return slots.length;
+    }
+
+    @Override
+    public String toString() {
+        return "RingBufferPublisher(" + slots.length + ", " + waitStrategy + ")";
+    }
+
+    /**
+     * How producers wait for capacity in a full ring.
+     */
+    public enum WaitStrategy {
+        /**
+         * Busy spins, lowest latency at the cost of a fully used core while waiting.
+         */
+        SPIN {
+            @Override
+            void idle(final int iteration) {
+                Thread.onSpinWait();
+            }
+        },
+        /**
+         * Spins briefly, then yields the core to other threads.
+         */
+        YIELD {
+            @Override
+            void idle(final int iteration) {
+                if (iteration < SPIN_ITERATIONS) {
+                    Thread.onSpinWait();
+                } else {
+                    Thread.yield();
+                }
+            }
+        },
+        /**
+         * Spins briefly, then parks for increasing durations of up to a millisecond.
+         */
+        PARK {
+            @Override
+            void idle(final int iteration) {
+                if (iteration < SPIN_ITERATIONS) {
+                    Thread.onSpinWait();
+                } else {
+                    LockSupport.parkNanos(Math.min(iteration - SPIN_ITERATIONS + 1, 1000) * 1000L);
+                }
+            }
+        };
+
+        private static final int SPIN_ITERATIONS = 100;
+
+        abstract void idle(int iteration);
+    }
+
+    private final class RingSubscription implements Flow.Subscription {
+        private final Flow.Subscriber<? super T> subscriber;
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private final Runnable drainTask = this::drain;
+        private volatile long consumed = Long.MIN_VALUE;
+        private volatile boolean cancelled;
+        private volatile Throwable requestError;
+
+        private RingSubscription(final Flow.Subscriber<? super T> sub) {
+            this.subscriber = sub;
+        }
+
+        @Override
+        public void request(final long n) {
+            if (n <= 0) {
+                requestError = new IllegalArgumentException("non-positive subscription request :" + n);
+            } else {
+                requested.accumulateAndGet(n, (a, b) -> a + b < 0 ? Long.MAX_VALUE : a + b);
+            }
+            signal();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            pendingSubscriptions.remove(this);
+            subscriptions.remove(this);
+        }
+
+        private void signal() {
+            if (wip.getAndIncrement() == 0) {
+                executor.execute(drainTask);
+            }
+        }
+
+        private void drain() {
+            int missed = 1;
+            do {
+                if (requestError != null) {
+                    cancel();
+                    subscriber.onError(requestError);
+                    return;
+                }
+                if (consumed == Long.MIN_VALUE) {
+                    // not registered yet, signalled once registered
+                    continue;
+                }
+                long next = consumed + 1;
+                long demand = requested.get();
+                long delivered = 0;
+                while (!cancelled && delivered < demand && published.get((int) next & mask) == next) {
+                    @SuppressWarnings("unchecked")
+                    T item = (T) slots[(int) next & mask];
+                    consumed = next++;
+                    delivered++;
+                    try {
+                        subscriber.onNext(item);
+                    } catch (Throwable t) {
+                        LOG.error("Subscriber onNext failed, cancelling its subscription", t);
+                        cancel();
+                        subscriber.onError(t);
+                        return;
+                    }
+                }
+                if (delivered > 0) {
+                    if (demand != Long.MAX_VALUE) {
+                        requested.addAndGet(-delivered);
+                    }
+                    clear();
+                }
+                if (cancelled) {
+                    return;
+                }
+                if (closed && consumed == claimed.get()) {
+                    cancel();
+                    subscriber.onComplete();
+                    return;
+                }
+            } while ((missed = wip.addAndGet(-missed)) != 0);
+        }
+    }
+}
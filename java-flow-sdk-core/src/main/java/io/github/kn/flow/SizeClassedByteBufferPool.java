@@ -0,0 +1,128 @@
+package io.github.kn.flow;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link ByteBufferPool} of direct buffers, in power of two size classes from a minimum to a maximum size.
+ * <br>
+ * Released buffers are cached per thread first, up to a number per size class, then in a pool shared by all threads,
+ * up to a number per size class too; buffers released beyond are dropped. Acquiring takes a buffer of the smallest
+ * class fitting the capacity from the thread cache, else from the shared pool, else allocates one. Capacities beyond
+ * the maximum size are allocated unpooled. Released buffers not direct, or of a capacity not a size class of this pool,
+ * are ignored.
+ */
+public final class SizeClassedByteBufferPool implements ByteBufferPool {
+
+    /**
+     * Shared pool of 4KB to 1MB buffers, caching up to 16 buffers per size class per thread, and 64 more shared.
+     */
+    public static final SizeClassedByteBufferPool DEFAULT = new SizeClassedByteBufferPool(4 * 1024, 1024 * 1024,
+            16, 64);
+
+    private final int minSizeShift;
+    private final int maxSize;
+    private final int threadCacheSize;
+    private final int sharedSize;
+    private final SharedPool[] shared;
+    private final ThreadLocal<List<ArrayDeque<ByteBuffer>>> threadCaches;
+    private final LongAdder allocations = new LongAdder();
+
+    /**
+     * @param minSize         size of the smallest size class, a power of two
+     * @param maxSize         size of the largest size class, a power of two
+     * @param threadCacheSize maximum number of buffers cached per thread, per size class
+     * @param sharedSize      maximum number of buffers pooled across threads, per size class
+     */
+    public SizeClassedByteBufferPool(final int minSize, final int maxSize, final int threadCacheSize,
+                                     final int sharedSize) {
+        if (Integer.bitCount(minSize) != 1 || Integer.bitCount(maxSize) != 1 || minSize > maxSize
+                || threadCacheSize < 0 || sharedSize < 0) {
+            throw new IllegalArgumentException("Invalid pool, minSize :" + minSize + " maxSize :" + maxSize
+                    + " threadCacheSize :" + threadCacheSize + " sharedSize :" + sharedSize);
+        }
+        this.minSizeShift = Integer.numberOfTrailingZeros(minSize);
+        this.maxSize = maxSize;
+        this.threadCacheSize = threadCacheSize;
+        this.sharedSize = sharedSize;
+        int classes = Integer.numberOfTrailingZeros(maxSize) - minSizeShift + 1;
+        this.shared = new SharedPool[classes];
+        for (int i = 0; i < classes; i++) {
+            shared[i] = new SharedPool();
+        }
+        this.threadCaches = ThreadLocal.withInitial(() -> {
+            List<ArrayDeque<ByteBuffer>> caches = new ArrayList<>(classes);
+            for (int i = 0; i < classes; i++) {
+                caches.add(new ArrayDeque<>(threadCacheSize));
+            }
+            return caches;
+        });
+    }
+
+    @Override
+    public ByteBuffer acquire(final int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Negative capacity :" + capacity);
+        }
+        if (capacity > maxSize) {
+            allocations.increment();
+            return ByteBuffer.allocateDirect(capacity);
+        }
+        int sizeClass = sizeClass(capacity);
+        ByteBuffer buffer = threadCaches.get().get(sizeClass).pollFirst();
+        if (buffer == null) {
+            buffer = shared[sizeClass].buffers.poll();
+            if (buffer != null) {
+                shared[sizeClass].count.decrementAndGet();
+            } else {
+                allocations.increment();
+                buffer = ByteBuffer.allocateDirect(1 << (sizeClass + minSizeShift));
+            }
+        }
+        return buffer.clear().limit(capacity);
+    }
+
+    @Override
+    public void release(final ByteBuffer buffer) {
+        int capacity = buffer.capacity();
+        if (!buffer.isDirect() || Integer.bitCount(capacity) != 1 || capacity > maxSize
+                || capacity < 1 << minSizeShift) {
+            return;
+        }
+        int sizeClass = sizeClass(capacity);
+        ArrayDeque<ByteBuffer> cache = threadCaches.get().get(sizeClass);
+        SharedPool pool = shared[sizeClass];
+        if (cache.size() < threadCacheSize) {
+            cache.addFirst(buffer);
+        } else if (pool.count.incrementAndGet() <= sharedSize) {
+            pool.buffers.offer(buffer);
+        } else {
+            pool.count.decrementAndGet();
+        }
+    }
+
+    /**
+     * @return number of buffers allocated by this pool so far, for want of a pooled one.
+     */
+    public long getAllocationCount() {
+        return allocations.sum();
+    }
+
+    private int sizeClass(final int capacity) {
+        return Math.max(0, Integer.SIZE - Integer.numberOfLeadingZeros(Math.max(capacity, 1) - 1) - minSizeShift);
+    }
+
+    /**
+     * Buffers of a size class pooled across threads, counted apart as the queue's size is not constant time.
+     */
+    private static final class SharedPool {
+        private final Queue<ByteBuffer> buffers = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger count = new AtomicInteger();
+    }
+}
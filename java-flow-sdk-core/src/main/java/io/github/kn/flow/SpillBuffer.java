@@ -0,0 +1,292 @@
+package io.github.kn.flow;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * A FIFO buffer holding up to a memory threshold of items on heap, spilling any further items to an append-only log
+ * of memory-mapped segment files.
+ * <br>
+ * Once spilling, every added item is appended to the log until the log is drained again, so items are always polled
+ * in the order they were added. Every record is a 4 byte length followed by the item encoded by the
+ * {@link SpillCodec}. The log does not survive the JVM, it only moves bursts of items off the heap.
+ * <br>
+ * Once all its records are polled, a segment is kept for reuse by the next spilled records, up to
+ * {@link #RETAINED_SEGMENTS} of them, else its file is deleted. The memory mapping of a deleted file (and with it the
+ * disk space and page cache behind it) is only released once its buffer is garbage collected, the JDK offering no
+ * unmapping, so reusing segments bounds the mappings a steadily spilling buffer leaves behind. Closing the buffer
+ * deletes all its segment files, and discards any item added afterwards.
+ * <br>
+ * Given an indexer, the keys of every buffered item (e.g. the receipt handles of polled messages) are kept on heap
+ * alongside it, maintained on add and poll, so that they are listed without decoding the spilled records.
+ * <br>
+ * The capacity is the number of buffered items beyond which the owner is to stop adding items ahead of need (e.g.
+ * polling ahead of the subscribers' demand); items are still added past it.
+ *
+ * @see AbstractPollingPublisher.Builder#setSpillBuffer(Path, int)
+ */
+public final class SpillBuffer<T> implements AutoCloseable {
+
+    public static final int DEFAULT_SEGMENT_SIZE = 64 << 20;
+    /**
+     * Maximum number of drained segments kept for reuse.
+     */
+    public static final int RETAINED_SEGMENTS = 1;
+    private static final Logger LOG = LogManager.getLogger("SpillBuffer");
+    private final Path directory;
+    private final int memoryThreshold;
+    private final int segmentSize;
+    private final long capacity;
+    private final SpillCodec<T> codec;
+    private final Optional<Function<? super T, ? extends Collection<String>>> indexer;
+    private final Deque<T> memory = new ArrayDeque<>();
+    private final Deque<Segment> segments = new ArrayDeque<>();
+    private final Deque<Segment> retained = new ArrayDeque<>();
+    private final Deque<Collection<String>> index = new ArrayDeque<>();
+    private long spilled;
+    private boolean closed;
+
+    public SpillBuffer(final Path dir, final int threshold, final SpillCodec<T> spillCodec) {
+        this(dir, threshold, DEFAULT_SEGMENT_SIZE, spillCodec);
+    }
+
+    /**
+     * @param dir         directory to create the segment files in
+     * @param threshold   maximum number of items held on heap, also the capacity
+     * @param segmentSize size in bytes of a segment file, grown to fit records larger than it
+     * @param spillCodec  encodes the spilled items
+     */
+    public SpillBuffer(final Path dir, final int threshold, final int segmentSize, final SpillCodec<T> spillCodec) {
+        this(dir, threshold, segmentSize, threshold, spillCodec, Optional.empty());
+    }
+
+    /**
+     * @param dir         directory to create the segment files in
+     * @param threshold   maximum number of items held on heap
+     * @param segmentSize size in bytes of a segment file, grown to fit records larger than it
+     * @param maxItems    capacity, number of buffered items beyond which items are not to be added ahead of need
+     * @param spillCodec  encodes the spilled items
+     * @param keys        indexer of the keys of every item, kept on heap
+     */
+    public SpillBuffer(final Path dir, final int threshold, final int segmentSize, final long maxItems,
+                       final SpillCodec<T> spillCodec,
+                       final Optional<Function<? super T, ? extends Collection<String>>> keys) {
+        if (threshold < 0 || segmentSize <= Integer.BYTES || maxItems < 0) {
+            throw new IllegalArgumentException("Invalid spill buffer, memoryThreshold :" + threshold
+                    + " segmentSize :" + segmentSize + " capacity :" + maxItems);
+        }
+        this.directory = Objects.requireNonNull(dir);
+        this.memoryThreshold = threshold;
+        this.segmentSize = segmentSize;
+        this.capacity = maxItems;
+        this.codec = Objects.requireNonNull(spillCodec);
+        this.indexer = Objects.requireNonNull(keys);
+    }
+
+    /**
+     * @param item item to add, spilled to disk if the memory threshold is reached or items are already spilled;
+     *             discarded if closed.
+     * @throws UncheckedIOException if spilling fails
+     */
+    public synchronized void add(final T item) {
+        Objects.requireNonNull(item);
+        if (closed) {
+            LOG.debug("Discarding item added to closed {}", this);
+            return;
+        }
+        indexer.ifPresent(keys -> index.addLast(keys.apply(item)));
+        if (spilled == 0 && memory.size() < memoryThreshold) {
+            memory.addLast(item);
+            return;
+        }
+        byte[] record = codec.encode(item);
+        Segment tail = segments.peekLast();
+        if (tail == null || !tail.hasRoomFor(record.length)) {
+            tail = Integer.BYTES + record.length <= segmentSize && !retained.isEmpty() ? retained.pop()
+                    : Segment.create(directory, Math.max(segmentSize, Integer.BYTES + record.length));
+            LOG.debug("Spilling to new segment, {} items spilled", spilled);
+            segments.addLast(tail);
+        }
+        tail.append(record);
+        spilled++;
+    }
+
+    /**
+     * @return the oldest item, or null if empty.
+     */
+    public synchronized T poll() {
+        if (indexer.isPresent()) {
+            index.pollFirst();
+        }
+        T item = memory.pollFirst();
+        if (item != null || spilled == 0) {
+            return item;
+        }
+        Segment head = segments.getFirst();
+        item = codec.decode(head.next());
+        spilled--;
+        if (!head.hasNext()) {
+            segments.removeFirst();
+            if (retained.size() < RETAINED_SEGMENTS && head.capacity() == segmentSize) {
+                retained.push(head.reset());
+            } else {
+                head.close();
+            }
+        }
+        return item;
+    }
+
+    /**
+     * Performs the passed action on every buffered item, oldest first, without removing them.
+     *
+     * @param action action to perform
+     */
+    public synchronized void forEach(final Consumer<? super T> action) {
+        memory.forEach(action);
+        segments.forEach(s -> s.forEach(record -> action.accept(codec.decode(record))));
+    }
+
+    /**
+     * @return the keys of the buffered items, oldest first, copied from the on heap index; empty without an indexer.
+     */
+    public synchronized List<String> getIndexedKeys() {
+        List<String> keys = new ArrayList<>();
+        index.forEach(keys::addAll);
+        return keys;
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    public synchronized long size() {
+        return memory.size() + spilled;
+    }
+
+    public synchronized boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * @return number of items currently spilled to disk.
+     */
+    public synchronized long getSpilledCount() {
+        return spilled;
+    }
+
+    /**
+     * @return the number of mapped segments, retained ones included.
+     */
+    synchronized int getSegmentCount() {
+        return segments.size() + retained.size();
+    }
+
+    /**
+     * Discards the buffered items, deleting the segment files.
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        memory.clear();
+        index.clear();
+        segments.forEach(Segment::close);
+        segments.clear();
+        retained.forEach(Segment::close);
+        retained.clear();
+        spilled = 0;
+    }
+
+    @Override
+    public String toString() {
+        return "SpillBuffer(" + directory + ", memoryThreshold=" + memoryThreshold + ")";
+    }
+
+    private static final class Segment {
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private int readPosition;
+
+        private Segment(final FileChannel fileChannel, final MappedByteBuffer mapped) {
+            this.channel = fileChannel;
+            this.buffer = mapped;
+        }
+
+        private static Segment create(final Path dir, final int size) {
+            try {
+                Path file = Files.createTempFile(dir, "spill-", ".segment");
+                FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                        StandardOpenOption.DELETE_ON_CLOSE);
+                return new Segment(channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed creating spill segment in " + dir, e);
+            }
+        }
+
+        private int capacity() {
+            return buffer.capacity();
+        }
+
+        private Segment reset() {
+            buffer.clear();
+            readPosition = 0;
+            return this;
+        }
+
+        private boolean hasRoomFor(final int length) {
+            return buffer.remaining() >= Integer.BYTES + length;
+        }
+
+        private void append(final byte[] record) {
+            buffer.putInt(record.length).put(record);
+        }
+
+        private boolean hasNext() {
+            return readPosition < buffer.position();
+        }
+
+        private byte[] next() {
+            byte[] record = read(readPosition);
+            readPosition += Integer.BYTES + record.length;
+            return record;
+        }
+
+        private byte[] read(final int position) {
+            byte[] record = new byte[buffer.getInt(position)];
+            buffer.get(position + Integer.BYTES, record);
+            return record;
+        }
+
+        private void forEach(final Consumer<byte[]> action) {
+            for (int position = readPosition; position < buffer.position(); ) {
+                byte[] record = read(position);
+                action.accept(record);
+                position += Integer.BYTES + record.length;
+            }
+        }
+
+        private void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                LOG.warn("Failed deleting spill segment", e);
+            }
+        }
+    }
+}
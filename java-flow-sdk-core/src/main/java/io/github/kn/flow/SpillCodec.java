@@ -0,0 +1,32 @@
+package io.github.kn.flow;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encodes items to bytes and back, for a {@link SpillBuffer} to hold them off-heap.
+ *
+ * @see SpillBuffer
+ */
+public interface SpillCodec<T> {
+
+    /**
+     * @return a codec of UTF-8 encoded strings.
+     */
+    static SpillCodec<String> utf8() {
+        return new SpillCodec<>() {
+            @Override
+            public byte[] encode(final String item) {
+                return item.getBytes(StandardCharsets.UTF_8);
+            }
+
+            @Override
+            public String decode(final byte[] bytes) {
+                return new String(bytes, StandardCharsets.UTF_8);
+            }
+        };
+    }
+
+    byte[] encode(T item);
+
+    T decode(byte[] bytes);
+}
@@ -0,0 +1,76 @@
+package io.github.kn.flow;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Processing metrics of one instrumented {@link CompletionStageItemProcessor} stage: the number of started,
+ * successfully completed and failed items, the number of items in flight and a histogram of processing latencies
+ * (in nanoseconds).
+ * <br>
+ * All counters are {@link LongAdder}s, so recording neither contends nor allocates under load.
+ *
+ * @see CompletionStageItemProcessor#instrumented(String, StageMetricsRegistry)
+ */
+public final class StageMetrics {
+
+    private final String name;
+    private final LongAdder started = new LongAdder();
+    private final LongAdder succeeded = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LatencyHistogram latencies = new LatencyHistogram();
+
+    StageMetrics(final String stageName) {
+        this.name = stageName;
+    }
+
+    void onStart() {
+        started.increment();
+    }
+
+    void onComplete(final long latencyNanos, final boolean failure) {
+        (failure ? failed : succeeded).increment();
+        latencies.record(latencyNanos);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getStarted() {
+        return started.sum();
+    }
+
+    public long getSucceeded() {
+        return succeeded.sum();
+    }
+
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    /**
+     * @return number of items whose processing started but is yet to complete, never negative.
+     */
+    public long getInFlight() {
+        // completions are summed ahead of starts, every item starting before it completes; the sums are no atomic
+        // snapshot though, so the difference is clamped at zero
+        long completed = succeeded.sum() + failed.sum();
+        return Math.max(0, started.sum() - completed);
+    }
+
+    /**
+     * @return histogram of the processing latencies, in nanoseconds, of completed items.
+     */
+    public LatencyHistogram getLatencies() {
+        return latencies;
+    }
+
+    @Override
+    public String toString() {
+        return name + "(started=" + getStarted() + ", succeeded=" + getSucceeded() + ", failed=" + getFailed()
+                + ", inFlight=" + getInFlight() + ", p50=" + TimeUnit.NANOSECONDS
+                .toMicros(latencies.getValueAtPercentile(0.5)) + "us, p99=" + TimeUnit.NANOSECONDS
+                .toMicros(latencies.getValueAtPercentile(0.99)) + "us)";
+    }
+}
@@ -0,0 +1,41 @@
+package io.github.kn.flow;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Registry of the {@link StageMetrics} of instrumented {@link CompletionStageItemProcessor} stages, by stage name.
+ * Instrumenting the stages of a composed pipeline into one registry gives a per-stage breakdown of the pipeline's
+ * processing.
+ *
+ * @see CompletionStageItemProcessor#instrumented(String, StageMetricsRegistry)
+ */
+public final class StageMetricsRegistry {
+
+    private final Map<String, StageMetrics> stages = new ConcurrentHashMap<>();
+
+    /**
+     * @param name stage name
+     * @return metrics of the named stage, registered if absent.
+     */
+    StageMetrics stage(final String name) {
+        return stages.computeIfAbsent(name, StageMetrics::new);
+    }
+
+    public Optional<StageMetrics> getStage(final String name) {
+        return Optional.ofNullable(stages.get(name));
+    }
+
+    public Collection<StageMetrics> getStages() {
+        return Collections.unmodifiableCollection(stages.values());
+    }
+
+    @Override
+    public String toString() {
+        return stages.values().stream().map(StageMetrics::toString).collect(Collectors.joining(", ", "[", "]"));
+    }
+}
@@ -0,0 +1,103 @@
+package io.github.kn.flow;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Objects;
+
+/**
+ * A line of text framed from a byte stream, as a view of the (not yet decoded) bytes of the line.
+ * <br>
+ * The bytes are only decoded on the first {@link #toString()} (or {@link CharSequence}) call, and cached from
+ * there on. A line spanning several received buffers is a view of slices of each, none of the bytes being copied
+ * unless {@link #asByteBuffer()} is called. Being views, lines are only valid as long as the received buffers are
+ * not reused by their producer.
+ *
+ * @see ByteBufferToTextLineCompletionSubscriberAdapter#adaptTextLines(CompletionSubscriber, Charset, String)
+ */
+public final class TextLine implements CharSequence {
+
+    private final ByteBuffer[] segments;
+    private final Charset charset;
+    private volatile String decoded;
+
+    TextLine(final ByteBuffer[] byteSegments, final Charset cSet) {
+        this.segments = byteSegments;
+        this.charset = Objects.requireNonNull(cSet);
+    }
+
+    TextLine(final ByteBuffer bytes, final Charset cSet) {
+        this(new ByteBuffer[]{bytes}, cSet);
+    }
+
+    /**
+     * @return number of bytes of the line, excluding the line separator.
+     */
+    public int getByteLength() {
+        int length = 0;
+        for (ByteBuffer segment : segments) {
+            length += segment.remaining();
+        }
+        return length;
+    }
+
+    /**
+     * @return a read-only buffer of the line bytes, copying them only if the line spans several received buffers.
+     */
+    public ByteBuffer asByteBuffer() {
+        if (segments.length == 1) {
+            return segments[0].asReadOnlyBuffer();
+        }
+        ByteBuffer bytes = ByteBuffer.allocate(getByteLength());
+        for (ByteBuffer segment : segments) {
+            bytes.put(segment.duplicate());
+        }
+        return bytes.flip().asReadOnlyBuffer();
+    }
+
+    /**
+     * @return the slices of the received buffers making up the line, not copied.
+     */
+    ByteBuffer[] getSegments() {
+        return segments;
+    }
+
+    public Charset getCharset() {
+        return charset;
+    }
+
+    @Override
+    public int length() {
+        return toString().length();
+    }
+
+    @Override
+    public char charAt(final int index) {
+        return toString().charAt(index);
+    }
+
+    @Override
+    public CharSequence subSequence(final int start, final int end) {
+        return toString().subSequence(start, end);
+    }
+
+    @Override
+    public String toString() {
+        String text = decoded;
+        if (text == null) {
+            text = segments.length == 1 ? charset.decode(segments[0].duplicate()).toString() : charset
+                    .decode(asByteBuffer()).toString();
+            decoded = text;
+        }
+        return text;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        return o instanceof TextLine && toString().equals(o.toString());
+    }
+
+    @Override
+    public int hashCode() {
+        return toString().hashCode();
+    }
+}
@@ -0,0 +1,151 @@
+package io.github.kn.flow;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An {@link ItemPublisher} splitting the submitted items among its subscribers, in the manner of a consumer group:
+ * every item is delivered to exactly one subscriber, whichever has outstanding demand first.
+ * <br>
+ * Submitted items are queued until a subscriber requests them, so producers are expected to bound their submissions
+ * by the subscribers' total demand (e.g. via {@link AbstractPollingPublisher.PollingDemand}). Delivery to every
+ * subscriber is a drain task run on the configured executor; subscribers are drained concurrently, each
+ * sequentially.
+ */
+public final class WorkSharingPublisher<T> implements ItemPublisher<T> {
+
+    private static final Logger LOG = LogManager.getLogger("WorkSharingPublisher");
+    private final Executor executor;
+    private final Queue<T> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final List<Share> shares = new CopyOnWriteArrayList<>();
+    private volatile boolean closed;
+
+    /**
+     * @param exec runs the delivery to subscribers
+     */
+    public WorkSharingPublisher(final Executor exec) {
+        this.executor = Objects.requireNonNull(exec);
+    }
+
+    @Override
+    public void subscribe(final Flow.Subscriber<? super T> subscriber) {
+        Share share = new Share(Objects.requireNonNull(subscriber));
+        shares.add(share);
+        subscriber.onSubscribe(share);
+        if (closed) {
+            share.signal();
+        }
+    }
+
+    @Override
+    public int submit(final T item) {
+        Objects.requireNonNull(item);
+        if (closed) {
+            throw new IllegalStateException("Closed");
+        }
+        pending.add(item);
+        int lag = pendingCount.incrementAndGet();
+        for (Share share : shares) {
+            if (share.requested.get() > 0) {
+                share.signal();
+            }
+        }
+        return lag;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        shares.forEach(Share::signal);
+    }
+
+    public int getNumberOfSubscribers() {
+        return shares.size();
+    }
+
+    @Override
+    public String toString() {
+        return "WorkSharingPublisher(" + shares.size() + " subscribers, " + pendingCount.get() + " pending)";
+    }
+
+    private final class Share implements Flow.Subscription {
+        private final Flow.Subscriber<? super T> subscriber;
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private volatile boolean cancelled;
+        private volatile Throwable requestError;
+
+        private Share(final Flow.Subscriber<? super T> sub) {
+            this.subscriber = sub;
+        }
+
+        @Override
+        public void request(final long n) {
+            if (n <= 0) {
+                requestError = new IllegalArgumentException("non-positive subscription request :" + n);
+            } else {
+                requested.accumulateAndGet(n, (a, b) -> a + b < 0 ? Long.MAX_VALUE : a + b);
+            }
+            signal();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            shares.remove(this);
+            // hand items this share was signalled for over to the remaining shares
+            shares.forEach(Share::signal);
+        }
+
+        private void signal() {
+            if (wip.getAndIncrement() == 0) {
+                executor.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            int missed = 1;
+            do {
+                if (requestError != null) {
+                    cancel();
+                    subscriber.onError(requestError);
+                    return;
+                }
+                T item;
+                while (!cancelled && requested.get() > 0 && (item = pending.poll()) != null) {
+                    pendingCount.decrementAndGet();
+                    if (requested.get() != Long.MAX_VALUE) {
+                        requested.decrementAndGet();
+                    }
+                    try {
+                        subscriber.onNext(item);
+                    } catch (Throwable t) {
+                        LOG.error("Subscriber onNext failed, cancelling its subscription", t);
+                        cancel();
+                        subscriber.onError(t);
+                        return;
+                    }
+                }
+                if (cancelled) {
+                    return;
+                }
+                if (closed && pending.isEmpty()) {
+                    cancel();
+                    subscriber.onComplete();
+                    return;
+                }
+            } while ((missed = wip.addAndGet(-missed)) != 0);
+        }
+    }
+}
@@ -3,6 +3,7 @@ package io.github.kn.flow.file;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import io.github.kn.flow.ByteBufferPool;
 import io.github.kn.flow.CompletionStageItemProcessor;
 
 import java.io.IOException;
@@ -13,6 +14,7 @@ import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
 import java.util.concurrent.atomic.AtomicLong;
@@ -20,15 +22,30 @@ import java.util.function.Supplier;
 
 /**
  * This processes input bytes by writing them to the configured file path.
+ * <br>
+ * If configured with a {@link ByteBufferPool}, the input buffers are released to it once written (or failed to be).
  */
 public class FileWritingItemProcessor implements CompletionStageItemProcessor<List<ByteBuffer>, Void> {
 
     private static final Logger LOG = LogManager.getLogger("FileWritingItemProcessor");
     private final AtomicLong position = new AtomicLong(0);
     private final Supplier<AsynchronousFileChannel> fileChannelSupplier;
+    private final Optional<ByteBufferPool> bufferPool;
     private volatile AsynchronousFileChannel fileChannel;
 
     public FileWritingItemProcessor(final Path filePath) {
+        this(filePath, Optional.empty());
+    }
+
+    /**
+     * @param filePath path of the file to write
+     * @param pool     pool to release the written buffers to
+     */
+    public FileWritingItemProcessor(final Path filePath, final ByteBufferPool pool) {
+        this(filePath, Optional.of(pool));
+    }
+
+    private FileWritingItemProcessor(final Path filePath, final Optional<ByteBufferPool> pool) {
         this(() -> {
             try {
                 return AsynchronousFileChannel
@@ -37,11 +54,17 @@ public class FileWritingItemProcessor implements CompletionStageItemProcessor<Li
                 LOG.error("Error creating file on path:" + filePath, e);
                 throw new IllegalArgumentException(e);
             }
-        });
+        }, pool);
     }
 
     FileWritingItemProcessor(final Supplier<AsynchronousFileChannel> channelSupplier) {
+        this(channelSupplier, Optional.empty());
+    }
+
+    FileWritingItemProcessor(final Supplier<AsynchronousFileChannel> channelSupplier,
+                             final Optional<ByteBufferPool> pool) {
         this.fileChannelSupplier = channelSupplier;
+        this.bufferPool = pool;
     }
 
 
@@ -77,7 +100,9 @@ public class FileWritingItemProcessor implements CompletionStageItemProcessor<Li
                             }
                         }));
 
-        return CompletableFuture
-                .allOf(writeCompletions.toArray(new CompletableFuture[writeCompletions.size()]));
+        CompletableFuture<Void> written = CompletableFuture
+                .allOf(writeCompletions.toArray(new CompletableFuture<?>[writeCompletions.size()]));
+        bufferPool.ifPresent(pool -> written.whenComplete((r, e) -> buffers.forEach(pool::release)));
+        return written;
     }
 }
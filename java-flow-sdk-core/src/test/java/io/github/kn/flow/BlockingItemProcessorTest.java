@@ -0,0 +1,93 @@
+package io.github.kn.flow;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ */
+class BlockingItemProcessorTest {
+
+    @Test
+    void processesOnSeparateThread() throws Exception {
+        Thread caller = Thread.currentThread();
+        CompletionStageItemProcessor<String, Boolean> processor = ((BlockingItemProcessor<String, Boolean>) s -> Thread
+                .currentThread() != caller).toCompletionStageItemProcessor(1);
+        Assertions.assertTrue(processor.onNext("input").toCompletableFuture().get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void concurrencyBounded() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(2);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CompletionStageItemProcessor<String, String> processor = ((BlockingItemProcessor<String, String>) s -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            started.countDown();
+            release.await();
+            running.decrementAndGet();
+            return s;
+        }).toCompletionStageItemProcessor(2);
+        List<CompletableFuture<String>> results = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            results.add(processor.onNext("input" + i).toCompletableFuture());
+        }
+        Assertions.assertTrue(started.await(10, TimeUnit.SECONDS));
+        Assertions.assertEquals(2, running.get());
+        release.countDown();
+        for (int i = 0; i < 10; i++) {
+            Assertions.assertEquals("input" + i, results.get(i).get(10, TimeUnit.SECONDS));
+        }
+        Assertions.assertEquals(2, maxRunning.get());
+    }
+
+    @Test
+    void queuedCallsDrainedWithoutRecursion() {
+        AtomicBoolean inline = new AtomicBoolean();
+        List<Runnable> deferred = new ArrayList<>();
+        CompletionStageItemProcessor<Integer, Integer> processor = ((BlockingItemProcessor<Integer, Integer>) i -> i)
+                .toCompletionStageItemProcessor(r -> {
+                    if (inline.get()) {
+                        r.run();
+                    } else {
+                        deferred.add(r);
+                    }
+                }, 1);
+        List<CompletableFuture<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            results.add(processor.onNext(i).toCompletableFuture());
+        }
+        Assertions.assertEquals(1, deferred.size());
+        inline.set(true);
+        deferred.get(0).run();
+        for (int i = 0; i < results.size(); i++) {
+            Assertions.assertEquals(i, results.get(i).join());
+        }
+    }
+
+    @Test
+    void processingExceptionCompletesExceptionally() {
+        CompletableFuture<String> result = ((BlockingItemProcessor<String, String>) s -> {
+            throw new IOException();
+        }).toCompletionStageItemProcessor(r -> r.run(), 1).onNext("input").toCompletableFuture();
+        Assertions.assertTrue(Assertions.assertThrows(ExecutionException.class, result::get)
+                .getCause() instanceof IOException);
+    }
+
+    @Test
+    void invalidConcurrency() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ((BlockingItemProcessor<String, String>) s -> s)
+                .toCompletionStageItemProcessor(0));
+    }
+}
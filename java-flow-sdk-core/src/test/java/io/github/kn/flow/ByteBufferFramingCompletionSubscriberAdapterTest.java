@@ -0,0 +1,112 @@
+package io.github.kn.flow;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import io.github.kn.flow.util.MockCompletionSubscriber;
+import io.github.kn.flow.util.MockCompletionSubscription;
+
+/**
+ *
+ */
+class ByteBufferFramingCompletionSubscriberAdapterTest {
+
+    private static <R> MockCompletionSubscriber<R> frame(final RecordFramer<R> framer, final ByteBuffer... buffers) {
+        MockCompletionSubscriber<R> subscriber = new MockCompletionSubscriber<>();
+        CompletionSubscriber<List<ByteBuffer>> adapter = ByteBufferFramingCompletionSubscriberAdapter
+                .adapt(subscriber, framer);
+        adapter.onSubscribe(new MockCompletionSubscription());
+        adapter.onNext(Arrays.asList(buffers));
+        adapter.onComplete();
+        return subscriber;
+    }
+
+    private static ByteBuffer bytes(final String text) {
+        return ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void jsonLines() {
+        MockCompletionSubscriber<Map> subscriber = frame(RecordFramer.jsonLines(Map.class),
+                bytes("{\"id\":1,\"name\":\"first\"}\n\n{\"id\":2,"), bytes("\"name\":\"second\"}\r\n{\"id\":3}"));
+        assertEquals(Arrays.asList(Map.of("id", 1, "name", "first"), Map.of("id", 2, "name", "second"),
+                Map.of("id", 3)), subscriber.getItemsList());
+        assertEquals(1, subscriber.getTimesCompleteInvoked());
+    }
+
+    @Test
+    void invalidJsonLineErrors() {
+        MockCompletionSubscriber<Map> subscriber = new MockCompletionSubscriber<>();
+        MockCompletionSubscription subscription = new MockCompletionSubscription();
+        CompletionSubscriber<List<ByteBuffer>> adapter = ByteBufferFramingCompletionSubscriberAdapter
+                .adapt(subscriber, RecordFramer.jsonLines(Map.class));
+        adapter.onSubscribe(subscription);
+        adapter.onNext(Arrays.asList(bytes("{\"id\":1}\n{\"id\":\n")));
+        assertEquals(IllegalArgumentException.class, subscriber.getOnErrorArg().getClass());
+        assertEquals(1, subscription.getTimesCancelInvoked());
+    }
+
+    @Test
+    void csvQuotedFields() {
+        MockCompletionSubscriber<List<String>> subscriber = frame(RecordFramer.csv(StandardCharsets.UTF_8, ','),
+                bytes("a,\"b,1\",c\r\n\r\n\"multi\nline\",\"say \"\""), bytes("hi\"\"\",\r\n\"\",x\n"),
+                bytes("\u00e9t\u00e9,end"));
+        assertEquals(Arrays.asList(Arrays.asList("a", "b,1", "c"), Arrays.asList("multi\nline", "say \"hi\"", ""),
+                Arrays.asList("", "x"), Arrays.asList("\u00e9t\u00e9", "end")), subscriber.getItemsList());
+    }
+
+    @Test
+    void csvUnterminatedQuoteErrors() {
+        MockCompletionSubscriber<List<String>> subscriber = frame(RecordFramer.csv(StandardCharsets.UTF_8, ';'),
+                bytes("a;\"b"));
+        assertEquals(IllegalArgumentException.class, subscriber.getOnErrorArg().getClass());
+        assertEquals(0, subscriber.getTimesCompleteInvoked());
+    }
+
+    @Test
+    void lengthPrefixedAcrossBuffers() {
+        ByteBuffer records = ByteBuffer.allocate(64).putInt(3).put("abc".getBytes()).putInt(0).putInt(5)
+                .put("defgh".getBytes()).putInt(2).put("ij".getBytes()).flip();
+        ByteBuffer first = records.slice(0, 9);
+        ByteBuffer second = records.slice(9, 5);
+        ByteBuffer third = records.slice(14, records.limit() - 14);
+        MockCompletionSubscriber<ByteBuffer> subscriber = frame(RecordFramer.lengthPrefixed(), first, second, third);
+        assertEquals(Arrays.asList("abc", "", "defgh", "ij"), subscriber.getItemsList().stream()
+                .map(b -> StandardCharsets.UTF_8.decode(b).toString()).collect(Collectors.toList()));
+        assertEquals(1, subscriber.getTimesCompleteInvoked());
+    }
+
+    @Test
+    void truncatedLengthPrefixedErrors() {
+        MockCompletionSubscriber<ByteBuffer> subscriber = frame(RecordFramer.lengthPrefixed(),
+                ByteBuffer.allocate(6).putInt(4).put((byte) 1).put((byte) 2).flip());
+        assertEquals(IllegalArgumentException.class, subscriber.getOnErrorArg().getClass());
+    }
+
+    @Test
+    void lengthPrefixAboveMaxErrors() {
+        MockCompletionSubscriber<ByteBuffer> subscriber = frame(RecordFramer.lengthPrefixed(4),
+                ByteBuffer.allocate(13).putInt(4).put("abcd".getBytes()).putInt(Integer.MAX_VALUE).put((byte) 1)
+                        .flip());
+        assertEquals(IllegalArgumentException.class, subscriber.getOnErrorArg().getClass());
+    }
+
+    @Test
+    void invalidMaxRecordLength() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> RecordFramer.lengthPrefixed(-1));
+    }
+
+    @Test
+    void invalidCsvDelimiter() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> RecordFramer.csv(StandardCharsets.UTF_8, '"'));
+    }
+}
@@ -5,9 +5,19 @@ import static org.junit.jupiter.api.Assertions.assertLinesMatch;
 
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -104,4 +114,148 @@ class ByteBufferToTextLineCompletionSubscriberAdapterTest {
         mockCompletionSubscriber.getSubscription().request(2);
         assertEquals("[1]", mockCompletionSubscription.getRequestArgs().toString());
     }
-}
\ No newline at end of file
+
+    @Test
+    void carriageReturnLineFeedAcrossBuffers() {
+        adapter.onNext(Arrays.asList(ByteBuffer.wrap("{First Message}\r".getBytes()),
+                ByteBuffer.wrap("\n{Second Message}\r{Third Message}".getBytes())));
+        adapter.onComplete();
+        assertLinesMatch(Arrays.asList("{First Message}", "{Second Message}", "{Third Message}"),
+                mockCompletionSubscriber.getItemsList());
+    }
+
+    @Test
+    void multiByteSeparatorAcrossBuffers() {
+        adapter = ByteBufferToTextLineCompletionSubscriberAdapter
+                .adapt(mockCompletionSubscriber, StandardCharsets.UTF_8, "<|>");
+        adapter.onSubscribe(mockCompletionSubscription);
+        adapter.onNext(Arrays.asList(ByteBuffer.wrap("{First Message}<".getBytes()),
+                ByteBuffer.wrap("|".getBytes()), ByteBuffer.wrap("><{Second <Message}".getBytes())));
+        adapter.onComplete();
+        assertLinesMatch(Arrays.asList("{First Message}", "<{Second <Message}"), mockCompletionSubscriber
+                .getItemsList());
+    }
+
+    @Test
+    void multiByteCharactersAcrossBuffers() {
+        byte[] bytes = "{F\u00efrst M\u00e9ssage}\n".getBytes(StandardCharsets.UTF_8);
+        adapter.onNext(Arrays.asList(ByteBuffer.wrap(bytes, 0, 3), ByteBuffer.wrap(bytes, 3, bytes.length - 3)));
+        assertLinesMatch(Arrays.asList("{F\u00efrst M\u00e9ssage}"), mockCompletionSubscriber.getItemsList());
+    }
+
+    @Test
+    void linesPublishedAsPerDemand() {
+        MockCompletionSubscriber<TextLine> lineSubscriber = new MockCompletionSubscriber<TextLine>().setRequestSize(1);
+        CompletionSubscriber<List<ByteBuffer>> lineAdapter = ByteBufferToTextLineCompletionSubscriberAdapter
+                .adaptTextLines(lineSubscriber, StandardCharsets.UTF_8, null);
+        MockCompletionSubscription subscription = new MockCompletionSubscription();
+        lineAdapter.onSubscribe(subscription);
+        lineAdapter.onNext(Arrays.asList(ByteBuffer.wrap("{First Message}\n\n{Second Message}\n".getBytes())));
+        lineAdapter.onComplete();
+        assertEquals(Arrays.asList("{First Message}", "", "{Second Message}"), lineSubscriber.getItemsList().stream()
+                .map(TextLine::toString).collect(Collectors.toList()));
+        assertEquals(15, lineSubscriber.getItemsList().get(0).getByteLength());
+        assertEquals(1, lineSubscriber.getTimesCompleteInvoked());
+        assertEquals("[1, 1]", subscription.getRequestArgs().toString());
+    }
+
+    @Test
+    void chunksLimitedByLines() {
+        MockCompletionSubscriber<List<String>> chunkSubscriber = new MockCompletionSubscriber<>();
+        CompletionSubscriber<List<ByteBuffer>> chunkAdapter = ByteBufferToTextLineCompletionSubscriberAdapter
+                .adaptChunked(chunkSubscriber, StandardCharsets.UTF_8, null, 2, Long.MAX_VALUE);
+        chunkAdapter.onSubscribe(new MockCompletionSubscription());
+        chunkAdapter.onNext(Arrays.asList(ByteBuffer.wrap("a\nb\nc".getBytes()), ByteBuffer.wrap("\nd\ne".getBytes())));
+        assertEquals(Arrays.asList(Arrays.asList("a", "b"), Arrays.asList("c", "d")), chunkSubscriber.getItemsList());
+        chunkAdapter.onComplete();
+        assertEquals(Arrays.asList(Arrays.asList("a", "b"), Arrays.asList("c", "d"), Arrays.asList("e")),
+                chunkSubscriber.getItemsList());
+        assertEquals(1, chunkSubscriber.getTimesCompleteInvoked());
+    }
+
+    @Test
+    void chunksLimitedByBytes() {
+        MockCompletionSubscriber<List<String>> chunkSubscriber = new MockCompletionSubscriber<>();
+        CompletionSubscriber<List<ByteBuffer>> chunkAdapter = ByteBufferToTextLineCompletionSubscriberAdapter
+                .adaptChunked(chunkSubscriber, StandardCharsets.UTF_8, ";", 10, 4);
+        chunkAdapter.onSubscribe(new MockCompletionSubscription());
+        chunkAdapter.onNext(Arrays.asList(ByteBuffer.wrap("ab;cd;efghij;k;".getBytes())));
+        chunkAdapter.onComplete();
+        assertEquals(Arrays.asList(Arrays.asList("ab", "cd"), Arrays.asList("efghij"), Arrays.asList("k")),
+                chunkSubscriber.getItemsList());
+        assertEquals(1, chunkSubscriber.getTimesCompleteInvoked());
+    }
+
+    @Test
+    void invalidChunk() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ByteBufferToTextLineCompletionSubscriberAdapter
+                .adaptChunked(new MockCompletionSubscriber<>(), StandardCharsets.UTF_8, null, 0, 1));
+    }
+
+    @Test
+    void parallelDecodePreservesOrder() throws Exception {
+        assertParallelDecode(null, Arrays.asList("\n", "\r", "\r\n"));
+        assertParallelDecode("||", Collections.singletonList("||"));
+    }
+
+    private static void assertParallelDecode(final String separator, final List<String> separators)
+            throws Exception {
+        Random random = new Random(7);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            String line = i % 7 == 0 ? "" : "line-" + i + "-\u00e9|" + "x".repeat(random.nextInt(20));
+            text.append(line).append(separators.get(random.nextInt(separators.size())));
+        }
+        byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+        List<String> expected = new ArrayList<>();
+        RecordFramer<TextLine> sequentialFramer = RecordFramer.lines(StandardCharsets.UTF_8, separator);
+        sequentialFramer.frame(ByteBuffer.wrap(bytes), line -> expected.add(line.toString()));
+        sequentialFramer.finish(line -> expected.add(line.toString()));
+        Assertions.assertTrue(expected.size() > 1900);
+        List<List<ByteBuffer>> blocks = new ArrayList<>();
+        for (int from = 0; from < bytes.length; ) {
+            List<ByteBuffer> block = new ArrayList<>();
+            for (int buffers = 1 + random.nextInt(3); buffers > 0 && from < bytes.length; buffers--) {
+                int length = Math.min(1 + random.nextInt(40), bytes.length - from);
+                block.add(ByteBuffer.wrap(bytes, from, length).slice());
+                from += length;
+            }
+            blocks.add(block);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            CountDownLatch completed = new CountDownLatch(1);
+            List<String> lines = new ArrayList<>();
+            CompletionSubscriber<List<ByteBuffer>> parallelAdapter = ByteBufferToTextLineCompletionSubscriberAdapter
+                    .adaptParallel(new MockCompletionSubscriber<String>() {
+                        @Override
+                        public void onNext(String item) {
+                            lines.add(item);
+                            super.onNext(item);
+                        }
+
+                        @Override
+                        public void onComplete() {
+                            completed.countDown();
+                        }
+                    }, StandardCharsets.UTF_8, separator, executor, 4);
+            Iterator<List<ByteBuffer>> upstream = blocks.iterator();
+            parallelAdapter.onSubscribe(new MockCompletionSubscription() {
+                @Override
+                public synchronized void request(long n) {
+                    super.request(n);
+                    for (long i = 0; i < n && upstream.hasNext(); i++) {
+                        parallelAdapter.onNext(upstream.next());
+                    }
+                    if (!upstream.hasNext()) {
+                        parallelAdapter.onComplete();
+                    }
+                }
+            });
+            Assertions.assertTrue(completed.await(10, TimeUnit.SECONDS));
+            assertEquals(expected, lines);
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
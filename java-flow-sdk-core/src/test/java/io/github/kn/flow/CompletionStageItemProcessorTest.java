@@ -1,10 +1,19 @@
 package io.github.kn.flow;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
@@ -40,6 +49,118 @@ class CompletionStageItemProcessorTest {
                 .toString());
     }
 
+    @Test
+    void aggregateProcessorBoundedParallelism() throws Exception {
+        List<CompletableFuture<String>> started = new ArrayList<>();
+        CompletableFuture<Optionals<String>> result = CompletionStageItemProcessor
+                .<String, String>aggregateProcessor(s -> {
+                    CompletableFuture<String> future = new CompletableFuture<>();
+                    started.add(future);
+                    return future.thenApply(r -> s + r);
+                }, 2)
+                .onNext(Optionals.create(List.of("1", "2", "3"))).toCompletableFuture();
+        Assertions.assertEquals(2, started.size());
+        started.get(1).complete("b");
+        Assertions.assertEquals(3, started.size());
+        started.get(0).complete("a");
+        Assertions.assertFalse(result.isDone());
+        started.get(2).complete("c");
+        Assertions.assertEquals("1a2b3c", result.get().toString());
+    }
+
+    @Test
+    void aggregateProcessorPartialFailure() throws Exception {
+        Assertions.assertEquals("1ok3ok", CompletionStageItemProcessor
+                .<String, String>aggregateProcessor(s -> "2".equals(s)
+                        ? CompletableFuture.failedStage(new IllegalArgumentException())
+                        : CompletableFuture.completedStage(s + "ok"), 1)
+                .onNext(Optionals.create(List.of("1", "2", "3"))).toCompletableFuture().get().toString());
+    }
+
+    @Test
+    void aggregateProcessorEmptyInput() throws Exception {
+        Assertions.assertEquals("", CompletionStageItemProcessor
+                .aggregateProcessor(myCompletionStageItemProcessor, 1)
+                .onNext(Optionals.wrap(List.of(Optional.empty()))).toCompletableFuture().get().toString());
+        Assertions.assertEquals(0, myCompletionStageItemProcessor.getOnNextInput().size());
+    }
+
+    @Test
+    void batchingFullBatchProcessedOnce() throws Exception {
+        MyCompletionStageItemProcessor<List<String>, List<String>> batchProcessor =
+                new MyCompletionStageItemProcessor<List<String>, List<String>>()
+                        .setOnNextResult(CompletableFuture.completedStage(List.of("a", "b")));
+        CompletionStageItemProcessor<String, String> processor = CompletionStageItemProcessor
+                .batching(2, Duration.ofDays(1), batchProcessor);
+        CompletionStage<String> first = processor.onNext("1");
+        Assertions.assertFalse(first.toCompletableFuture().isDone());
+        CompletionStage<String> second = processor.onNext("2");
+        Assertions.assertEquals("a", first.toCompletableFuture().get());
+        Assertions.assertEquals("b", second.toCompletableFuture().get());
+        Assertions.assertEquals(List.of(List.of("1", "2")), batchProcessor.getOnNextInput());
+    }
+
+    @Test
+    void batchingByWeight() throws Exception {
+        List<List<String>> batches = new CopyOnWriteArrayList<>();
+        CompletionStageItemProcessor<String, String> processor = CompletionStageItemProcessor
+                .batching(10, 10, String::length, Duration.ofDays(1),
+                        (List<String> batch) -> {
+                            batches.add(batch);
+                            return CompletableFuture.completedStage(batch);
+                        });
+        CompletionStage<String> first = processor.onNext("aaaa");
+        processor.onNext("bbbb");
+        processor.onNext("cccc");
+        processor.onNext("dddddddddddd");
+        processor.onNext("ee");
+        processor.onNext("ffffffff");
+        Assertions.assertEquals(List.of(List.of("aaaa", "bbbb"), List.of("cccc"), List.of("dddddddddddd"),
+                List.of("ee", "ffffffff")), batches);
+        Assertions.assertEquals("aaaa", first.toCompletableFuture().get());
+    }
+
+    @Test
+    void batchingLingeringBatchProcessed() throws Exception {
+        MyCompletionStageItemProcessor<List<String>, List<String>> batchProcessor =
+                new MyCompletionStageItemProcessor<List<String>, List<String>>()
+                        .setOnNextResult(CompletableFuture.completedStage(List.of("a")));
+        Assertions.assertEquals("a", CompletionStageItemProcessor
+                .batching(10, Duration.ofMillis(1), batchProcessor).onNext("1").toCompletableFuture()
+                .get(10, TimeUnit.SECONDS));
+        Assertions.assertEquals(List.of(List.of("1")), batchProcessor.getOnNextInput());
+    }
+
+    @Test
+    void batchingFailureCompletesEachItemExceptionally() {
+        CompletionStageItemProcessor<String, String> processor = CompletionStageItemProcessor
+                .batching(2, Duration.ofDays(1), new MyCompletionStageItemProcessor<List<String>, List<String>>()
+                        .setOnNextResult(CompletableFuture.failedStage(new IllegalArgumentException())));
+        CompletionStage<String> first = processor.onNext("1");
+        CompletionStage<String> second = processor.onNext("2");
+        Assertions.assertTrue(first.toCompletableFuture().isCompletedExceptionally());
+        Assertions.assertTrue(second.toCompletableFuture().isCompletedExceptionally());
+    }
+
+    @Test
+    void batchingMissingResultCompletesItemExceptionally() throws Exception {
+        CompletionStageItemProcessor<String, String> processor = CompletionStageItemProcessor
+                .batching(2, Duration.ofDays(1), new MyCompletionStageItemProcessor<List<String>, List<String>>()
+                        .setOnNextResult(CompletableFuture.completedStage(List.of("a"))));
+        CompletionStage<String> first = processor.onNext("1");
+        CompletionStage<String> second = processor.onNext("2");
+        Assertions.assertEquals("a", first.toCompletableFuture().get());
+        Assertions.assertTrue(second.toCompletableFuture().isCompletedExceptionally());
+    }
+
+    @Test
+    void batchingInvokesBatchProcessorPrepare() {
+        MyCompletionStageItemProcessor<List<String>, List<String>> batchProcessor =
+                new MyCompletionStageItemProcessor<>();
+        CompletionStageItemProcessor.batching(2, Duration.ofDays(1), batchProcessor).prepare();
+        Assertions.assertEquals(1, batchProcessor.getTimesPrepareInvoked());
+    }
+
     @Test
     void apply() throws Exception {
         Assertions.assertEquals("outputmodified", myCompletionStageItemProcessor
@@ -52,6 +173,228 @@ class CompletionStageItemProcessorTest {
                 .apply((i, o) -> i + o + "modified").onNext("input").toCompletableFuture().get());
     }
 
+    @Test
+    void completedProcessorApplyChainCompletesSynchronously() throws Exception {
+        CompletionStage<String> result = CompletionStageItemProcessor.<String>completedProcessor()
+                .apply(s -> s + "first")
+                .apply((i, o) -> i + o + "second").onNext("input");
+        Assertions.assertTrue(result.toCompletableFuture().isDone());
+        Assertions.assertEquals("inputinputfirstsecond", result.toCompletableFuture().get());
+    }
+
+    @Test
+    void completedProcessorApplyFunctionExceptionCompletesExceptionally() {
+        CompletableFuture<Object> result = CompletionStageItemProcessor.<String>completedProcessor()
+                .apply(s -> s + "first")
+                .apply(s -> {
+                    throw new IllegalArgumentException(s);
+                }).onNext("input").toCompletableFuture();
+        Assertions.assertTrue(result.isCompletedExceptionally());
+        Assertions.assertTrue(Assertions.assertThrows(Exception.class, result::get)
+                .getCause() instanceof IllegalArgumentException);
+    }
+
+    @Test
+    void applyChainInvokesProcessorOnce() throws Exception {
+        Assertions.assertEquals("outputab", myCompletionStageItemProcessor
+                .apply(s -> s + "a").apply(s -> s + "b").onNext("input").toCompletableFuture().get());
+        Assertions.assertEquals(List.of("input"), myCompletionStageItemProcessor.getOnNextInput());
+    }
+
+    @Test
+    void applyChainInvokesPrepare() {
+        myCompletionStageItemProcessor.apply(s -> s + "a").apply(s -> s + "b").prepare();
+        Assertions.assertEquals(1, myCompletionStageItemProcessor.getTimesPrepareInvoked());
+    }
+
+    @Test
+    void withTimeoutCompletesWithResult() throws Exception {
+        Assertions.assertEquals("output", myCompletionStageItemProcessor.withTimeout(Duration.ofDays(1))
+                .onNext("input").toCompletableFuture().get());
+    }
+
+    @Test
+    void withTimeoutTimesOut() {
+        CompletableFuture<String> outstanding = new CompletableFuture<>();
+        CompletableFuture<String> result = myCompletionStageItemProcessor.setOnNextResult(outstanding)
+                .withTimeout(Duration.ofMillis(1)).onNext("input").toCompletableFuture();
+        Throwable cause = Assertions.assertThrows(ExecutionException.class, () -> result.get(10, TimeUnit.SECONDS))
+                .getCause();
+        Assertions.assertTrue(cause instanceof IllegalArgumentException);
+        Assertions.assertTrue(cause.getCause() instanceof TimeoutException);
+        Assertions.assertTrue(outstanding.isCancelled());
+    }
+
+    @Test
+    void withTimeoutPropagatesFailure() {
+        CompletableFuture<String> result = myCompletionStageItemProcessor
+                .setOnNextResult(CompletableFuture.failedStage(new IllegalStateException()))
+                .withTimeout(Duration.ofDays(1)).onNext("input").toCompletableFuture();
+        Assertions.assertTrue(Assertions.assertThrows(ExecutionException.class, result::get)
+                .getCause() instanceof IllegalStateException);
+    }
+
+    @Test
+    void hedgedIssuesHedgeAndCancelsLoser() throws Exception {
+        List<CompletableFuture<String>> attempts = new CopyOnWriteArrayList<>();
+        CompletionStageItemProcessor<String, String> processor = s -> {
+            CompletableFuture<String> attempt = new CompletableFuture<>();
+            attempts.add(attempt);
+            return attempt;
+        };
+        CompletableFuture<String> result = processor.hedged(HedgeDelayPolicy.fixed(Duration.ofMillis(1)), 1).onNext("input").toCompletableFuture();
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (attempts.size() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        Assertions.assertEquals(2, attempts.size());
+        attempts.get(1).complete("hedge");
+        Assertions.assertEquals("hedge", result.get());
+        Assertions.assertTrue(attempts.get(0).isCancelled());
+    }
+
+    @Test
+    void hedgedDelayStableWhenHedgesWin() throws Exception {
+        Map<String, Boolean> started = new ConcurrentHashMap<>();
+        CompletionStageItemProcessor<String, String> processor = s -> started.putIfAbsent(s, Boolean.TRUE) == null
+                ? new CompletableFuture<>() : CompletableFuture.completedFuture("hedge");
+        HedgeDelayPolicy policy = HedgeDelayPolicy.percentile(0.95, Duration.ofMillis(5));
+        CompletionStageItemProcessor<String, String> hedged = processor.hedged(policy, 1);
+        List<CompletableFuture<String>> results = new ArrayList<>();
+        for (int i = 0; i < 2 * LatencyPercentileHedgeDelayPolicy.RECOMPUTE_INTERVAL; i++) {
+            results.add(hedged.onNext("input" + i).toCompletableFuture());
+        }
+        for (CompletableFuture<String> result : results) {
+            Assertions.assertEquals("hedge", result.get(10, TimeUnit.SECONDS));
+        }
+        Assertions.assertTrue(policy.delayNanos() >= Duration.ofMillis(5).toNanos(), policy.toString());
+    }
+
+    @Test
+    void hedgedNoHedgeWhenCompletedWithinDelay() throws Exception {
+        Assertions.assertEquals("output", myCompletionStageItemProcessor
+                .hedged(HedgeDelayPolicy.fixed(Duration.ofDays(1)), 2).onNext("input").toCompletableFuture().get());
+        Assertions.assertEquals(List.of("input"), myCompletionStageItemProcessor.getOnNextInput());
+    }
+
+    @Test
+    void hedgedFailsWhenAllAttemptsFail() {
+        CompletableFuture<String> result = myCompletionStageItemProcessor
+                .setOnNextResult(CompletableFuture.failedStage(new IllegalArgumentException()))
+                .hedged(HedgeDelayPolicy.fixed(Duration.ofDays(1)), 2).onNext("input").toCompletableFuture();
+        Assertions.assertTrue(result.isCompletedExceptionally());
+    }
+
+    @Test
+    void cachedResultNotReprocessed() throws Exception {
+        CompletionStageItemProcessor<String, String> processor = myCompletionStageItemProcessor
+                .cached(s -> s, CacheSpec.builder().build());
+        Assertions.assertEquals("output", processor.onNext("input").toCompletableFuture().get());
+        Assertions.assertEquals("output", processor.onNext("input").toCompletableFuture().get());
+        Assertions.assertEquals(List.of("input"), myCompletionStageItemProcessor.getOnNextInput());
+    }
+
+    @Test
+    void cachedCoalescesInFlightProcessing() throws Exception {
+        CompletableFuture<String> outstanding = new CompletableFuture<>();
+        CompletionStageItemProcessor<String, String> processor = myCompletionStageItemProcessor
+                .setOnNextResult(outstanding).cached(s -> s, CacheSpec.builder().build());
+        CompletionStage<String> first = processor.onNext("input");
+        CompletionStage<String> second = processor.onNext("input");
+        Assertions.assertEquals(List.of("input"), myCompletionStageItemProcessor.getOnNextInput());
+        outstanding.complete("output");
+        Assertions.assertEquals("output", first.toCompletableFuture().get());
+        Assertions.assertEquals("output", second.toCompletableFuture().get());
+    }
+
+    @Test
+    void cachedFailureNotCached() {
+        CompletionStageItemProcessor<String, String> processor = myCompletionStageItemProcessor
+                .setOnNextResult(CompletableFuture.failedStage(new IllegalArgumentException()))
+                .cached(s -> s, CacheSpec.builder().build());
+        Assertions.assertTrue(processor.onNext("input").toCompletableFuture().isCompletedExceptionally());
+        Assertions.assertTrue(processor.onNext("input").toCompletableFuture().isCompletedExceptionally());
+        Assertions.assertEquals(List.of("input", "input"), myCompletionStageItemProcessor.getOnNextInput());
+    }
+
+    @Test
+    void keyOrderedSameKeySequential() throws Exception {
+        Map<String, CompletableFuture<String>> outstanding = new ConcurrentHashMap<>();
+        List<String> started = new CopyOnWriteArrayList<>();
+        CompletionStageItemProcessor<String, String> processor = ((CompletionStageItemProcessor<String, String>) s -> {
+            started.add(s);
+            return outstanding.computeIfAbsent(s, k -> new CompletableFuture<>());
+        }).keyOrdered(s -> s.substring(0, 1));
+        CompletionStage<String> a1 = processor.onNext("a1");
+        CompletionStage<String> a2 = processor.onNext("a2");
+        CompletionStage<String> b1 = processor.onNext("b1");
+        Assertions.assertEquals(List.of("a1", "b1"), started);
+        outstanding.get("a1").completeExceptionally(new IllegalArgumentException());
+        Assertions.assertEquals(List.of("a1", "b1", "a2"), started);
+        Assertions.assertTrue(a1.toCompletableFuture().isCompletedExceptionally());
+        outstanding.get("a2").complete("x");
+        outstanding.get("b1").complete("y");
+        Assertions.assertEquals("x", a2.toCompletableFuture().get());
+        Assertions.assertEquals("y", b1.toCompletableFuture().get());
+        Assertions.assertEquals(0, ((KeyOrderedItemProcessor<?, ?, ?>) processor).activeKeys());
+    }
+
+    @Test
+    void keyOrderedManyQueuedItemsDrainedIteratively() throws Exception {
+        CompletableFuture<Integer> first = new CompletableFuture<>();
+        List<Integer> started = new ArrayList<>();
+        CompletionStageItemProcessor<Integer, Integer> delegate = i -> {
+            started.add(i);
+            return i == 0 ? first : CompletableFuture.completedStage(i);
+        };
+        CompletionStageItemProcessor<Integer, Integer> processor = delegate.keyOrdered(i -> "key");
+        List<CompletionStage<Integer>> results = IntStream.range(0, 100_000).mapToObj(processor::onNext)
+                .collect(Collectors.toList());
+        Assertions.assertEquals(List.of(0), started);
+        first.complete(0);
+        Assertions.assertEquals(IntStream.range(0, 100_000).boxed().collect(Collectors.toList()), started);
+        Assertions.assertEquals(99_999, results.get(99_999).toCompletableFuture().get());
+        Assertions.assertEquals(0, ((KeyOrderedItemProcessor<?, ?, ?>) processor).activeKeys());
+    }
+
+    @Test
+    void rateLimitedDelaysBeyondBurst() throws Exception {
+        CompletionStageItemProcessor<String, String> processor = myCompletionStageItemProcessor
+                .setOnNextResult(CompletableFuture.completedStage("output")).rateLimited(10, 2);
+        Assertions.assertTrue(processor.onNext("1").toCompletableFuture().isDone());
+        Assertions.assertTrue(processor.onNext("2").toCompletableFuture().isDone());
+        CompletableFuture<String> delayed = processor.onNext("3").toCompletableFuture();
+        Assertions.assertFalse(delayed.isDone());
+        Assertions.assertEquals(List.of("1", "2"), myCompletionStageItemProcessor.getOnNextInput());
+        Assertions.assertEquals("output", delayed.get(10, TimeUnit.SECONDS));
+        Assertions.assertEquals(List.of("1", "2", "3"), myCompletionStageItemProcessor.getOnNextInput());
+    }
+
+    @Test
+    void rateLimitedInvalidRate() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> myCompletionStageItemProcessor
+                .rateLimited(0, 1));
+    }
+
+    @Test
+    void instrumentedRecordsStageMetrics() {
+        StageMetricsRegistry registry = new StageMetricsRegistry();
+        CompletableFuture<String> outstanding = new CompletableFuture<>();
+        CompletionStageItemProcessor<String, String> processor = myCompletionStageItemProcessor
+                .setOnNextResult(outstanding).instrumented("stage", registry);
+        processor.onNext("input");
+        StageMetrics metrics = registry.getStage("stage").orElseThrow();
+        Assertions.assertEquals(1, metrics.getInFlight());
+        outstanding.complete("output");
+        myCompletionStageItemProcessor.setOnNextResult(CompletableFuture.failedStage(new IllegalArgumentException()));
+        processor.onNext("input");
+        Assertions.assertEquals(2, metrics.getStarted());
+        Assertions.assertEquals(1, metrics.getSucceeded());
+        Assertions.assertEquals(1, metrics.getFailed());
+        Assertions.assertEquals(0, metrics.getInFlight());
+        Assertions.assertEquals(2, metrics.getLatencies().getCount());
+    }
+
     @Test
     void composeAsync() throws Exception {
         Assertions.assertEquals("firstStageResult", new MyCompletionStageItemProcessor<Integer, String>()
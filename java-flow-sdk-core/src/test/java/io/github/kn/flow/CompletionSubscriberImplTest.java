@@ -1,7 +1,11 @@
 package io.github.kn.flow;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
@@ -49,9 +53,8 @@ class CompletionSubscriberImplTest {
     void noMoreThanMaxConcurrencyItemsAreRequested() {
         mockProcessor.setOnNextCompletionStage(new CompletableFuture<>());
         subscriber.onNext("testItem");
-        subscriber.onNext("testItem1");
-        Assertions.assertEquals("testItem;testItem1;", mockProcessor.getItems());
-        Assertions.assertEquals("[1, 1]", mockCompletionSubscription.getRequestArgs().toString());
+        Assertions.assertEquals("testItem;", mockProcessor.getItems());
+        Assertions.assertEquals("[1]", mockCompletionSubscription.getRequestArgs().toString());
     }
 
     @Test
@@ -80,7 +83,7 @@ class CompletionSubscriberImplTest {
     @Test
     void backPressureChunkSizeTwo() {
         mockCompletionSubscription = new MockCompletionSubscription();
-        subscriber = new CompletionSubscriberImpl<>(mockProcessor, 1, 2);
+        subscriber = new CompletionSubscriberImpl<>(mockProcessor, 2, 2);
         subscriber.onSubscribe(mockCompletionSubscription);
         subscriber.onNext("testItem");
         Assertions.assertEquals("[2, 2]", mockCompletionSubscription.getRequestArgs().toString());
@@ -110,6 +113,125 @@ class CompletionSubscriberImplTest {
     }
 
 
+    @Test
+    void concurrencyLimitSampledOnCompletion() {
+        List<Boolean> drops = new ArrayList<>();
+        mockCompletionSubscription = new MockCompletionSubscription();
+        subscriber = CompletionSubscriberImpl.wrap(mockProcessor, new ConcurrencyLimit() {
+            @Override
+            public int getLimit() {
+                return 1;
+            }
+
+            @Override
+            public void onSample(long latencyNanos, int inFlight, boolean dropped) {
+                drops.add(dropped);
+            }
+        }, 1);
+        subscriber.onSubscribe(mockCompletionSubscription);
+        subscriber.onNext("testItem");
+        mockProcessor.setOnNextCompletionStage(CompletableFuture.failedStage(new IllegalArgumentException()));
+        subscriber.onNext("testItem1");
+        Assertions.assertEquals(List.of(false, true), drops);
+    }
+
+    @Test
+    void adaptiveConcurrencyLimitRequestsMoreItemsOnceIncreased() {
+        mockCompletionSubscription = new MockCompletionSubscription();
+        subscriber = CompletionSubscriberImpl.wrap(mockProcessor, ConcurrencyLimit
+                .aimd(1, 2, Duration.ofSeconds(60)), 1);
+        subscriber.onSubscribe(mockCompletionSubscription);
+        subscriber.onNext("testItem");
+        mockProcessor.setOnNextCompletionStage(new CompletableFuture<>());
+        subscriber.onNext("testItem1");
+        subscriber.onNext("testItem2");
+        Assertions.assertEquals("[1, 2]", mockCompletionSubscription.getRequestArgs().toString());
+    }
+
+    @Test
+    void loweredConcurrencyLimitLowersInFlightItems() {
+        AtomicInteger limit = new AtomicInteger(4);
+        List<CompletableFuture<Void>> outstanding = new ArrayList<>();
+        mockCompletionSubscription = new MockCompletionSubscription();
+        subscriber = CompletionSubscriberImpl.wrap(new MockCompletionStageItemProcessor() {
+            @Override
+            public CompletionStage<Void> onNext(String item) {
+                CompletableFuture<Void> result = new CompletableFuture<>();
+                outstanding.add(result);
+                return result;
+            }
+        }, limit::get, 1);
+        subscriber.onSubscribe(mockCompletionSubscription);
+        deliverRequested(outstanding);
+        Assertions.assertEquals(4, inFlight(outstanding));
+        limit.set(2);
+        for (int i = 0; i < 3; i++) {
+            outstanding.stream().filter(f -> !f.isDone()).findFirst().orElseThrow().complete(null);
+            deliverRequested(outstanding);
+        }
+        Assertions.assertEquals(2, inFlight(outstanding));
+        outstanding.stream().filter(f -> !f.isDone()).findFirst().orElseThrow().complete(null);
+        deliverRequested(outstanding);
+        Assertions.assertEquals(2, inFlight(outstanding));
+        Assertions.assertEquals("[4, 1, 1]", mockCompletionSubscription.getRequestArgs().toString());
+    }
+
+    /**
+     * Delivers the items requested so far and not delivered yet, as a publisher would.
+     */
+    private void deliverRequested(final List<CompletableFuture<Void>> outstanding) {
+        long requested = mockCompletionSubscription.getRequestArgs().stream().mapToLong(Long::longValue).sum();
+        for (long i = outstanding.size(); i < requested; i++) {
+            subscriber.onNext("testItem" + i);
+        }
+    }
+
+    private static long inFlight(final List<CompletableFuture<Void>> outstanding) {
+        return outstanding.stream().filter(f -> !f.isDone()).count();
+    }
+
+    @Test
+    void onCompleteInvokedOnceOutstandingItemsProcessed() {
+        CompletableFuture<Void> outstanding = new CompletableFuture<>();
+        mockProcessor.setOnNextCompletionStage(outstanding);
+        subscriber.onNext("testItem");
+        subscriber.onComplete();
+        subscriber.onComplete();
+        outstanding.complete(null);
+        Assertions.assertEquals(1, mockCompletionSubscription.getTimesOnCompleteInvoked());
+    }
+
+    @Test
+    void watermarkedReplenishesDemandAtLowWatermark() {
+        List<CompletableFuture<Void>> outstanding = new ArrayList<>();
+        mockCompletionSubscription = new MockCompletionSubscription();
+        subscriber = CompletionSubscriberImpl.watermarked(new MockCompletionStageItemProcessor() {
+            @Override
+            public CompletionStage<Void> onNext(String item) {
+                CompletableFuture<Void> result = new CompletableFuture<>();
+                outstanding.add(result);
+                return result;
+            }
+        }, ConcurrencyLimit.fixed(4), 0.5);
+        subscriber.onSubscribe(mockCompletionSubscription);
+        Assertions.assertEquals("[4]", mockCompletionSubscription.getRequestArgs().toString());
+        for (int i = 0; i < 4; i++) {
+            subscriber.onNext("testItem" + i);
+        }
+        outstanding.get(0).complete(null);
+        Assertions.assertEquals("[4]", mockCompletionSubscription.getRequestArgs().toString());
+        outstanding.get(1).complete(null);
+        Assertions.assertEquals("[4, 2]", mockCompletionSubscription.getRequestArgs().toString());
+        outstanding.get(2).complete(null);
+        Assertions.assertEquals("[4, 2]", mockCompletionSubscription.getRequestArgs().toString());
+    }
+
+    @Test
+    void watermarkedInvalidRatio() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> CompletionSubscriberImpl
+                .watermarked(mockProcessor, ConcurrencyLimit.fixed(4), 1));
+    }
+
     @Test
     void onError() {
     }
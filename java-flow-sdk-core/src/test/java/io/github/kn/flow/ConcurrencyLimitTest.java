@@ -0,0 +1,55 @@
+package io.github.kn.flow;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ */
+class ConcurrencyLimitTest {
+
+    @Test
+    void fixed() {
+        ConcurrencyLimit limit = ConcurrencyLimit.fixed(5);
+        limit.onSample(Long.MAX_VALUE, 5, true);
+        Assertions.assertEquals(5, limit.getLimit());
+    }
+
+    @Test
+    void aimdIncreasesWhenUtilised() {
+        ConcurrencyLimit limit = ConcurrencyLimit.aimd(4, 5, Duration.ofSeconds(1));
+        limit.onSample(1, 2, false);
+        Assertions.assertEquals(5, limit.getLimit());
+        limit.onSample(1, 5, false);
+        Assertions.assertEquals(5, limit.getLimit());
+    }
+
+    @Test
+    void aimdDoesNotIncreaseWhenUnderUtilised() {
+        ConcurrencyLimit limit = ConcurrencyLimit.aimd(10, 20, Duration.ofSeconds(1));
+        limit.onSample(1, 1, false);
+        Assertions.assertEquals(10, limit.getLimit());
+    }
+
+    @Test
+    void aimdDecreasesOnDrop() {
+        ConcurrencyLimit limit = ConcurrencyLimit.aimd(10, 20, Duration.ofSeconds(1));
+        limit.onSample(1, 10, true);
+        Assertions.assertEquals(9, limit.getLimit());
+    }
+
+    @Test
+    void aimdDecreasesOnSlowItem() {
+        ConcurrencyLimit limit = ConcurrencyLimit.aimd(1, 20, Duration.ofMillis(1));
+        limit.onSample(Duration.ofSeconds(1).toNanos(), 1, false);
+        Assertions.assertEquals(1, limit.getLimit());
+    }
+
+    @Test
+    void aimdInvalidLimits() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ConcurrencyLimit
+                .aimd(10, 5, Duration.ofSeconds(1)));
+    }
+}
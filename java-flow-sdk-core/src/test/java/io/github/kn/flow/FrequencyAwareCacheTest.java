@@ -0,0 +1,75 @@
+package io.github.kn.flow;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ */
+class FrequencyAwareCacheTest {
+
+    @Test
+    void putAndGet() {
+        FrequencyAwareCache<String, String> cache = new FrequencyAwareCache<>(CacheSpec.builder().build());
+        Assertions.assertNull(cache.get("key"));
+        Assertions.assertTrue(cache.put("key", "value"));
+        Assertions.assertEquals("value", cache.get("key"));
+    }
+
+    @Test
+    void expireAfterWrite() throws Exception {
+        FrequencyAwareCache<String, String> cache = new FrequencyAwareCache<>(CacheSpec.builder()
+                .expireAfterWrite(Duration.ofMillis(1)).build());
+        cache.put("key", "value");
+        Thread.sleep(5);
+        Assertions.assertNull(cache.get("key"));
+        Assertions.assertEquals(0, cache.size());
+    }
+
+    @Test
+    void infrequentKeyNotAdmittedWhenFull() {
+        FrequencyAwareCache<String, String> cache = new FrequencyAwareCache<>(CacheSpec.builder()
+                .maximumSize(1).build());
+        for (int i = 0; i < 5; i++) {
+            cache.get("frequent");
+        }
+        cache.put("frequent", "value");
+        cache.get("oneOff");
+        Assertions.assertFalse(cache.put("oneOff", "value"));
+        Assertions.assertEquals("value", cache.get("frequent"));
+        Assertions.assertEquals(1, cache.size());
+    }
+
+    @Test
+    void frequentKeyEvictsOldestWhenFull() {
+        FrequencyAwareCache<String, String> cache = new FrequencyAwareCache<>(CacheSpec.builder()
+                .maximumSize(1).build());
+        cache.put("oneOff", "value");
+        for (int i = 0; i < 5; i++) {
+            cache.get("frequent");
+        }
+        Assertions.assertTrue(cache.put("frequent", "value"));
+        Assertions.assertNull(cache.get("oneOff"));
+        Assertions.assertEquals(1, cache.size());
+    }
+
+    @Test
+    void zeroMaximumSizeCachesNothing() {
+        FrequencyAwareCache<String, String> cache = new FrequencyAwareCache<>(CacheSpec.builder()
+                .maximumSize(0).build());
+        Assertions.assertFalse(cache.put("key", "value"));
+        Assertions.assertNull(cache.get("key"));
+    }
+
+    @Test
+    void sketchFrequency() {
+        FrequencyAwareCache.FrequencySketch sketch = new FrequencyAwareCache.FrequencySketch(16);
+        for (int i = 0; i < 20; i++) {
+            sketch.increment("key");
+        }
+        Assertions.assertEquals(15, sketch.frequency("key"));
+        Assertions.assertEquals(0, sketch.frequency("other"));
+    }
+}
@@ -0,0 +1,41 @@
+package io.github.kn.flow;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ */
+class HedgeDelayPolicyTest {
+
+    @Test
+    void fixed() {
+        HedgeDelayPolicy policy = HedgeDelayPolicy.fixed(Duration.ofMillis(5));
+        policy.record(1);
+        Assertions.assertEquals(Duration.ofMillis(5).toNanos(), policy.delayNanos());
+    }
+
+    @Test
+    void percentileInitialDelay() {
+        Assertions.assertEquals(Duration.ofMillis(5).toNanos(), HedgeDelayPolicy
+                .percentile(0.95, Duration.ofMillis(5)).delayNanos());
+    }
+
+    @Test
+    void percentileOfRecordedLatencies() {
+        HedgeDelayPolicy policy = HedgeDelayPolicy.percentile(0.95, Duration.ofMillis(5));
+        for (int i = 1; i <= 100; i++) {
+            policy.record(i);
+        }
+        // recomputed over the first 64 recorded latencies
+        Assertions.assertEquals(61, policy.delayNanos());
+    }
+
+    @Test
+    void percentileOutOfRange() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> HedgeDelayPolicy
+                .percentile(0, Duration.ofMillis(5)));
+    }
+}
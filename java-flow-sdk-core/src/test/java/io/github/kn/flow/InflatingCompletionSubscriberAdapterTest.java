@@ -0,0 +1,225 @@
+package io.github.kn.flow;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import io.github.kn.flow.InflatingCompletionSubscriberAdapter.Format;
+import io.github.kn.flow.util.MockCompletionSubscriber;
+import io.github.kn.flow.util.MockCompletionSubscription;
+
+/**
+ *
+ */
+class InflatingCompletionSubscriberAdapterTest {
+
+    private static final Random RANDOM = new Random(11);
+
+    private static byte[] text(final int lines) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            text.append("line ").append(i).append(' ').append("y".repeat(RANDOM.nextInt(50))).append('\n');
+        }
+        return text.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] gzip(final byte[] bytes) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(bytes);
+        }
+        return compressed.toByteArray();
+    }
+
+    private static byte[] deflate(final byte[] bytes, final boolean nowrap) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (DeflaterOutputStream out = new DeflaterOutputStream(compressed, new Deflater(6, nowrap))) {
+            out.write(bytes);
+        }
+        return compressed.toByteArray();
+    }
+
+    private static List<ByteBuffer> split(final byte[] bytes) {
+        List<ByteBuffer> buffers = new ArrayList<>();
+        for (int from = 0; from < bytes.length; ) {
+            int length = Math.min(1 + RANDOM.nextInt(50), bytes.length - from);
+            buffers.add(ByteBuffer.wrap(bytes, from, length).slice());
+            from += length;
+        }
+        return buffers;
+    }
+
+    private static MockCompletionSubscriber<List<ByteBuffer>> inflate(final byte[] compressed, final Format format) {
+        MockCompletionSubscriber<List<ByteBuffer>> subscriber = new MockCompletionSubscriber<>();
+        CompletionSubscriber<List<ByteBuffer>> adapter = InflatingCompletionSubscriberAdapter.adapt(subscriber, format);
+        adapter.onSubscribe(new MockCompletionSubscription());
+        List<ByteBuffer> buffers = split(compressed);
+        for (int i = 0; i < buffers.size(); i += 3) {
+            adapter.onNext(buffers.subList(i, Math.min(i + 3, buffers.size())));
+        }
+        adapter.onComplete();
+        return subscriber;
+    }
+
+    private static byte[] bytes(final MockCompletionSubscriber<List<ByteBuffer>> subscriber) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        subscriber.getItemsList().forEach(list -> list.forEach(b -> {
+            byte[] array = new byte[b.remaining()];
+            b.duplicate().get(array);
+            bytes.writeBytes(array);
+        }));
+        return bytes.toByteArray();
+    }
+
+    @Test
+    void gzipInflated() throws IOException {
+        byte[] text = text(20000);
+        MockCompletionSubscriber<List<ByteBuffer>> subscriber = inflate(gzip(text),
+                Format.GZIP);
+        assertArrayEquals(text, bytes(subscriber));
+        assertEquals(1, subscriber.getTimesCompleteInvoked());
+        Assertions.assertTrue(subscriber.getItemsList().size() > 1);
+        subscriber.getItemsList().forEach(list -> Assertions.assertTrue(list.stream().mapToInt(ByteBuffer::remaining)
+                .sum() <= InflatingCompletionSubscriberAdapter.MAX_CHUNK_BYTES));
+    }
+
+    @Test
+    void gzipMembersConcatenated() throws IOException {
+        byte[] first = text(100);
+        byte[] second = text(50);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        compressed.writeBytes(gzip(first));
+        compressed.writeBytes(gzip(second));
+        ByteArrayOutputStream text = new ByteArrayOutputStream();
+        text.writeBytes(first);
+        text.writeBytes(second);
+        assertArrayEquals(text.toByteArray(), bytes(inflate(compressed.toByteArray(),
+                Format.GZIP)));
+    }
+
+    @Test
+    void gzipHeaderFieldsSkipped() throws IOException {
+        byte[] text = text(10);
+        byte[] raw = deflate(text, true);
+        CRC32 crc = new CRC32();
+        crc.update(text);
+        ByteBuffer compressed = ByteBuffer.allocate(raw.length + 64).order(ByteOrder.LITTLE_ENDIAN)
+                .put(new byte[]{0x1f, (byte) 0x8b, 8, 4 | 8 | 16 | 2, 0, 0, 0, 0, 0, 3})
+                .putShort((short) 3).put(new byte[]{1, 2, 3})
+                .put("name.txt".getBytes()).put((byte) 0)
+                .put("comment".getBytes()).put((byte) 0)
+                .putShort((short) 0)
+                .put(raw).putInt((int) crc.getValue()).putInt(text.length).flip();
+        byte[] bytes = new byte[compressed.remaining()];
+        compressed.get(bytes);
+        assertArrayEquals(text, bytes(inflate(bytes, Format.GZIP)));
+    }
+
+    @Test
+    void zlibAndRawDeflateInflated() throws IOException {
+        byte[] text = text(500);
+        assertArrayEquals(text, bytes(inflate(deflate(text, false), Format.ZLIB)));
+        assertArrayEquals(text, bytes(inflate(deflate(text, true),
+                Format.DEFLATE)));
+    }
+
+    @Test
+    void corruptGzipErrors() throws IOException {
+        byte[] compressed = gzip(text(100));
+        compressed[compressed.length - 6] ^= 1;
+        MockCompletionSubscriber<List<ByteBuffer>> subscriber = inflate(compressed,
+                Format.GZIP);
+        assertEquals(IllegalArgumentException.class, subscriber.getOnErrorArg().getClass());
+        assertEquals(0, subscriber.getTimesCompleteInvoked());
+    }
+
+    @Test
+    void truncatedGzipErrors() throws IOException {
+        byte[] compressed = gzip(text(100));
+        MockCompletionSubscriber<List<ByteBuffer>> subscriber = inflate(Arrays.copyOf(compressed,
+                compressed.length - 3), Format.GZIP);
+        assertEquals(IllegalArgumentException.class, subscriber.getOnErrorArg().getClass());
+    }
+
+    @Test
+    void gzipLinesInflatedAndFramed() throws IOException {
+        MockCompletionSubscriber<String> lines = new MockCompletionSubscriber<>();
+        CompletionSubscriber<List<ByteBuffer>> adapter = InflatingCompletionSubscriberAdapter
+                .gzip(ByteBufferToTextLineCompletionSubscriberAdapter.adapt(lines, StandardCharsets.UTF_8, null));
+        adapter.onSubscribe(new MockCompletionSubscription());
+        adapter.onNext(split(gzip("first\nsecond\nthird".getBytes(StandardCharsets.UTF_8))));
+        adapter.onComplete();
+        assertEquals(Arrays.asList("first", "second", "third"), lines.getItemsList());
+        assertEquals(1, lines.getTimesCompleteInvoked());
+    }
+
+    @Test
+    void inflatedIntoPooledBuffers() throws IOException {
+        byte[] text = text(20000);
+        SizeClassedByteBufferPool pool = new SizeClassedByteBufferPool(1024, 64 * 1024, 4, 0);
+        ByteArrayOutputStream inflated = new ByteArrayOutputStream();
+        MockCompletionSubscriber<List<ByteBuffer>> subscriber = new MockCompletionSubscriber<>() {
+            @Override
+            public void onNext(List<ByteBuffer> item) {
+                item.forEach(b -> {
+                    Assertions.assertTrue(b.isDirect());
+                    byte[] array = new byte[b.remaining()];
+                    b.get(array);
+                    inflated.writeBytes(array);
+                    pool.release(b);
+                });
+                super.onNext(item);
+            }
+        };
+        CompletionSubscriber<List<ByteBuffer>> adapter = InflatingCompletionSubscriberAdapter.adapt(subscriber,
+                Format.GZIP, pool);
+        adapter.onSubscribe(new MockCompletionSubscription());
+        split(gzip(text)).forEach(b -> adapter.onNext(List.of(b)));
+        adapter.onComplete();
+        assertArrayEquals(text, inflated.toByteArray());
+        Assertions.assertTrue(pool.getAllocationCount() <= 6, "allocations :" + pool.getAllocationCount());
+    }
+
+    @Test
+    void inflatedAsDemanded() throws IOException {
+        byte[] text = text(100000);
+        SizeClassedByteBufferPool pool = new SizeClassedByteBufferPool(1024, 64 * 1024, 4, 0);
+        MockCompletionSubscriber<List<ByteBuffer>> subscriber = new MockCompletionSubscriber<>() {
+            @Override
+            public void onNext(List<ByteBuffer> item) {
+                getItemsList().add(item);
+            }
+        };
+        MockCompletionSubscription subscription = new MockCompletionSubscription();
+        CompletionSubscriber<List<ByteBuffer>> adapter = InflatingCompletionSubscriberAdapter.adapt(subscriber,
+                Format.GZIP, pool);
+        adapter.onSubscribe(subscription);
+        adapter.onNext(split(gzip(text)));
+        assertEquals(1, subscriber.getItemsList().size());
+        assertEquals(InflatingCompletionSubscriberAdapter.MAX_CHUNK_BYTES, subscriber.getItemsList().get(0).stream()
+                .mapToInt(ByteBuffer::remaining).sum());
+        Assertions.assertTrue(pool.getAllocationCount() <= 5, "allocations :" + pool.getAllocationCount());
+        assertEquals(List.of(1L), subscription.getRequestArgs());
+        subscriber.getSubscription().request(Long.MAX_VALUE);
+        assertEquals(List.of(1L, 1L), subscription.getRequestArgs());
+        adapter.onComplete();
+        assertArrayEquals(text, bytes(subscriber));
+        assertEquals(1, subscriber.getTimesCompleteInvoked());
+    }
+}
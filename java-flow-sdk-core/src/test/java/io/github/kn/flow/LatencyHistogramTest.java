@@ -0,0 +1,40 @@
+package io.github.kn.flow;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ */
+class LatencyHistogramTest {
+
+    @Test
+    void bucketBoundsContainValue() {
+        for (long value : new long[]{0, 1, 31, 32, 33, 63, 64, 1000, 123_456_789, Long.MAX_VALUE}) {
+            int index = LatencyHistogram.indexOf(value);
+            Assertions.assertTrue(LatencyHistogram.highestValueAt(index) >= value);
+            Assertions.assertTrue(index == 0 || LatencyHistogram.highestValueAt(index - 1) < value);
+        }
+    }
+
+    @Test
+    void percentileWithinRelativeError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 10_000; i++) {
+            histogram.record(i * 1000L);
+        }
+        Assertions.assertEquals(10_000, histogram.getCount());
+        Assertions.assertEquals(5_000_500, histogram.getMean(), 1);
+        long p99 = histogram.getValueAtPercentile(0.99);
+        Assertions.assertTrue(p99 >= 9_900_000 && p99 <= 9_900_000 * 1.04, "p99 " + p99);
+        long max = histogram.getValueAtPercentile(1);
+        Assertions.assertTrue(max >= 10_000_000 && max <= 10_000_000 * 1.04, "max " + max);
+    }
+
+    @Test
+    void emptyHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Assertions.assertEquals(0, histogram.getValueAtPercentile(0.5));
+        Assertions.assertEquals(0, histogram.getMean());
+    }
+}
@@ -0,0 +1,150 @@
+package io.github.kn.flow;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import io.github.kn.flow.util.MockCompletionSubscriber;
+
+/**
+ *
+ */
+class MergingCompletionPublisherTest {
+
+    @Test
+    void mergeInterleavesSources() {
+        SubmissionPublisher<String> first = new SubmissionPublisher<>(r -> r.run(), 16);
+        SubmissionPublisher<String> second = new SubmissionPublisher<>(r -> r.run(), 16);
+        List<String> items = new ArrayList<>();
+        AtomicReference<CompletionSubscription> subscription = new AtomicReference<>();
+        AtomicInteger completions = new AtomicInteger();
+        CompletableFuture<Void> completion = CompletionPublisher.merge(List.of(first, second), 2)
+                .subscribe(new CompletionSubscriber<String>() {
+                    @Override
+                    public void onSubscribe(CompletionSubscription subs) {
+                        subscription.set(subs);
+                    }
+
+                    @Override
+                    public void onNext(String item) {
+                        items.add(item);
+                    }
+
+                    @Override
+                    public void onError(Throwable throwable) {
+                    }
+
+                    @Override
+                    public void onComplete() {
+                        completions.incrementAndGet();
+                    }
+                });
+        first.submit("a1");
+        first.submit("a2");
+        second.submit("b1");
+        second.submit("b2");
+        Assertions.assertTrue(items.isEmpty());
+        subscription.get().request(4);
+        Assertions.assertEquals(List.of("a1", "b1", "a2", "b2"), items);
+        first.close();
+        Assertions.assertEquals(0, completions.get());
+        second.close();
+        Assertions.assertEquals(1, completions.get());
+        Assertions.assertFalse(completion.isDone());
+        subscription.get().onComplete();
+        Assertions.assertTrue(completion.isDone());
+    }
+
+    @Test
+    void mergeBoundsSubscribedSources() {
+        List<SubmissionPublisher<Integer>> sources = IntStream.range(0, 3)
+                .mapToObj(i -> new SubmissionPublisher<Integer>(r -> r.run(), 16)).collect(Collectors.toList());
+        MockCompletionSubscriber<Integer> subscriber = new MockCompletionSubscriber<>();
+        CompletionPublisher.merge(sources, 2).subscribe(subscriber);
+        Assertions.assertEquals(1, sources.get(0).getNumberOfSubscribers());
+        Assertions.assertEquals(1, sources.get(1).getNumberOfSubscribers());
+        Assertions.assertEquals(0, sources.get(2).getNumberOfSubscribers());
+        sources.get(0).submit(0);
+        sources.get(0).close();
+        Assertions.assertEquals(1, sources.get(2).getNumberOfSubscribers());
+        sources.get(2).submit(2);
+        sources.get(1).submit(1);
+        sources.forEach(SubmissionPublisher::close);
+        Assertions.assertEquals(List.of(0, 2, 1), subscriber.getItemsList());
+        Assertions.assertEquals(1, subscriber.getTimesCompleteInvoked());
+    }
+
+    @Test
+    void concatSubscribesSequentially() {
+        List<SubmissionPublisher<Integer>> sources = IntStream.range(0, 2)
+                .mapToObj(i -> new SubmissionPublisher<Integer>(r -> r.run(), 16)).collect(Collectors.toList());
+        MockCompletionSubscriber<Integer> subscriber = new MockCompletionSubscriber<>();
+        CompletionPublisher.concat(sources).subscribe(subscriber);
+        Assertions.assertEquals(0, sources.get(1).getNumberOfSubscribers());
+        sources.get(0).submit(1);
+        sources.get(0).close();
+        sources.get(1).submit(2);
+        sources.get(1).close();
+        Assertions.assertEquals(List.of(1, 2), subscriber.getItemsList());
+        Assertions.assertEquals(1, subscriber.getTimesCompleteInvoked());
+    }
+
+    @Test
+    void sourceErrorCancelsOthers() {
+        SubmissionPublisher<String> first = new SubmissionPublisher<>(r -> r.run(), 16);
+        SubmissionPublisher<String> second = new SubmissionPublisher<>(r -> r.run(), 16);
+        MockCompletionSubscriber<String> subscriber = new MockCompletionSubscriber<>();
+        CompletableFuture<Void> completion = CompletionPublisher.merge(List.of(first, second), 2)
+                .subscribe(subscriber);
+        first.closeExceptionally(new IllegalStateException());
+        Assertions.assertEquals(IllegalStateException.class, subscriber.getOnErrorArg().getClass());
+        Assertions.assertTrue(completion.isCompletedExceptionally());
+        Assertions.assertEquals(0, second.getNumberOfSubscribers());
+    }
+
+    @Test
+    void failingSourcesIteratorErrors() {
+        SubmissionPublisher<String> first = new SubmissionPublisher<>(r -> r.run(), 16);
+        Iterator<SubmissionPublisher<String>> sources = List.of(first).iterator();
+        Iterable<SubmissionPublisher<String>> failing = () -> new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public SubmissionPublisher<String> next() {
+                if (sources.hasNext()) {
+                    return sources.next();
+                }
+                throw new IllegalStateException();
+            }
+        };
+        MockCompletionSubscriber<String> subscriber = new MockCompletionSubscriber<>();
+        CompletableFuture<Void> completion = CompletionPublisher.merge(failing, 2).subscribe(subscriber);
+        Assertions.assertEquals(IllegalStateException.class, subscriber.getOnErrorArg().getClass());
+        Assertions.assertTrue(completion.isCompletedExceptionally());
+        Assertions.assertEquals(0, first.getNumberOfSubscribers());
+    }
+
+    @Test
+    void emptySourcesComplete() {
+        MockCompletionSubscriber<String> subscriber = new MockCompletionSubscriber<>();
+        CompletionPublisher.<String>concat(List.of()).subscribe(subscriber);
+        Assertions.assertEquals(1, subscriber.getTimesCompleteInvoked());
+    }
+
+    @Test
+    void invalidConcurrency() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> CompletionPublisher.merge(List.of(), 0));
+    }
+}
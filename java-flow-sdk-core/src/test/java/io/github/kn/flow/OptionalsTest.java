@@ -1,11 +1,13 @@
 package io.github.kn.flow;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
@@ -111,4 +113,25 @@ class OptionalsTest {
         Assertions.assertEquals(3, it.next());
     }
 
-}
\ No newline at end of file
+    @Test
+    void replaceWithNulls() {
+        Assertions.assertEquals("[4, 6]", Optionals.create(Arrays.asList(1, null, 3, 4))
+                .replace(Arrays.asList(4, null, 6)).stream().collect(Collectors.toList()).toString());
+    }
+
+    @Test
+    void mergeEmptiesAcrossWords() {
+        List<Integer> values = IntStream.range(0, 150).boxed().collect(Collectors.toList());
+        List<Integer> from = IntStream.range(0, 130).mapToObj(i -> i % 3 == 0 ? null : i)
+                .collect(Collectors.toList());
+        Assertions.assertEquals(IntStream.range(0, 150).filter(i -> i >= 130 || i % 3 != 0).boxed()
+                        .collect(Collectors.toList()),
+                Optionals.create(values).mergeEmpties(Optionals.create(from)).stream().collect(Collectors.toList()));
+    }
+
+    @Test
+    void mapToNull() {
+        Assertions.assertEquals("13", Optionals.create(List.of(1, 2, 3)).map(i -> i == 2 ? null : i).toString());
+    }
+
+}
@@ -0,0 +1,144 @@
+package io.github.kn.flow;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ */
+class RingBufferPublisherTest {
+
+    @Test
+    void deliversRequestedItems() {
+        RingBufferPublisher<Integer> publisher = new RingBufferPublisher<>(4, r -> r.run(),
+                RingBufferPublisher.WaitStrategy.YIELD);
+        RecordingSubscriber subscriber = new RecordingSubscriber(2);
+        publisher.subscribe(subscriber);
+        publisher.submit(1);
+        publisher.submit(2);
+        publisher.submit(3);
+        Assertions.assertEquals(List.of(1, 2), subscriber.items);
+        subscriber.subscription.request(5);
+        Assertions.assertEquals(List.of(1, 2, 3), subscriber.items);
+        publisher.close();
+        Assertions.assertEquals(0, subscriber.completions.getCount());
+    }
+
+    @Test
+    void itemsWithoutSubscribersDropped() {
+        RingBufferPublisher<Integer> publisher = new RingBufferPublisher<>(2, r -> r.run(),
+                RingBufferPublisher.WaitStrategy.SPIN);
+        IntStream.range(0, 5).forEach(publisher::submit);
+        RecordingSubscriber subscriber = new RecordingSubscriber(Long.MAX_VALUE);
+        publisher.subscribe(subscriber);
+        publisher.submit(9);
+        Assertions.assertEquals(List.of(9), subscriber.items);
+    }
+
+    @Test
+    void capacityRoundedToPowerOfTwo() {
+        Assertions.assertEquals(8, new RingBufferPublisher<>(5, r -> r.run(), RingBufferPublisher.WaitStrategy.PARK)
+                .getCapacity());
+    }
+
+    @Test
+    void submitAfterCloseThrows() {
+        RingBufferPublisher<Integer> publisher = new RingBufferPublisher<>(2, r -> r.run(),
+                RingBufferPublisher.WaitStrategy.PARK);
+        publisher.close();
+        Assertions.assertThrows(IllegalStateException.class, () -> publisher.submit(1));
+    }
+
+    @Test
+    void multipleProducersFullRing() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            RingBufferPublisher<Integer> publisher = new RingBufferPublisher<>(8, executor,
+                    RingBufferPublisher.WaitStrategy.PARK);
+            RecordingSubscriber subscriber = new RecordingSubscriber(Long.MAX_VALUE);
+            publisher.subscribe(subscriber);
+            CountDownLatch producers = new CountDownLatch(3);
+            for (int p = 0; p < 3; p++) {
+                final int producer = p;
+                executor.execute(() -> {
+                    IntStream.range(0, 1000).forEach(i -> publisher.submit(producer * 1000 + i));
+                    producers.countDown();
+                });
+            }
+            Assertions.assertTrue(producers.await(10, TimeUnit.SECONDS));
+            publisher.close();
+            Assertions.assertTrue(subscriber.completions.await(10, TimeUnit.SECONDS));
+            Assertions.assertEquals(IntStream.range(0, 3000).boxed().collect(Collectors.toList()),
+                    subscriber.items.stream().sorted().collect(Collectors.toList()));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void subscribedWhileProducing() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            RingBufferPublisher<Integer> publisher = new RingBufferPublisher<>(4, executor,
+                    RingBufferPublisher.WaitStrategy.PARK);
+            RecordingSubscriber subscriber = new RecordingSubscriber(Long.MAX_VALUE);
+            CompletableFuture<Integer> produced = CompletableFuture.supplyAsync(() -> {
+                int item = 0;
+                while (item < 1000 || subscriber.items.size() < 1000) {
+                    publisher.submit(item++);
+                }
+                return item;
+            }, executor);
+            publisher.subscribe(subscriber);
+            int count = produced.get(10, TimeUnit.SECONDS);
+            publisher.close();
+            Assertions.assertTrue(subscriber.completions.await(10, TimeUnit.SECONDS));
+            List<Integer> items = subscriber.items;
+            Assertions.assertEquals(IntStream.range(items.get(0), count).boxed().collect(Collectors.toList()), items);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static class RecordingSubscriber implements Flow.Subscriber<Integer> {
+        private final List<Integer> items = new CopyOnWriteArrayList<>();
+        private final CountDownLatch completions = new CountDownLatch(1);
+        private final long initialRequest;
+        private Flow.Subscription subscription;
+
+        private RecordingSubscriber(long request) {
+            this.initialRequest = request;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subs) {
+            this.subscription = subs;
+            subs.request(initialRequest);
+        }
+
+        @Override
+        public void onNext(Integer item) {
+            items.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+        }
+
+        @Override
+        public void onComplete() {
+            completions.countDown();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package io.github.kn.flow;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ */
+class SizeClassedByteBufferPoolTest {
+
+    private final SizeClassedByteBufferPool pool = new SizeClassedByteBufferPool(16, 64, 1, 1);
+
+    @Test
+    void acquireRoundsUpToSizeClass() {
+        ByteBuffer buffer = pool.acquire(17);
+        assertTrue(buffer.isDirect());
+        assertEquals(32, buffer.capacity());
+        assertEquals(0, buffer.position());
+        assertEquals(17, buffer.limit());
+        assertEquals(16, pool.acquire(0).capacity());
+        assertEquals(100, pool.acquire(100).capacity());
+    }
+
+    @Test
+    void releasedBufferReused() {
+        ByteBuffer buffer = pool.acquire(30);
+        buffer.put((byte) 1);
+        pool.release(buffer);
+        ByteBuffer reused = pool.acquire(20);
+        assertSame(buffer, reused);
+        assertEquals(0, reused.position());
+        assertEquals(20, reused.limit());
+        assertEquals(1, pool.getAllocationCount());
+        assertNotSame(buffer, pool.acquire(64));
+    }
+
+    @Test
+    void releasesBeyondCachesDropped() throws Exception {
+        ByteBuffer first = pool.acquire(16);
+        ByteBuffer second = pool.acquire(16);
+        ByteBuffer third = pool.acquire(16);
+        pool.release(first);
+        pool.release(second);
+        pool.release(third);
+        assertSame(first, pool.acquire(16));
+        assertSame(second, CompletableFuture.supplyAsync(() -> pool.acquire(16)).get());
+        pool.acquire(16);
+        assertEquals(4, pool.getAllocationCount());
+    }
+
+    @Test
+    void foreignBuffersIgnored() {
+        pool.release(ByteBuffer.allocate(16));
+        pool.release(ByteBuffer.allocateDirect(24));
+        pool.release(ByteBuffer.allocateDirect(128));
+        pool.acquire(16);
+        assertEquals(1, pool.getAllocationCount());
+    }
+
+    @Test
+    void invalidPool() {
+        assertThrows(IllegalArgumentException.class, () -> new SizeClassedByteBufferPool(10, 64, 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> new SizeClassedByteBufferPool(64, 16, 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> pool.acquire(-1));
+    }
+}
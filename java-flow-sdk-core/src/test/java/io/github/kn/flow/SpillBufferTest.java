@@ -0,0 +1,143 @@
+package io.github.kn.flow;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ */
+class SpillBufferTest {
+
+    private Path directory;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        directory = Files.createTempDirectory("spill-test");
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(f -> f.toFile().delete());
+        }
+        Files.delete(directory);
+    }
+
+    @Test
+    void itemsWithinThresholdNotSpilled() {
+        try (SpillBuffer<String> buffer = new SpillBuffer<>(directory, 2, SpillCodec.utf8())) {
+            buffer.add("a");
+            buffer.add("b");
+            Assertions.assertEquals(0, buffer.getSpilledCount());
+            Assertions.assertEquals("a", buffer.poll());
+            Assertions.assertEquals("b", buffer.poll());
+            Assertions.assertNull(buffer.poll());
+        }
+    }
+
+    @Test
+    void spilledItemsPolledInOrder() throws Exception {
+        try (SpillBuffer<String> buffer = new SpillBuffer<>(directory, 2, 16, SpillCodec.utf8())) {
+            IntStream.range(0, 10).forEach(i -> buffer.add("item" + i));
+            Assertions.assertEquals(10, buffer.size());
+            Assertions.assertEquals(8, buffer.getSpilledCount());
+            Assertions.assertEquals("item0", buffer.poll());
+            buffer.add("item10");
+            List<String> polled = new ArrayList<>();
+            String item;
+            while ((item = buffer.poll()) != null) {
+                polled.add(item);
+            }
+            Assertions.assertEquals(IntStream.rangeClosed(1, 10).mapToObj(i -> "item" + i)
+                    .collect(Collectors.toList()), polled);
+            Assertions.assertTrue(buffer.isEmpty());
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            Assertions.assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void drainedSegmentReused() throws Exception {
+        try (SpillBuffer<String> buffer = new SpillBuffer<>(directory, 0, 16, SpillCodec.utf8())) {
+            buffer.add("a");
+            Assertions.assertEquals("a", buffer.poll());
+            Assertions.assertEquals(1, buffer.getSegmentCount());
+            buffer.add("b");
+            buffer.add("c");
+            Assertions.assertEquals(1, buffer.getSegmentCount());
+            Assertions.assertEquals("b", buffer.poll());
+            Assertions.assertEquals("c", buffer.poll());
+            buffer.close();
+            Assertions.assertEquals(0, buffer.getSegmentCount());
+        }
+    }
+
+    @Test
+    void itemsAddedOnceClosedDiscarded() throws Exception {
+        SpillBuffer<String> buffer = new SpillBuffer<>(directory, 0, 16, SpillCodec.utf8());
+        buffer.add("a");
+        buffer.close();
+        buffer.add("b");
+        Assertions.assertTrue(buffer.isEmpty());
+        Assertions.assertNull(buffer.poll());
+        Assertions.assertEquals(0, buffer.getSegmentCount());
+    }
+
+    @Test
+    void recordsLargerThanSegmentSpilled() {
+        try (SpillBuffer<String> buffer = new SpillBuffer<>(directory, 0, 8, SpillCodec.utf8())) {
+            String large = "x".repeat(100);
+            buffer.add(large);
+            buffer.add("y");
+            Assertions.assertEquals(large, buffer.poll());
+            Assertions.assertEquals("y", buffer.poll());
+        }
+    }
+
+    @Test
+    void forEachKeepsItems() {
+        try (SpillBuffer<String> buffer = new SpillBuffer<>(directory, 1, SpillCodec.utf8())) {
+            buffer.add("a");
+            buffer.add("b");
+            buffer.add("c");
+            buffer.poll();
+            List<String> items = new ArrayList<>();
+            buffer.forEach(items::add);
+            Assertions.assertEquals(List.of("b", "c"), items);
+            Assertions.assertEquals(2, buffer.size());
+        }
+    }
+
+    @Test
+    void indexedKeysMaintainedOnAddAndPoll() {
+        try (SpillBuffer<String> buffer = new SpillBuffer<>(directory, 1, 16, 2, SpillCodec.utf8(),
+                Optional.of(item -> List.of(item + "1", item + "2")))) {
+            buffer.add("a");
+            buffer.add("b");
+            buffer.add("c");
+            Assertions.assertEquals(List.of("a1", "a2", "b1", "b2", "c1", "c2"), buffer.getIndexedKeys());
+            buffer.poll();
+            buffer.poll();
+            Assertions.assertEquals(List.of("c1", "c2"), buffer.getIndexedKeys());
+            Assertions.assertEquals(2, buffer.getCapacity());
+        }
+    }
+
+    @Test
+    void invalidThreshold() {
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new SpillBuffer<>(directory, -1, SpillCodec.utf8()));
+    }
+}
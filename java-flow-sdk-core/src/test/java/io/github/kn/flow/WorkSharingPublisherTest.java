@@ -0,0 +1,181 @@
+package io.github.kn.flow;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ */
+class WorkSharingPublisherTest {
+
+    @Test
+    void eachItemDeliveredToOneSubscriber() {
+        WorkSharingPublisher<Integer> publisher = new WorkSharingPublisher<>(r -> r.run());
+        RecordingSubscriber first = new RecordingSubscriber(3);
+        RecordingSubscriber second = new RecordingSubscriber(3);
+        publisher.subscribe(first);
+        publisher.subscribe(second);
+        IntStream.range(0, 6).forEach(publisher::submit);
+        Assertions.assertEquals(3, first.items.size());
+        Assertions.assertEquals(3, second.items.size());
+        List<Integer> all = new ArrayList<>(first.items);
+        all.addAll(second.items);
+        Assertions.assertEquals(IntStream.range(0, 6).boxed().collect(Collectors.toList()),
+                all.stream().sorted().collect(Collectors.toList()));
+    }
+
+    @Test
+    void itemsQueuedUntilRequested() {
+        WorkSharingPublisher<Integer> publisher = new WorkSharingPublisher<>(r -> r.run());
+        RecordingSubscriber subscriber = new RecordingSubscriber(1);
+        publisher.subscribe(subscriber);
+        publisher.submit(1);
+        publisher.submit(2);
+        Assertions.assertEquals(List.of(1), subscriber.items);
+        subscriber.subscription.request(1);
+        Assertions.assertEquals(List.of(1, 2), subscriber.items);
+    }
+
+    @Test
+    void cancelledSubscriberItemsGoToOthers() {
+        WorkSharingPublisher<Integer> publisher = new WorkSharingPublisher<>(r -> r.run());
+        RecordingSubscriber first = new RecordingSubscriber(1);
+        publisher.subscribe(first);
+        publisher.submit(1);
+        publisher.submit(2);
+        RecordingSubscriber second = new RecordingSubscriber(0);
+        publisher.subscribe(second);
+        first.subscription.cancel();
+        second.subscription.request(1);
+        Assertions.assertEquals(List.of(1), first.items);
+        Assertions.assertEquals(List.of(2), second.items);
+        Assertions.assertEquals(1, publisher.getNumberOfSubscribers());
+    }
+
+    @Test
+    void closeCompletesSubscribersOnceDrained() {
+        WorkSharingPublisher<Integer> publisher = new WorkSharingPublisher<>(r -> r.run());
+        RecordingSubscriber subscriber = new RecordingSubscriber(0);
+        publisher.subscribe(subscriber);
+        publisher.submit(1);
+        publisher.close();
+        Assertions.assertEquals(1, subscriber.completions.getCount());
+        subscriber.subscription.request(1);
+        Assertions.assertEquals(List.of(1), subscriber.items);
+        Assertions.assertEquals(0, subscriber.completions.getCount());
+        Assertions.assertThrows(IllegalStateException.class, () -> publisher.submit(2));
+    }
+
+    @Test
+    void cancelledSubscriberDemandSubtracted() {
+        WorkSharingPublisher<Integer> publisher = new WorkSharingPublisher<>(r -> r.run());
+        AbstractPollingPublisher.PollingDemand demand = AbstractPollingPublisher.PollingDemand.create(r -> r.run());
+        AbstractPollingPublisher<Integer> pollingPublisher = new AbstractPollingPublisher<>(() -> () -> {
+        }, r -> r.run(), 1, publisher, demand, true) {
+        };
+        RecordingSubscriber first = new RecordingSubscriber(5);
+        RecordingSubscriber second = new RecordingSubscriber(2);
+        pollingPublisher.subscribe(first);
+        Assertions.assertTrue(demand.tryAcquire());
+        publisher.submit(1);
+        Assertions.assertEquals(List.of(1), first.items);
+        pollingPublisher.subscribe(second);
+        Assertions.assertEquals(6, demand.getAvailable());
+        first.subscription.cancel();
+        Assertions.assertEquals(2, demand.getAvailable());
+    }
+
+    @Test
+    void closeStopsPollersClosingSpillBuffers() throws Exception {
+        Path directory = Files.createTempDirectory("spill-test");
+        WorkSharingPublisher<String> publisher = new WorkSharingPublisher<>(r -> r.run());
+        AbstractPollingPublisher.PollingDemand demand = AbstractPollingPublisher.PollingDemand.create(r -> r.run());
+        SpillBuffer<String> spill = new SpillBuffer<>(directory, 0, SpillCodec.utf8());
+        AbstractPollingPublisher.PollingRunnable<String> poller = new AbstractPollingPublisher.PollingRunnable<>(1,
+                1, new LinkedBlockingQueue<>(), publisher, demand, Optional.of(spill)) {
+            @Override
+            protected void init() {
+            }
+
+            @Override
+            protected CompletionStage<Optional<String>> pollImpl() {
+                return new CompletableFuture<>();
+            }
+        };
+        AbstractPollingPublisher<String> pollingPublisher = new AbstractPollingPublisher<>(() -> poller, r -> r.run(),
+                1, publisher, demand, true) {
+        };
+        pollingPublisher.subscribe(new Flow.Subscriber<String>() {
+            @Override
+            public void onSubscribe(final Flow.Subscription subscription) {
+            }
+
+            @Override
+            public void onNext(final String item) {
+            }
+
+            @Override
+            public void onError(final Throwable throwable) {
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+        spill.add("a");
+        pollingPublisher.close();
+        Assertions.assertTrue(poller.isStopped());
+        Assertions.assertTrue(spill.isEmpty());
+        Assertions.assertEquals(0, spill.getSegmentCount());
+        spill.add("b");
+        Assertions.assertTrue(spill.isEmpty());
+        Files.delete(directory);
+    }
+
+    private static class RecordingSubscriber implements Flow.Subscriber<Integer> {
+        private final List<Integer> items = new CopyOnWriteArrayList<>();
+        private final CountDownLatch completions = new CountDownLatch(1);
+        private final long initialRequest;
+        private Flow.Subscription subscription;
+
+        private RecordingSubscriber(long request) {
+            this.initialRequest = request;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subs) {
+            this.subscription = subs;
+            if (initialRequest > 0) {
+                subs.request(initialRequest);
+            }
+        }
+
+        @Override
+        public void onNext(Integer item) {
+            items.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+        }
+
+        @Override
+        public void onComplete() {
+            completions.countDown();
+        }
+    }
+}
@@ -14,6 +14,8 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import io.github.kn.flow.ByteBufferPool;
+
 /**
  *
  */
@@ -55,6 +57,26 @@ class FileWritingItemProcessorTest {
         Assertions.assertEquals(3, mockAsynchronousFileChannel.getWrtPosition());
     }
 
+    @Test
+    void writtenBuffersReleasedToPool() {
+        List<ByteBuffer> released = new ArrayList<>();
+        processor = new FileWritingItemProcessor(() -> mockAsynchronousFileChannel, Optional.of(new ByteBufferPool() {
+            @Override
+            public ByteBuffer acquire(int capacity) {
+                return ByteBuffer.allocate(capacity);
+            }
+
+            @Override
+            public void release(ByteBuffer buffer) {
+                released.add(buffer);
+            }
+        }));
+        processor.prepare();
+        List<ByteBuffer> buffers = List.of(ByteBuffer.allocate(1), ByteBuffer.allocate(0));
+        processor.onNext(buffers);
+        Assertions.assertEquals(buffers, released);
+    }
+
     private class MockAsynchronousFileChannel extends AsynchronousFileChannel {
 
         private List<ByteBuffer> wrtByteBuffers = new ArrayList<>();
@@ -42,6 +42,8 @@ import java.util.concurrent.ForkJoinPool;
  */
 public class ExampleStepFunctionToHttpEndpointFlow {
     public static final String ACTIVITY_ARN = "arn:aws:states:ap-south-1:576167309617:activity:invoke_http";
+    public static final double HTTP_REQUESTS_PER_SECOND = 100;
+    public static final int HTTP_REQUESTS_BURST = 10;
 
     public static void main(String[] args) {
         SfnAsyncClient sfnAsyncClient = SfnAsyncClient.builder()
@@ -60,7 +62,7 @@ public class ExampleStepFunctionToHttpEndpointFlow {
                         .completedStage(HttpRequestResponseStringCodec.toHttpRequest(item)))
                         .compose(HttpRequestItemProcessor.builder()
                                 .executor(ForkJoinPool.commonPool())
-                                .build())
+                                .build().rateLimited(HTTP_REQUESTS_PER_SECOND, HTTP_REQUESTS_BURST))
                         .compose(r -> CompletableFuture
                                 .completedStage(HttpRequestResponseStringCodec.fromHttpResponse(r).toString()));
 